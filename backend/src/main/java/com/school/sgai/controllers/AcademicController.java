@@ -2,11 +2,11 @@ package com.school.sgai.controllers;
 
 import com.school.sgai.entities.*;
 import com.school.sgai.repositories.AttendanceRepository;
-import com.school.sgai.repositories.CourseSessionRepository;
 import com.school.sgai.repositories.SubjectRepository;
 import com.school.sgai.services.AcademicService;
+import com.school.sgai.services.ScheduleService;
 import com.school.sgai.services.StructureService;
-import com.school.sgai.services.TranscriptService;
+import com.school.sgai.services.grading.TranscriptCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
@@ -25,9 +25,9 @@ public class AcademicController {
 
     private final AcademicService academicService;
     private final StructureService structureService;
+    private final ScheduleService scheduleService;
     private final SubjectRepository subjectRepo;
-    private final CourseSessionRepository courseSessionRepo;
-    private final TranscriptService transcriptService;
+    private final TranscriptCache transcriptCache;
     private final AttendanceRepository attendanceRepo;
 
     @GetMapping("/students")
@@ -67,17 +67,7 @@ public class AcademicController {
                               @RequestParam LocalTime start,
                               @RequestParam LocalTime end,
                               @RequestParam String room) {
-        Subject subject = subjectRepo.findById(subjectId).orElseThrow();
-
-        CourseSession session = CourseSession.builder()
-                .subject(subject)
-                .dayOfWeek(day)
-                .startTime(start)
-                .endTime(end)
-                .roomNumber(room)
-                .build();
-
-        courseSessionRepo.save(session);
+        scheduleService.addSession(subjectId, day, start, end, room);
         return "redirect:/admin/academic/subjects";
     }
 
@@ -151,7 +141,7 @@ public class AcademicController {
     public String studentDetails(@PathVariable Long id, Model model) {
         Student student = academicService.getStudentById(id);
 
-        var transcript = transcriptService.generateTranscript(id);
+        var transcript = transcriptCache.get(id);
 
         // Récupérer ses absences
         var absences = attendanceRepo.findByStudentId(id);
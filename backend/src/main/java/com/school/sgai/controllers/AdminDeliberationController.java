@@ -1,14 +1,22 @@
 package com.school.sgai.controllers;
 
 
+import com.school.sgai.entities.DeliberationPolicy;
+import com.school.sgai.services.DeliberationPolicyService;
 import com.school.sgai.services.DeliberationService;
+import com.school.sgai.services.GradeMatrixService;
 import com.school.sgai.services.StructureService;
+import com.school.sgai.services.SubjectAverageService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @Controller
 @RequestMapping("/admin/deliberation")
 @PreAuthorize("hasRole('ADMIN')")
@@ -17,6 +25,9 @@ public class AdminDeliberationController {
 
     private final DeliberationService deliberationService;
     private final StructureService structureService;
+    private final SubjectAverageService averageService;
+    private final GradeMatrixService matrixService;
+    private final DeliberationPolicyService policyService;
 
     @GetMapping("")
     public String selectClass(Model model) {
@@ -24,9 +35,38 @@ public class AdminDeliberationController {
         return "admin/deliberation-select";
     }
 
+    // Reconstruction complète du rollup des moyennes (après une migration ou une correction en base)
+    @PostMapping("/rollup/rebuild")
+    public String rebuildRollup() {
+        averageService.rebuild();
+        return "redirect:/admin/deliberation";
+    }
+
+    // ==========================================
+    // RÈGLES DE DÉLIBÉRATION (par filière)
+    // ==========================================
+
+    @GetMapping("/policies")
+    public String policies(Model model) {
+        model.addAttribute("programs", structureService.getAllPrograms());
+        model.addAttribute("policies", policyService.getPoliciesByProgram());
+        model.addAttribute("defaultPolicy", new DeliberationPolicy());
+        return "admin/deliberation-policies";
+    }
+
+    @PostMapping("/policies/save")
+    public String savePolicy(@RequestParam Long programId, @ModelAttribute DeliberationPolicy policy) {
+        policyService.savePolicy(programId, policy);
+        return "redirect:/admin/deliberation/policies";
+    }
+
     @GetMapping("/board/{classId}")
     public String juryBoard(@PathVariable Long classId, Model model) {
+        var matrix = matrixService.getMatrix(classId);
         model.addAttribute("transcripts", deliberationService.getJuryBoard(classId));
+        model.addAttribute("evaluations", matrix.getEvaluations());
+        model.addAttribute("subjects", matrix.getSubjects());
+        model.addAttribute("snapshots", deliberationService.getSnapshots(classId));
         model.addAttribute("classId", classId);
         return "admin/deliberation-board";
     }
@@ -38,4 +78,40 @@ public class AdminDeliberationController {
         deliberationService.validateStudent(studentId, decision);
         return "redirect:/admin/deliberation/board/" + classId;
     }
+
+    // Validation de toute la classe avec les décisions proposées (PV figé)
+    @PostMapping("/board/{classId}/validate-all")
+    public String validateClassroom(@PathVariable Long classId,
+                                    @AuthenticationPrincipal UserDetails userDetails) {
+        deliberationService.validateClassroom(classId, userDetails != null ? userDetails.getUsername() : null);
+        return "redirect:/admin/deliberation/board/" + classId;
+    }
+
+    // ==========================================
+    // SIMULATIONS DU JURY (calculées en mémoire)
+    // ==========================================
+
+    @GetMapping("/board/{classId}/what-if/min-score")
+    @ResponseBody
+    public Map<String, Object> minimumScores(@PathVariable Long classId,
+                                             @RequestParam Long evaluationId,
+                                             @RequestParam(defaultValue = "10") double target) {
+        return matrixService.minimumScores(classId, evaluationId, target);
+    }
+
+    @GetMapping("/board/{classId}/what-if/coefficient")
+    @ResponseBody
+    public Map<String, Object> coefficientChange(@PathVariable Long classId,
+                                                 @RequestParam Long subjectId,
+                                                 @RequestParam int coefficient,
+                                                 @RequestParam(defaultValue = "10") double threshold) {
+        return matrixService.passRateWithCoefficient(classId, subjectId, coefficient, threshold);
+    }
+
+    // Décisions de la classe avec des règles en projet (rien n'est enregistré)
+    @GetMapping("/board/{classId}/what-if/policy")
+    @ResponseBody
+    public Map<String, Object> policyChange(@PathVariable Long classId, @ModelAttribute DeliberationPolicy draft) {
+        return matrixService.decisionsWithPolicy(classId, draft);
+    }
 }
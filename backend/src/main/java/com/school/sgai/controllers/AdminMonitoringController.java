@@ -0,0 +1,35 @@
+package com.school.sgai.controllers;
+
+
+import com.school.sgai.services.grading.TranscriptCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Indicateurs techniques (caches, files d'attente...) au format JSON.
+ */
+@Controller
+@RequestMapping("/admin/monitoring")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+public class AdminMonitoringController {
+
+    private final TranscriptCache transcriptCache;
+
+    @GetMapping("/transcript-cache")
+    @ResponseBody
+    public Map<String, Object> transcriptCacheStats() {
+        return transcriptCache.stats();
+    }
+
+    @PostMapping("/transcript-cache/clear")
+    @ResponseBody
+    public Map<String, Object> clearTranscriptCache() {
+        transcriptCache.clear();
+        return transcriptCache.stats();
+    }
+}
@@ -3,18 +3,31 @@ package com.school.sgai.controllers;
 
 import com.school.sgai.dto.transcript.TranscriptDTO;
 import com.school.sgai.entities.Classroom;
+import com.school.sgai.entities.DeliberationSnapshot;
+import com.school.sgai.entities.Program;
+import com.school.sgai.entities.ReportJob;
+import com.school.sgai.enums.ReportType;
 import com.school.sgai.repositories.ClassroomRepository;
+import com.school.sgai.repositories.ProgramRepository;
 import com.school.sgai.services.DeliberationService;
+import com.school.sgai.services.ReportJobService;
 import com.school.sgai.services.ReportPdfService;
+import com.school.sgai.services.TranscriptExportService;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/admin/reports")
@@ -25,10 +38,16 @@ public class AdminReportController {
     private final ClassroomRepository classroomRepo;
     private final DeliberationService deliberationService;
     private final ReportPdfService pdfService;
+    private final TranscriptExportService exportService;
+    private final ProgramRepository programRepo;
+    private final ReportJobService jobService;
 
     @GetMapping
     public String reportsIndex(Model model) {
         model.addAttribute("classrooms", classroomRepo.findAll());
+        model.addAttribute("programs", programRepo.findAll());
+        model.addAttribute("jobs", jobService.getRecentJobs());
+        model.addAttribute("latestSnapshots", deliberationService.getLatestSnapshots());
         return "admin/reports-index";
     }
 
@@ -43,4 +62,72 @@ public class AdminReportController {
 
         pdfService.exportClassGlobalReport(response, classroom.getName(), board);
     }
+
+    // PV d'une délibération validée : relu depuis le snapshot, sans recalcul
+    @GetMapping("/snapshot/{snapshotId}")
+    public void downloadSnapshotReport(@PathVariable Long snapshotId, HttpServletResponse response) throws IOException {
+        DeliberationSnapshot snapshot = deliberationService.getSnapshot(snapshotId);
+
+        response.setContentType("application/pdf");
+        response.setHeader("Content-Disposition", "attachment; filename=PV_" + snapshot.getClassName() + "_" + snapshot.getId() + ".pdf");
+
+        pdfService.exportClassGlobalReport(response, snapshot);
+    }
+
+    // Tous les bulletins d'une classe (ZIP de PDF, envoyé au fil de l'eau)
+    @GetMapping("/class/{id}/transcripts")
+    public void downloadClassTranscripts(@PathVariable Long id, HttpServletResponse response) throws IOException {
+        Classroom classroom = classroomRepo.findById(id).orElseThrow();
+
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition", "attachment; filename=Bulletins_" + classroom.getName() + ".zip");
+
+        exportService.exportClassroom(id, response.getOutputStream());
+    }
+
+    // Tous les bulletins d'une filière, un dossier par classe
+    @GetMapping("/program/{id}/transcripts")
+    public void downloadProgramTranscripts(@PathVariable Long id, HttpServletResponse response) throws IOException {
+        Program program = programRepo.findById(id).orElseThrow();
+
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition", "attachment; filename=Bulletins_" + program.getCode() + ".zip");
+
+        exportService.exportProgram(id, response.getOutputStream());
+    }
+
+    // ==========================================
+    // GÉNÉRATION EN ARRIÈRE-PLAN (jobs)
+    // ==========================================
+
+    @PostMapping("/jobs")
+    public String submitJob(@RequestParam ReportType type, @RequestParam Long targetId,
+                            @AuthenticationPrincipal UserDetails userDetails) {
+        jobService.submit(type, targetId, userDetails != null ? userDetails.getUsername() : null);
+        return "redirect:/admin/reports";
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @ResponseBody
+    public Map<String, Object> jobStatus(@PathVariable Long jobId) {
+        return jobService.status(jobService.getJob(jobId));
+    }
+
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter jobEvents(@PathVariable Long jobId) {
+        return jobService.subscribe(jobId);
+    }
+
+    @GetMapping("/jobs/{jobId}/download")
+    public void downloadJob(@PathVariable Long jobId, HttpServletResponse response) throws IOException {
+        ReportJob job = jobService.getJob(jobId);
+        var artifact = jobService.getArtifact(job);
+
+        response.setContentType(job.getContentType());
+        response.setHeader("Content-Disposition", "attachment; filename=" + job.getFileName());
+        response.setContentLengthLong(job.getSizeBytes());
+
+        Files.copy(artifact, response.getOutputStream());
+    }
 }
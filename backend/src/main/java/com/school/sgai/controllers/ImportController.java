@@ -1,21 +1,35 @@
 package com.school.sgai.controllers;
 
 
-import com.school.sgai.dto.ImportReport;
+import com.school.sgai.entities.ImportJob;
+import com.school.sgai.enums.ImportType;
 import com.school.sgai.repositories.EvaluationRepository;
+import com.school.sgai.services.ImportJobService;
 import com.school.sgai.services.ImportService;
+import com.school.sgai.services.imports.CsvErrorSink;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
 @Controller
 @RequestMapping("/import")
 @RequiredArgsConstructor
 public class ImportController {
 
+    private final ImportJobService importJobService;
     private final ImportService importService;
     private final EvaluationRepository evalRepo;
 
@@ -26,12 +40,26 @@ public class ImportController {
         return "admin/import-users";
     }
 
+    // Le fichier est traité en arrière-plan : suivi sur la page du job
     @PostMapping("/users/students")
     @PreAuthorize("hasRole('ADMIN')")
-    public String uploadStudents(@RequestParam("file") MultipartFile file, @RequestParam("separator") String separator, Model model) {
-        ImportReport report = importService.importStudents(file, separator);
-        model.addAttribute("report", report);
-        return "admin/import-users";
+    public String uploadStudents(@RequestParam("file") MultipartFile file, @RequestParam("separator") String separator,
+                                 @RequestParam(defaultValue = "false") boolean activation,
+                                 @AuthenticationPrincipal UserDetails userDetails) {
+        ImportJob job = importJobService.submit(ImportType.STUDENTS, null, file, separator, activation, userDetails.getUsername());
+        return "redirect:/import/jobs/" + job.getId();
+    }
+
+    // Validation seule : aucune écriture, la liste des erreurs est renvoyée en CSV au fil de la lecture
+    @PostMapping("/users/students/validate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void validateStudents(@RequestParam("file") MultipartFile file, @RequestParam("separator") String separator,
+                                 HttpServletResponse response) throws IOException {
+        CsvErrorSink sink = errorReport(response, "students");
+        try (InputStream in = file.getInputStream()) {
+            importService.validateStudents(in, separator, sink);
+        }
+        sink.finish();
     }
 
 
@@ -47,11 +75,75 @@ public class ImportController {
     public String uploadGrades(@RequestParam("file") MultipartFile file,
                                @RequestParam Long evalId,
                                @RequestParam("separator") String separator,
-                               Model model) {
-        ImportReport report = importService.importGrades(file, evalId, separator);
+                               @AuthenticationPrincipal UserDetails userDetails) {
+        evalRepo.findById(evalId).orElseThrow();
+        ImportJob job = importJobService.submit(ImportType.GRADES, evalId, file, separator, false, userDetails.getUsername());
+        return "redirect:/import/jobs/" + job.getId();
+    }
 
-        model.addAttribute("report", report);
-        model.addAttribute("evaluation", evalRepo.findById(evalId).orElseThrow());
-        return "teacher/import-grades";
+    @PostMapping("/grades/validate")
+    @PreAuthorize("hasRole('TEACHER')")
+    public void validateGrades(@RequestParam("file") MultipartFile file,
+                               @RequestParam Long evalId,
+                               @RequestParam("separator") String separator,
+                               HttpServletResponse response) throws IOException {
+        evalRepo.findById(evalId).orElseThrow();
+        CsvErrorSink sink = errorReport(response, "grades_" + evalId);
+        try (InputStream in = file.getInputStream()) {
+            importService.validateGrades(in, evalId, separator, sink);
+        }
+        sink.finish();
+    }
+
+    private CsvErrorSink errorReport(HttpServletResponse response, String name) throws IOException {
+        response.setContentType("text/csv");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Content-Disposition", "attachment; filename=validation_" + name + ".csv");
+        return new CsvErrorSink(response.getWriter());
+    }
+
+    // ==========================================
+    // SUIVI DES IMPORTS EN ARRIÈRE-PLAN
+    // ==========================================
+
+    @GetMapping("/jobs/{jobId}")
+    public String showJob(@PathVariable Long jobId, @AuthenticationPrincipal UserDetails userDetails, Model model) {
+        ImportJob job = accessibleJob(jobId, userDetails);
+        model.addAttribute("job", job);
+        model.addAttribute("errors", importJobService.getErrors(jobId, 200));
+        if (job.getType() == ImportType.GRADES) {
+            model.addAttribute("evaluation", evalRepo.findById(job.getTargetId()).orElse(null));
+        }
+        return "common/import-job";
+    }
+
+    @GetMapping("/jobs/{jobId}/status")
+    @ResponseBody
+    public Map<String, Object> jobStatus(@PathVariable Long jobId, @AuthenticationPrincipal UserDetails userDetails) {
+        return importJobService.status(accessibleJob(jobId, userDetails));
+    }
+
+    @GetMapping("/jobs/{jobId}/activations")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void downloadActivationLinks(@PathVariable Long jobId, @AuthenticationPrincipal UserDetails userDetails,
+                                        HttpServletResponse response) throws IOException {
+        ImportJob job = accessibleJob(jobId, userDetails);
+        var links = importJobService.activationLinks(job);
+
+        response.setContentType("text/csv");
+        response.setHeader("Content-Disposition", "attachment; filename=activation_links_" + jobId + ".csv");
+        Files.copy(links, response.getOutputStream());
+        response.flushBuffer();
+        importJobService.discardActivationLinks(job);
+    }
+
+    // Un import n'est visible que par son auteur et les administrateurs
+    private ImportJob accessibleJob(Long jobId, UserDetails userDetails) {
+        ImportJob job = importJobService.getJob(jobId);
+        boolean admin = userDetails.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        if (!admin && !userDetails.getUsername().equals(job.getRequestedBy())) {
+            throw new AccessDeniedException("Import d'un autre utilisateur");
+        }
+        return job;
     }
 }
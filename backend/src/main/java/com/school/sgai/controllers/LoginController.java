@@ -3,6 +3,7 @@ package com.school.sgai.controllers;
 import com.school.sgai.entities.AppUser;
 import com.school.sgai.enums.Role;
 import com.school.sgai.repositories.AppUserRepository;
+import com.school.sgai.services.AccountActivationService;
 import com.school.sgai.services.DashboardService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -10,6 +11,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @Controller
 @RequiredArgsConstructor
@@ -17,12 +20,43 @@ public class LoginController {
 
     private final DashboardService dashboardService;
     private final AppUserRepository userRepo;
+    private final AccountActivationService activationService;
 
     @GetMapping("/login")
     public String login() {
         return "login";
     }
 
+    // Lien d'activation reçu après un import : l'utilisateur choisit son mot de passe
+    @GetMapping("/activate")
+    public String activationForm(@RequestParam(required = false) String token, Model model) {
+        try {
+            model.addAttribute("account", activationService.findPendingAccount(token));
+            model.addAttribute("token", token);
+        } catch (RuntimeException e) {
+            model.addAttribute("error", e.getMessage());
+        }
+        return "activate";
+    }
+
+    @PostMapping("/activate")
+    public String activate(@RequestParam String token, @RequestParam String password,
+                           @RequestParam String confirmation, Model model) {
+        try {
+            activationService.activate(token, password, confirmation);
+            return "redirect:/login?activated";
+        } catch (RuntimeException e) {
+            model.addAttribute("error", e.getMessage());
+            try {
+                model.addAttribute("account", activationService.findPendingAccount(token));
+                model.addAttribute("token", token);
+            } catch (RuntimeException ignored) {
+                // Jeton invalide : seul le message d'erreur est affiché
+            }
+            return "activate";
+        }
+    }
+
     @GetMapping("/")
     public String home(Model model, @AuthenticationPrincipal UserDetails userDetails) {
         AppUser user = userRepo.findByUsername(userDetails.getUsername()).orElseThrow();
@@ -5,7 +5,9 @@ import com.school.sgai.entities.Classroom;
 import com.school.sgai.repositories.ClassroomRepository;
 import com.school.sgai.repositories.SubjectRepository;
 import com.school.sgai.services.ScheduleService;
+import com.school.sgai.services.schedule.WeeklyOccupancy.FreeSlot;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.DayOfWeek;
 import java.time.LocalTime;
+import java.util.List;
 
 @Controller
 @RequestMapping("/admin/schedule")
@@ -54,6 +57,25 @@ public class ScheduleAdminController {
         return "redirect:/admin/schedule/manage/" + classId;
     }
 
+    // Premiers créneaux libres pour l'enseignant et la classe (d'une matière ou donnés), salle précisée ou quelconque
+    @GetMapping("/free-slots")
+    @ResponseBody
+    public ResponseEntity<List<FreeSlot>> freeSlots(@RequestParam(required = false) Long subjectId,
+                                                    @RequestParam(required = false) Long teacherId,
+                                                    @RequestParam(required = false) Long classroomId,
+                                                    @RequestParam(required = false) String room,
+                                                    @RequestParam(defaultValue = "120") int minutes,
+                                                    @RequestParam(defaultValue = "5") int limit) {
+        try {
+            List<FreeSlot> slots = subjectId != null
+                    ? scheduleService.findFreeSlots(subjectId, room, minutes, limit)
+                    : scheduleService.findFreeSlots(teacherId, classroomId, room, minutes, limit);
+            return ResponseEntity.ok(slots);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/delete/{id}")
     public String deleteSession(@PathVariable Long id, @RequestParam Long classId) {
         scheduleService.deleteSession(id);
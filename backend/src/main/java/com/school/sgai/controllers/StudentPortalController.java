@@ -7,7 +7,7 @@ import com.school.sgai.repositories.AppUserRepository;
 import com.school.sgai.services.AttendanceService;
 import com.school.sgai.services.ReportPdfService;
 import com.school.sgai.services.ScheduleService;
-import com.school.sgai.services.TranscriptService;
+import com.school.sgai.services.grading.TranscriptCache;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -26,7 +26,7 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class StudentPortalController {
 
-    private final TranscriptService transcriptService;
+    private final TranscriptCache transcriptCache;
     private final ReportPdfService pdfService;
     private final AppUserRepository userRepo;
     private final ScheduleService scheduleService;
@@ -36,7 +36,7 @@ public class StudentPortalController {
     public String viewTranscript(@AuthenticationPrincipal UserDetails userDetails, Model model) {
         Student student = (Student) userRepo.findByUsername(userDetails.getUsername()).orElseThrow();
 
-        TranscriptDTO dto = transcriptService.generateTranscript(student.getId());
+        TranscriptDTO dto = transcriptCache.get(student.getId());
         model.addAttribute("transcript", dto);
 
         return "student/transcript";
@@ -45,7 +45,7 @@ public class StudentPortalController {
     @GetMapping("/transcript/download")
     public void downloadPdf(@AuthenticationPrincipal UserDetails userDetails, HttpServletResponse response) throws IOException {
         Student student = (Student) userRepo.findByUsername(userDetails.getUsername()).orElseThrow();
-        TranscriptDTO dto = transcriptService.generateTranscript(student.getId());
+        TranscriptDTO dto = transcriptCache.get(student.getId());
 
         response.setContentType("application/pdf");
         response.setHeader("Content-Disposition", "attachment; filename=transcript.pdf");
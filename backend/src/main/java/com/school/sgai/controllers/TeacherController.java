@@ -4,7 +4,6 @@ package com.school.sgai.controllers;
 import com.school.sgai.dto.AttendanceWrapper;
 import com.school.sgai.dto.GradeInputWrapper;
 import com.school.sgai.entities.*;
-import com.school.sgai.enums.AbsenceStatus;
 import com.school.sgai.repositories.*;
 import com.school.sgai.services.AttendanceService;
 import com.school.sgai.services.GradingService;
@@ -35,7 +34,6 @@ public class TeacherController {
     private final EvaluationRepository evalRepo;
     private final GradeRepository gradeRepo;
     private final GradingService gradingService;
-    private final AttendanceRepository attendanceRepo;
     private final ReportPdfService pdfService;
     private final ScheduleService scheduleService;
     private final AttendanceService attendanceService;
@@ -64,6 +62,12 @@ public class TeacherController {
         return "redirect:/teacher/subject/" + subjectId;
     }
 
+    @PostMapping("/evaluation/delete/{evalId}")
+    public String deleteEval(@PathVariable Long evalId) {
+        Long subjectId = gradingService.deleteEvaluation(evalId);
+        return "redirect:/teacher/subject/" + subjectId;
+    }
+
     @GetMapping("/grade/{evalId}")
     public String gradeExam(@PathVariable Long evalId, Model model) {
         Evaluation eval = evalRepo.findById(evalId).orElseThrow();
@@ -146,26 +150,22 @@ public class TeacherController {
         return "teacher/attendance-sheet";
     }
 
+    @GetMapping("/attendance/{subjectId}/history")
+    public String viewAttendanceHistory(@PathVariable Long subjectId,
+                                        @RequestParam(required = false) LocalDate from,
+                                        @RequestParam(required = false) LocalDate to,
+                                        Model model) {
+        if (to == null) to = LocalDate.now();
+        if (from == null) from = to.minusDays(13);
+
+        model.addAttribute("subject", subjectRepo.findById(subjectId).orElseThrow());
+        model.addAttribute("grid", attendanceService.getAttendanceGrid(subjectId, from, to));
+        return "teacher/attendance-grid";
+    }
+
     @PostMapping("/attendance/save")
     public String saveAttendance(@ModelAttribute AttendanceWrapper wrapper) {
         attendanceService.saveAttendance(wrapper);
         return "redirect:/teacher/dashboard";
     }
-
-    public void saveAttendanceBulk(Long subjectId, LocalDate date, List<Long> absentStudentIds) {
-        Subject subject = subjectRepo.findById(subjectId).orElseThrow();
-        List<Student> students = subject.getClassroom().getStudents();
-
-        for (Student s : students) {
-            AbsenceStatus status = absentStudentIds.contains(s.getId()) ? AbsenceStatus.ABSENT : AbsenceStatus.PRESENT;
-
-            Attendance att = Attendance.builder()
-                    .date(date)
-                    .student(s)
-                    .subject(subject)
-                    .status(status)
-                    .build();
-            attendanceRepo.save(att);
-        }
-    }
 }
@@ -1,5 +1,7 @@
 package com.school.sgai.dto;
 
+import com.school.sgai.dto.attendance.AttendanceCounts;
+import com.school.sgai.entities.AbsenceAlert;
 import com.school.sgai.entities.Evaluation;
 import com.school.sgai.entities.Grade;
 import lombok.Builder;
@@ -14,6 +16,8 @@ public class DashboardStats {
         private long totalTeachers;
         private long totalClasses;
         private long totalSubjects;
+        private List<AttendanceCounts> weeklyAttendance; // 8 dernières semaines, établissement
+        private List<AbsenceAlert> absenceAlerts; // digests des matières sans enseignant
     }
 
     @Data @Builder
@@ -21,12 +25,18 @@ public class DashboardStats {
         private long subjectCount;
         private long totalStudents;
         private int upcomingExams;
+        private Double recentAbsenceRate;  // % sur les 4 dernières semaines, null sans saisie
+        private List<AbsenceAlert> absenceAlerts; // alertes reçues par digest sur la fenêtre
     }
 
     @Data @Builder
     public static class StudentStats {
         private double globalAverage;
+        private Integer rank;          // null si l'étudiant n'a pas de classe
+        private Integer classSize;
+        private Double percentile;     // % de la classe ayant une moyenne inférieure
         private List<Grade> recentGrades;
         private List<Evaluation> upcomingExams;
+        private Double attendanceRate;     // % de présence, null sans saisie
     }
 }
@@ -1,18 +1,50 @@
 package com.school.sgai.dto;
 
+import com.school.sgai.enums.RowOutcome;
 import lombok.Data;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 @Data
 public class ImportReport {
     private int successCount = 0;
     private int errorCount = 0;
-    private List<String> errorMessages = new ArrayList<>();
+    // Détail des succès d'un import de notes
+    private int createdCount = 0;
+    private int updatedCount = 0;
+    private int unchangedCount = 0;
+    // Fichier identique au dernier import : rien n'a été relu ni écrit
+    private boolean unchangedFile;
+    // Les lots sont écrits après la lecture : les erreurs sont gardées avec leur ligne et rendues dans l'ordre du fichier
+    private final List<RowError> errors = new ArrayList<>();
+    // Comptes créés avec un lien d'activation (jeton en clair, montré une seule fois)
+    private final List<Activation> activations = new ArrayList<>();
+
+    public record RowError(int row, String message) {}
+    public record Activation(String username, String token) {}
 
     public void addSuccess() { successCount++; }
+    public void addSuccess(RowOutcome outcome) {
+        addSuccess();
+        switch (outcome) {
+            case CREATED -> createdCount++;
+            case UPDATED -> updatedCount++;
+            case UNCHANGED -> unchangedCount++;
+        }
+    }
     public void addError(int row, String msg) {
         errorCount++;
-        errorMessages.add("Ligne " + row + ": " + msg);
+        errors.add(new RowError(row, msg));
+    }
+    public void addActivation(String username, String token) {
+        activations.add(new Activation(username, token));
+    }
+
+    public List<String> getErrorMessages() {
+        return errors.stream()
+                .sorted(Comparator.comparingInt(RowError::row))
+                .map(e -> "Ligne " + e.row() + ": " + e.message())
+                .toList();
     }
 }
@@ -0,0 +1,17 @@
+package com.school.sgai.dto;
+
+import com.school.sgai.enums.ValidationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Natural key (CNE) of a student with its id, without hydrating the entity
+ * (used to resolve the rows of a grade import).
+ */
+@Getter
+@AllArgsConstructor
+public class StudentKey {
+    private Long id;
+    private String studentIdNumber;
+    private ValidationStatus academicStatus;
+}
@@ -244,7 +244,39 @@ public class ScheduleOptimizationResponse {
         
         public OptimizationMetadata() {}
         
-        // Getters et Setters omis pour brièveté
+        
+        // Getters et Setters
+        public String getAlgorithm() {
+            return algorithm;
+        }
+        
+        public void setAlgorithm(String algorithm) {
+            this.algorithm = algorithm;
+        }
+        
+        public Integer getPopulationSize() {
+            return populationSize;
+        }
+        
+        public void setPopulationSize(Integer populationSize) {
+            this.populationSize = populationSize;
+        }
+        
+        public Integer getMaxGenerations() {
+            return maxGenerations;
+        }
+        
+        public void setMaxGenerations(Integer maxGenerations) {
+            this.maxGenerations = maxGenerations;
+        }
+        
+        public String getOptimizedAt() {
+            return optimizedAt;
+        }
+        
+        public void setOptimizedAt(String optimizedAt) {
+            this.optimizedAt = optimizedAt;
+        }
     }
     
     // Classes internes pour détails
@@ -254,7 +286,31 @@ public class ScheduleOptimizationResponse {
         private Integer duration;
         
         public CourseDetails() {}
-        // Getters/Setters omis
+        
+        // Getters et Setters
+        public Long getId() {
+            return id;
+        }
+        
+        public void setId(Long id) {
+            this.id = id;
+        }
+        
+        public String getSubject() {
+            return subject;
+        }
+        
+        public void setSubject(String subject) {
+            this.subject = subject;
+        }
+        
+        public Integer getDuration() {
+            return duration;
+        }
+        
+        public void setDuration(Integer duration) {
+            this.duration = duration;
+        }
     }
     
     public static class RoomDetails {
@@ -263,7 +319,31 @@ public class ScheduleOptimizationResponse {
         private Integer capacity;
         
         public RoomDetails() {}
-        // Getters/Setters omis
+        
+        // Getters et Setters
+        public Long getId() {
+            return id;
+        }
+        
+        public void setId(Long id) {
+            this.id = id;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+        
+        public Integer getCapacity() {
+            return capacity;
+        }
+        
+        public void setCapacity(Integer capacity) {
+            this.capacity = capacity;
+        }
     }
     
     public static class TimeslotDetails {
@@ -273,7 +353,39 @@ public class ScheduleOptimizationResponse {
         private String endTime;
         
         public TimeslotDetails() {}
-        // Getters/Setters omis
+        
+        // Getters et Setters
+        public Long getId() {
+            return id;
+        }
+        
+        public void setId(Long id) {
+            this.id = id;
+        }
+        
+        public String getDay() {
+            return day;
+        }
+        
+        public void setDay(String day) {
+            this.day = day;
+        }
+        
+        public String getStartTime() {
+            return startTime;
+        }
+        
+        public void setStartTime(String startTime) {
+            this.startTime = startTime;
+        }
+        
+        public String getEndTime() {
+            return endTime;
+        }
+        
+        public void setEndTime(String endTime) {
+            this.endTime = endTime;
+        }
     }
     
     public static class TeacherDetails {
@@ -281,6 +393,22 @@ public class ScheduleOptimizationResponse {
         private String name;
         
         public TeacherDetails() {}
-        // Getters/Setters omis
+        
+        // Getters et Setters
+        public Long getId() {
+            return id;
+        }
+        
+        public void setId(Long id) {
+            this.id = id;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
     }
 }
@@ -0,0 +1,25 @@
+package com.school.sgai.dto.attendance;
+
+import com.school.sgai.enums.AbsenceStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * One student of a subject's roster joined with an attendance record (no entity
+ * hydration). Date and status are null when nothing was recorded for the student.
+ */
+@Getter
+@AllArgsConstructor
+public class AttendanceCell {
+    private Long studentId;
+    private String lastName;
+    private String firstName;
+    private LocalDate date;
+    private AbsenceStatus status;
+
+    public String getStudentName() {
+        return lastName + " " + firstName;
+    }
+}
@@ -0,0 +1,48 @@
+package com.school.sgai.dto.attendance;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Sums of attendance rollup counters, over a whole range or for one period
+ * (periodStart is null for a range total).
+ */
+@Getter
+public class AttendanceCounts {
+    private final LocalDate periodStart;
+    private final long present;
+    private final long absent;
+    private final long late;
+    private final long excused;
+
+    public AttendanceCounts(Long present, Long absent, Long late, Long excused) {
+        this(null, present, absent, late, excused);
+    }
+
+    public AttendanceCounts(LocalDate periodStart, Long present, Long absent, Long late, Long excused) {
+        this.periodStart = periodStart;
+        this.present = present != null ? present : 0;
+        this.absent = absent != null ? absent : 0;
+        this.late = late != null ? late : 0;
+        this.excused = excused != null ? excused : 0;
+    }
+
+    public long getTotal() {
+        return present + absent + late + excused;
+    }
+
+    // Pourcentages arrondis à 0.1 ; null sans aucune séance saisie
+    public Double getPresenceRate() {
+        return rate(present);
+    }
+
+    public Double getAbsenceRate() {
+        return rate(absent);
+    }
+
+    private Double rate(long count) {
+        long total = getTotal();
+        return total == 0 ? null : Math.round(count * 1000.0 / total) / 10.0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.school.sgai.dto.attendance;
+
+import com.school.sgai.enums.AbsenceStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Attendance of a subject over several days: one row per student of the roster,
+ * one column per day with at least one record. A null status means not recorded.
+ */
+@Getter
+@AllArgsConstructor
+public class AttendanceGrid {
+    private Long subjectId;
+    private LocalDate from;
+    private LocalDate to;
+    private List<LocalDate> dates;
+    private List<Row> rows;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Row {
+        private Long studentId;
+        private String studentName;
+        private List<AbsenceStatus> statuses;
+        private int longestAbsenceStreak;
+
+        public long getAbsentCount() {
+            return statuses.stream().filter(s -> s == AbsenceStatus.ABSENT).count();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.school.sgai.dto.attendance;
+
+import com.school.sgai.enums.AbsenceStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Lightweight projection of an Attendance row (no entity hydration), used to
+ * build the attendance bitmaps of a classroom.
+ */
+@Getter
+@AllArgsConstructor
+public class AttendanceMark {
+    private Long studentId;
+    private Long subjectId;
+    private LocalDate date;
+    private AbsenceStatus status;
+}
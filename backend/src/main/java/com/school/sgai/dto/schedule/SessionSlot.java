@@ -0,0 +1,33 @@
+package com.school.sgai.dto.schedule;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * Séance et ressources qu'elle occupe (enseignant, salle, classe), pour l'index des conflits.
+ * sessionId est null pour une séance pas encore enregistrée.
+ */
+@Getter
+@AllArgsConstructor
+public class SessionSlot {
+    private Long sessionId;
+    private Long teacherId;
+    private Long classroomId;
+    private String roomNumber;
+    private DayOfWeek dayOfWeek;
+    private LocalTime startTime;
+    private LocalTime endTime;
+
+    public boolean overlaps(SessionSlot other) {
+        return dayOfWeek == other.dayOfWeek
+                && startTime.isBefore(other.endTime) && other.startTime.isBefore(endTime);
+    }
+
+    @Override
+    public String toString() {
+        return dayOfWeek + " " + startTime + "-" + endTime + (roomNumber != null ? " (" + roomNumber + ")" : "");
+    }
+}
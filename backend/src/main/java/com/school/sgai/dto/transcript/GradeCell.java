@@ -0,0 +1,16 @@
+package com.school.sgai.dto.transcript;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Lightweight projection of a Grade (no entity hydration) used to fill
+ * the classroom grade matrix.
+ */
+@Getter
+@AllArgsConstructor
+public class GradeCell {
+    private Long studentId;
+    private Long evaluationId;
+    private Double score;
+}
@@ -0,0 +1,27 @@
+package com.school.sgai.dto.transcript;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One aggregated line of a transcript: the weighted sum of a student's scores
+ * in a subject and the total of the evaluation coefficients of that subject.
+ * Missing grades count as 0, exactly like the historic per-evaluation loop.
+ */
+@Getter
+@AllArgsConstructor
+public class SubjectAverageRow {
+    private Long subjectId;
+    private String subjectName;
+    private String teacherName;
+    private int coefficient;
+    private Double weightedSum;   // SUM(score * evalCoeff), null when the subject has no evaluation
+    private Long coefficientSum;  // SUM(evalCoeff), null when the subject has no evaluation
+    private Double eliminatoryMinimum; // null when the subject has none
+
+    public double getAverage() {
+        if (coefficientSum == null || coefficientSum == 0) return 0.0;
+        double avg = (weightedSum != null ? weightedSum : 0.0) / coefficientSum;
+        return Math.round(avg * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,41 @@
+package com.school.sgai.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A student reached the unexcused absence threshold of a subject over a sliding window.
+ * Alerts without digest are the pending queue, see AbsenceAlertService.
+ */
+@Entity
+@Getter
+@Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(indexes = { @Index(name = "ix_absence_alert_digest", columnList = "digest_id") })
+public class AbsenceAlert {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "student_id")
+    private Student student;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "subject_id")
+    private Subject subject;
+
+    private LocalDate windowStart;
+
+    private LocalDate windowEnd;
+
+    private int absenceCount;
+
+    private LocalDateTime createdAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "digest_id")
+    private AlertDigest digest;
+}
@@ -0,0 +1,27 @@
+package com.school.sgai.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Batch of absence alerts delivered together to one recipient (the subject's teacher,
+ * or the administration when the subject has no teacher).
+ */
+@Entity
+@Getter
+@Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class AlertDigest {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recipient_id")
+    private AppUser recipient; // null = administration
+
+    private LocalDateTime createdAt;
+
+    private int alertCount;
+}
@@ -8,6 +8,8 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 
+import java.time.LocalDateTime;
+
 /**
  * Base Entity for all users.
  * Strategy JOINED: Creates a separate table for subclasses linked by ID.
@@ -37,4 +39,9 @@ public abstract class AppUser {
 
     @Enumerated(EnumType.STRING)
     private Role role;
+
+    // Compte créé sans mot de passe : empreinte SHA-256 du jeton d'activation à usage unique
+    @Column(unique = true)
+    private String activationToken;
+    private LocalDateTime activationExpiresAt;
 }
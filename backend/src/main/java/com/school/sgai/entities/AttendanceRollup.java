@@ -0,0 +1,42 @@
+package com.school.sgai.entities;
+
+import com.school.sgai.enums.RollupPeriod;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Materialized attendance counters of a student in one subject over a week or a month.
+ * Maintained incrementally on every attendance write, see AttendanceAnalyticsService.
+ */
+@Entity
+@Getter
+@Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(uniqueConstraints = { @UniqueConstraint(columnNames = { "student_id", "subject_id", "period", "period_start" }) },
+        indexes = { @Index(name = "ix_attendance_rollup_period", columnList = "period, period_start") })
+public class AttendanceRollup {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "student_id")
+    private Student student;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "subject_id")
+    private Subject subject;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private RollupPeriod period;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart; // lundi de la semaine ou 1er du mois
+
+    private long presentCount;
+    private long absentCount;
+    private long lateCount;
+    private long excusedCount;
+}
@@ -0,0 +1,35 @@
+package com.school.sgai.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Règles de délibération d'une filière.
+ * Without a policy, a program keeps the historic rule: ADMITTED when the global average >= 10.
+ */
+@Entity
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class DeliberationPolicy {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @OneToOne
+    @JoinColumn(name = "program_id", unique = true, nullable = false)
+    private Program program;
+
+    @Builder.Default
+    private double passThreshold = 10.0; // Moyenne générale d'admission
+
+    private Double conditionalThreshold; // Admission conditionnelle (rachat) à partir de cette moyenne, null = désactivée
+
+    @Builder.Default
+    private boolean compensation = true; // Les matières se compensent dans la moyenne générale
+
+    @Builder.Default
+    private double subjectPassMark = 10.0; // En dessous : la matière est une dette
+
+    @Builder.Default
+    private int maxDebts = 0; // Nombre de dettes tolérées pour une admission conditionnelle
+}
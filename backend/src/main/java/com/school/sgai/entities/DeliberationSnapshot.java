@@ -0,0 +1,42 @@
+package com.school.sgai.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Frozen copy of a classroom deliberation (PV): the averages, ranks and decisions
+ * the jury validated. Never updated: a new deliberation creates a new snapshot,
+ * and re-opening a past PV reads it instead of recomputing the board.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class DeliberationSnapshot {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "classroom_id")
+    private Classroom classroom;
+
+    private String className;
+    private String academicYear;
+    private LocalDateTime createdAt;
+    private String validatedBy;
+
+    @ElementCollection
+    @CollectionTable(name = "deliberation_snapshot_line", joinColumns = @JoinColumn(name = "snapshot_id"))
+    @OrderColumn(name = "line_index")
+    private List<DeliberationSnapshotLine> lines;
+
+    @ElementCollection
+    @CollectionTable(name = "deliberation_snapshot_subject", joinColumns = @JoinColumn(name = "snapshot_id"))
+    @OrderColumn(name = "line_index")
+    private List<DeliberationSnapshotSubject> subjectAverages;
+}
@@ -0,0 +1,22 @@
+package com.school.sgai.entities;
+
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+/**
+ * One student of a DeliberationSnapshot. Names are copied so that the PV
+ * stays readable even if the student is later renamed or deleted.
+ */
+@Embeddable
+@Getter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class DeliberationSnapshotLine {
+
+    private Long studentId;
+    private String studentIdNumber;
+    private String lastName;
+    private String firstName;
+    private double globalAverage;
+    private String studentRank; // "1st", "5th"...
+    private String decision;
+}
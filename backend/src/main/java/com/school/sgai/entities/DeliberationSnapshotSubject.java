@@ -0,0 +1,18 @@
+package com.school.sgai.entities;
+
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+/**
+ * Subject average of one student at the time of a DeliberationSnapshot.
+ */
+@Embeddable
+@Getter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class DeliberationSnapshotSubject {
+
+    private Long studentId;
+    private String subjectName;
+    private int coefficient;
+    private double average;
+}
@@ -24,6 +24,10 @@ public class Evaluation {
 
     private LocalDate date;
 
+    // SHA-256 du dernier fichier de notes importé : un fichier identique n'est pas retraité
+    @Column(length = 64)
+    private String lastImportHash;
+
     // An Evaluation belongs to one Subject (e.g., Java)
     @ManyToOne
     @JoinColumn(name = "subject_id")
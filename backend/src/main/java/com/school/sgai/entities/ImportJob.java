@@ -0,0 +1,73 @@
+package com.school.sgai.entities;
+
+import com.school.sgai.enums.ImportType;
+import com.school.sgai.enums.JobStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A CSV import processed in the background. The upload is spooled to disk and
+ * written in committed chunks; lastCommittedRow is updated in the same transaction
+ * as each chunk, so an interrupted job resumes right after it.
+ */
+@Entity
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class ImportJob {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private ImportType type;
+
+    private Long targetId; // Évaluation pour un import de notes
+
+    private String separator;
+    private boolean withActivation;
+
+    @Enumerated(EnumType.STRING)
+    private JobStatus status;
+
+    private String requestedBy;
+    private String originalFileName;
+    private String spoolPath;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    // Numéro de la dernière ligne du fichier dont le résultat est committé (en-tête = ligne 1)
+    @Builder.Default
+    private int lastCommittedRow = 1;
+    @Builder.Default
+    private int successCount = 0;
+    @Builder.Default
+    private int errorCount = 0;
+
+    // Import de notes : détail des lignes valides
+    @Builder.Default
+    private int createdCount = 0;
+    @Builder.Default
+    private int updatedCount = 0;
+    @Builder.Default
+    private int unchangedCount = 0;
+    // Fichier identique au dernier import de l'évaluation : ignoré
+    private boolean unchangedFile;
+
+    // Taille des messages d'erreur du job et de ses lignes (ImportJobError)
+    public static final int ERROR_LENGTH = 1000;
+
+    @Column(length = ERROR_LENGTH)
+    private String errorMessage;
+
+    public boolean isFinished() {
+        return status == JobStatus.DONE || status == JobStatus.FAILED;
+    }
+
+    public int getRowsDone() {
+        return Math.max(0, lastCommittedRow - 1);
+    }
+}
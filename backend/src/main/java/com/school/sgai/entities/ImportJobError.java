@@ -0,0 +1,27 @@
+package com.school.sgai.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One rejected row of an import job, committed with the chunk it belongs to.
+ */
+@Entity
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+@Table(indexes = @Index(name = "idx_import_job_error_job", columnList = "job_id, csv_row"))
+public class ImportJobError {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "job_id")
+    private ImportJob job;
+
+    @Column(name = "csv_row")
+    private int rowNumber;
+
+    @Column(length = ImportJob.ERROR_LENGTH)
+    private String message;
+}
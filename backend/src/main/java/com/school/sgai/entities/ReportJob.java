@@ -0,0 +1,48 @@
+package com.school.sgai.entities;
+
+import com.school.sgai.enums.JobStatus;
+import com.school.sgai.enums.ReportType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A report rendered in the background. The artifact is stored on disk,
+ * the row keeps its status and location.
+ */
+@Entity
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class ReportJob {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private ReportType type;
+
+    private Long targetId; // Classe, filière ou snapshot selon le type
+
+    @Enumerated(EnumType.STRING)
+    private JobStatus status;
+
+    private String requestedBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    private String fileName;
+    private String contentType;
+    private String artifactPath;
+    private Long sizeBytes;
+
+    public static final int ERROR_LENGTH = 1000;
+
+    @Column(length = ERROR_LENGTH)
+    private String errorMessage;
+
+    public boolean isFinished() {
+        return status == JobStatus.DONE || status == JobStatus.FAILED;
+    }
+}
@@ -13,6 +13,8 @@ import java.util.List;
 @Setter
 @NoArgsConstructor @SuperBuilder
 @EqualsAndHashCode(callSuper = true)
+// CNE = clé naturelle de l'étudiant (import de notes) : unique et indexé
+@Table(indexes = @Index(name = "ux_student_id_number", columnList = "student_id_number", unique = true))
 public class Student extends AppUser {
 
     private String studentIdNumber; // CNE / Massar Code
@@ -17,6 +17,8 @@ public class Subject {
 
     private int coefficient; // e.g., 2 or 4 (Important for GPA)
 
+    private Double eliminatoryMinimum; // Note éliminatoire : en dessous, l'étudiant est ajourné (null = aucune)
+
     // A Subject belongs to ONE Classroom (Specific to L3-INFO-2024)
     @ManyToOne
     @JoinColumn(name = "classroom_id")
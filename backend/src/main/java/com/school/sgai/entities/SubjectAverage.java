@@ -0,0 +1,32 @@
+package com.school.sgai.entities;
+
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Materialized rollup of a student's grades in one subject.
+ * average = weightedSum / coefficientTotal (missing grades count as 0).
+ * Maintained incrementally on every grade / evaluation write, see SubjectAverageService.
+ */
+@Entity
+@Getter
+@Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(uniqueConstraints = { @UniqueConstraint(columnNames = { "student_id", "subject_id" }) })
+public class SubjectAverage {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "student_id")
+    private Student student;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "subject_id")
+    private Subject subject;
+
+    private double weightedSum; // SUM(score * evaluation coefficient)
+
+    private long coefficientTotal; // SUM(evaluation coefficient) of the subject
+}
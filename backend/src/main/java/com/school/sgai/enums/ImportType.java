@@ -0,0 +1,6 @@
+package com.school.sgai.enums;
+
+public enum ImportType {
+    STUDENTS, // Comptes étudiants (admin)
+    GRADES    // Notes d'une évaluation (prof)
+}
@@ -0,0 +1,8 @@
+package com.school.sgai.enums;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
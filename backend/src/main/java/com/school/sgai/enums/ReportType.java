@@ -0,0 +1,8 @@
+package com.school.sgai.enums;
+
+public enum ReportType {
+    CLASS_PV,            // PV de délibération calculé sur le tableau actuel
+    SNAPSHOT_PV,         // PV d'une délibération validée (snapshot)
+    CLASS_TRANSCRIPTS,   // ZIP des bulletins d'une classe
+    PROGRAM_TRANSCRIPTS  // ZIP des bulletins d'une filière
+}
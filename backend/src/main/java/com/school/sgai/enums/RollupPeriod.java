@@ -0,0 +1,6 @@
+package com.school.sgai.enums;
+
+public enum RollupPeriod {
+    WEEK,  // semaine ISO, commence le lundi
+    MONTH
+}
@@ -0,0 +1,7 @@
+package com.school.sgai.enums;
+
+public enum RowOutcome {
+    CREATED,   // Nouvelle ligne écrite
+    UPDATED,   // Valeur existante modifiée
+    UNCHANGED  // Valeur identique à celle en base : rien n'est écrit
+}
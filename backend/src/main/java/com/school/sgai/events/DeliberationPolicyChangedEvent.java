@@ -0,0 +1,14 @@
+package com.school.sgai.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when the deliberation rules of a program change: decisions must be
+ * recomputed, averages and ranks stay valid.
+ */
+@Getter
+@AllArgsConstructor
+public class DeliberationPolicyChangedEvent {
+    private final Long programId;
+}
@@ -0,0 +1,34 @@
+package com.school.sgai.events;
+
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Published whenever something that feeds a transcript changes: a grade, an
+ * evaluation, a subject of the classroom, or a student's jury status.
+ * An empty studentIds set means "the whole classroom".
+ */
+@Getter
+public class ResultsChangedEvent {
+
+    private final Long classroomId;
+    private final Set<Long> studentIds;
+
+    private ResultsChangedEvent(Long classroomId, Set<Long> studentIds) {
+        this.classroomId = classroomId;
+        this.studentIds = studentIds;
+    }
+
+    public static ResultsChangedEvent forClassroom(Long classroomId) {
+        return new ResultsChangedEvent(classroomId, Set.of());
+    }
+
+    public static ResultsChangedEvent forStudents(Long classroomId, Set<Long> studentIds) {
+        return new ResultsChangedEvent(classroomId, Set.copyOf(studentIds));
+    }
+
+    public boolean isWholeClassroom() {
+        return studentIds.isEmpty();
+    }
+}
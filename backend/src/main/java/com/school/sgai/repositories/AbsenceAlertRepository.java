@@ -0,0 +1,35 @@
+package com.school.sgai.repositories;
+
+import com.school.sgai.entities.AbsenceAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface AbsenceAlertRepository extends JpaRepository<AbsenceAlert, Long> {
+
+    // File des alertes pas encore envoyées, avec l'enseignant destinataire
+    @Query("SELECT a FROM AbsenceAlert a JOIN FETCH a.subject s LEFT JOIN FETCH s.teacher " +
+            "WHERE a.digest IS NULL ORDER BY a.id")
+    List<AbsenceAlert> findPending();
+
+    // Alerte déjà émise pour une fenêtre qui chevauche [start, end] (correction d'un appel)
+    @Query("SELECT COUNT(a) > 0 FROM AbsenceAlert a WHERE a.student.id = :studentId AND a.subject.id = :subjectId " +
+            "AND a.windowStart <= :end AND a.windowEnd >= :start")
+    boolean existsOverlapping(@Param("studentId") Long studentId, @Param("subjectId") Long subjectId,
+                              @Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    // Alertes déjà envoyées à un enseignant (tableau de bord)
+    @Query("SELECT a FROM AbsenceAlert a JOIN FETCH a.student JOIN FETCH a.subject s " +
+            "WHERE s.teacher.id = :teacherId AND a.digest IS NOT NULL AND a.createdAt >= :since " +
+            "ORDER BY a.createdAt DESC")
+    List<AbsenceAlert> findDeliveredToTeacher(@Param("teacherId") Long teacherId, @Param("since") LocalDateTime since);
+
+    // Alertes des matières sans enseignant, envoyées à l'administration (tableau de bord admin)
+    @Query("SELECT a FROM AbsenceAlert a JOIN FETCH a.student JOIN FETCH a.subject JOIN a.digest d " +
+            "WHERE d.recipient IS NULL AND a.createdAt >= :since ORDER BY a.createdAt DESC")
+    List<AbsenceAlert> findDeliveredToAdministration(@Param("since") LocalDateTime since);
+}
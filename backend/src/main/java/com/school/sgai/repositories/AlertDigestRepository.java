@@ -0,0 +1,7 @@
+package com.school.sgai.repositories;
+
+import com.school.sgai.entities.AlertDigest;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AlertDigestRepository extends JpaRepository<AlertDigest, Long> {
+}
@@ -1,17 +1,45 @@
 package com.school.sgai.repositories;
 
+import com.school.sgai.dto.StudentKey;
 import com.school.sgai.entities.AppUser;
 import com.school.sgai.entities.Student;
+import com.school.sgai.enums.ValidationStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface AppUserRepository extends JpaRepository<AppUser, Long> {
     Optional<AppUser> findByUsername(String username);
 
+    Optional<AppUser> findByActivationToken(String activationToken);
+
+    @Query("SELECT s FROM Student s WHERE s.studentIdNumber = :studentIdNumber")
+    Optional<Student> findByStudentIdNumber(@Param("studentIdNumber") String studentIdNumber);
+
+    // CNE -> étudiant pour toute une classe, sans hydrater les entités (import de notes)
+    @Query("SELECT new com.school.sgai.dto.StudentKey(s.id, s.studentIdNumber, s.academicStatus) " +
+            "FROM Student s WHERE s.classroom.id = :classroomId AND s.studentIdNumber IS NOT NULL")
+    List<StudentKey> findKeysByClassroomId(@Param("classroomId") Long classroomId);
+
+    @Query("SELECT s.id FROM Student s WHERE s.classroom.id = :classroomId")
+    List<Long> findStudentIdsByClassroomId(@Param("classroomId") Long classroomId);
+
+    // Ids des étudiants inscrits dans la classe d'une matière (écriture de la feuille d'appel)
+    @Query("SELECT s.id FROM Subject sub JOIN sub.classroom.students s WHERE sub.id = :subjectId")
+    List<Long> findStudentIdsBySubjectId(@Param("subjectId") Long subjectId);
+
     @Query("SELECT s FROM Student s WHERE s.classroom.id = :classroomId")
     List<Student> findStudentsByClassroomId(@Param("classroomId") Long classroomId);
+
+    // Validation du jury en un seul UPDATE pour tous les étudiants ayant la même décision
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Student s SET s.academicStatus = :status, s.juryDecision = :decision WHERE s.id IN :ids")
+    int updateJuryDecision(@Param("ids") Collection<Long> ids,
+                           @Param("status") ValidationStatus status,
+                           @Param("decision") String decision);
 }
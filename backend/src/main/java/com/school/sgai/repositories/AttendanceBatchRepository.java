@@ -0,0 +1,98 @@
+package com.school.sgai.repositories;
+
+import com.school.sgai.enums.AbsenceStatus;
+import com.school.sgai.enums.RollupPeriod;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Écriture de la feuille d'appel en lot (JDBC batch) : un MERGE par étudiant,
+ * clé (student_id, subject_id, date) = contrainte unique d'Attendance, envoyés ensemble.
+ * Les compteurs hebdomadaires et mensuels (attendance_rollup) sont incrémentés de la même façon.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AttendanceBatchRepository {
+
+    // MERGE standard SQL : met à jour le statut existant ou insère la présence
+    private static final String MERGE_ATTENDANCE =
+            "MERGE INTO attendance a"
+            + " USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS DATE), CAST(? AS VARCHAR(16))))"
+            + " v (student_id, subject_id, att_date, status)"
+            + " ON a.student_id = v.student_id AND a.subject_id = v.subject_id AND a.date = v.att_date"
+            + " WHEN MATCHED THEN UPDATE SET status = v.status"
+            + " WHEN NOT MATCHED THEN INSERT (student_id, subject_id, date, session_hour, status)"
+            + " VALUES (v.student_id, v.subject_id, v.att_date, 0, v.status)";
+
+    // Incrément des compteurs d'une période (création de la ligne au premier passage)
+    private static final String MERGE_ROLLUP =
+            "MERGE INTO attendance_rollup r"
+            + " USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS VARCHAR(8)), CAST(? AS DATE),"
+            + " CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT)))"
+            + " v (student_id, subject_id, period, period_start, present, absent, late, excused)"
+            + " ON r.student_id = v.student_id AND r.subject_id = v.subject_id"
+            + " AND r.period = v.period AND r.period_start = v.period_start"
+            + " WHEN MATCHED THEN UPDATE SET present_count = r.present_count + v.present,"
+            + " absent_count = r.absent_count + v.absent, late_count = r.late_count + v.late,"
+            + " excused_count = r.excused_count + v.excused"
+            + " WHEN NOT MATCHED THEN INSERT (student_id, subject_id, period, period_start,"
+            + " present_count, absent_count, late_count, excused_count)"
+            + " VALUES (v.student_id, v.subject_id, v.period, v.period_start, v.present, v.absent, v.late, v.excused)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record AttendanceRow(Long studentId, AbsenceStatus status) {}
+
+    public record RollupDelta(Long studentId, RollupPeriod period, LocalDate periodStart,
+                              long present, long absent, long late, long excused) {}
+
+    // Statuts déjà saisis pour la séance, verrouillés jusqu'à la fin de la transaction :
+    // deux saisies simultanées de la même séance calculent leurs deltas l'une après l'autre
+    public Map<Long, AbsenceStatus> findStatusesForUpdate(Long subjectId, LocalDate date) {
+        Map<Long, AbsenceStatus> statuses = new HashMap<>();
+        jdbcTemplate.query("SELECT student_id, status FROM attendance WHERE subject_id = ? AND date = ? FOR UPDATE",
+                rs -> {
+                    String status = rs.getString(2);
+                    statuses.put(rs.getLong(1), status != null ? AbsenceStatus.valueOf(status) : null);
+                }, subjectId, Date.valueOf(date));
+        return statuses;
+    }
+
+    public void upsertAll(Long subjectId, LocalDate date, List<AttendanceRow> rows) {
+        if (rows.isEmpty()) return;
+        // Ordre fixe des lignes : deux appels simultanés verrouillent les lignes dans le même ordre
+        List<AttendanceRow> sorted = rows.stream().sorted(Comparator.comparing(AttendanceRow::studentId)).toList();
+        jdbcTemplate.batchUpdate(MERGE_ATTENDANCE, sorted, sorted.size(), (ps, row) -> {
+            ps.setLong(1, row.studentId());
+            ps.setLong(2, subjectId);
+            ps.setDate(3, Date.valueOf(date));
+            ps.setString(4, row.status().name());
+        });
+    }
+
+    public void addToRollups(Long subjectId, List<RollupDelta> deltas) {
+        if (deltas.isEmpty()) return;
+        List<RollupDelta> sorted = deltas.stream()
+                .sorted(Comparator.comparing(RollupDelta::studentId)
+                        .thenComparing(RollupDelta::period).thenComparing(RollupDelta::periodStart))
+                .toList();
+        jdbcTemplate.batchUpdate(MERGE_ROLLUP, sorted, sorted.size(), (ps, delta) -> {
+            ps.setLong(1, delta.studentId());
+            ps.setLong(2, subjectId);
+            ps.setString(3, delta.period().name());
+            ps.setDate(4, Date.valueOf(delta.periodStart()));
+            ps.setLong(5, delta.present());
+            ps.setLong(6, delta.absent());
+            ps.setLong(7, delta.late());
+            ps.setLong(8, delta.excused());
+        });
+    }
+}
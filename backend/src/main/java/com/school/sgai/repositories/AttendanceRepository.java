@@ -1,12 +1,15 @@
 package com.school.sgai.repositories;
 
 
+import com.school.sgai.dto.attendance.AttendanceCell;
+import com.school.sgai.dto.attendance.AttendanceMark;
 import com.school.sgai.entities.Attendance;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,14 +19,39 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     List<Attendance> findBySubjectIdAndDate(Long subjectId, java.time.LocalDate date);
     List<Attendance> findByStudentIdOrderByDateDesc(Long studentId);
 
-    // --- ADDED FOR AI SERVICES ---
+    // Liste de la classe jointe aux présences du jour, en une requête et sans hydrater les étudiants
+    @Query("SELECT new com.school.sgai.dto.attendance.AttendanceCell(s.id, s.lastName, s.firstName, a.date, a.status) " +
+            "FROM Subject sub JOIN sub.classroom.students s " +
+            "LEFT JOIN Attendance a ON a.student = s AND a.subject = sub AND a.date = :date " +
+            "WHERE sub.id = :subjectId ORDER BY s.lastName, s.firstName, s.id")
+    List<AttendanceCell> findSheet(@Param("subjectId") Long subjectId, @Param("date") LocalDate date);
 
-    // Count total sessions recorded for this student
-    @Query("SELECT COUNT(a) FROM Attendance a WHERE a.student.id = :studentId")
-    Long countTotalSessionsByStudent(@Param("studentId") Long studentId);
+    // Même jointure sur une période (vue multi-jours) : une ligne par étudiant et par jour saisi
+    @Query("SELECT new com.school.sgai.dto.attendance.AttendanceCell(s.id, s.lastName, s.firstName, a.date, a.status) " +
+            "FROM Subject sub JOIN sub.classroom.students s " +
+            "LEFT JOIN Attendance a ON a.student = s AND a.subject = sub AND a.date BETWEEN :from AND :to " +
+            "WHERE sub.id = :subjectId ORDER BY s.lastName, s.firstName, s.id, a.date")
+    List<AttendanceCell> findSheetBetween(@Param("subjectId") Long subjectId,
+                                          @Param("from") LocalDate from, @Param("to") LocalDate to);
 
-    // Count sessions where status is explicitly 'PRESENT'
-    // NOTE: This assumes your AbsenceStatus enum has a value named PRESENT
-    @Query("SELECT COUNT(a) FROM Attendance a WHERE a.student.id = :studentId AND a.status = 'PRESENT'")
-    Long countPresentSessionsByStudent(@Param("studentId") Long studentId);
+    @Query("SELECT new com.school.sgai.dto.attendance.AttendanceMark(a.student.id, a.subject.id, a.date, a.status) " +
+            "FROM Attendance a WHERE a.subject.classroom.id = :classroomId")
+    List<AttendanceMark> findMarksByClassroomId(@Param("classroomId") Long classroomId);
+
+    // Absences non excusées récentes (fenêtres glissantes des alertes) : accès par l'index (student_id, subject_id, date)
+    @Query("SELECT new com.school.sgai.dto.attendance.AttendanceMark(a.student.id, a.subject.id, a.date, a.status) " +
+            "FROM Attendance a WHERE a.student.id IN :studentIds AND a.date >= :from " +
+            "AND a.status = com.school.sgai.enums.AbsenceStatus.ABSENT")
+    List<AttendanceMark> findAbsencesSince(@Param("studentIds") Collection<Long> studentIds, @Param("from") LocalDate from);
+
+    @Query("SELECT a.date FROM Attendance a WHERE a.student.id = :studentId AND a.subject.id = :subjectId " +
+            "AND a.date >= :from AND a.status = com.school.sgai.enums.AbsenceStatus.ABSENT")
+    List<LocalDate> findAbsenceDates(@Param("studentId") Long studentId, @Param("subjectId") Long subjectId,
+                                     @Param("from") LocalDate from);
+
+    // Toutes les présences d'une classe sur une période, sans hydrater les entités (bitmaps de présence)
+    @Query("SELECT new com.school.sgai.dto.attendance.AttendanceMark(a.student.id, a.subject.id, a.date, a.status) " +
+            "FROM Attendance a WHERE a.subject.classroom.id = :classroomId AND a.date BETWEEN :from AND :to")
+    List<AttendanceMark> findMarksByClassroomBetween(@Param("classroomId") Long classroomId,
+                                                     @Param("from") LocalDate from, @Param("to") LocalDate to);
 }
@@ -0,0 +1,48 @@
+package com.school.sgai.repositories;
+
+import com.school.sgai.dto.attendance.AttendanceCounts;
+import com.school.sgai.entities.AttendanceRollup;
+import com.school.sgai.enums.RollupPeriod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AttendanceRollupRepository extends JpaRepository<AttendanceRollup, Long> {
+
+    // Totaux d'un étudiant, toutes matières, sur les périodes commençant dans [from, to]
+    @Query("SELECT new com.school.sgai.dto.attendance.AttendanceCounts(" +
+            "SUM(r.presentCount), SUM(r.absentCount), SUM(r.lateCount), SUM(r.excusedCount)) " +
+            "FROM AttendanceRollup r WHERE r.student.id = :studentId AND r.period = :period " +
+            "AND r.periodStart BETWEEN :from AND :to")
+    AttendanceCounts sumByStudent(@Param("studentId") Long studentId, @Param("period") RollupPeriod period,
+                                  @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Totaux des matières d'un enseignant
+    @Query("SELECT new com.school.sgai.dto.attendance.AttendanceCounts(" +
+            "SUM(r.presentCount), SUM(r.absentCount), SUM(r.lateCount), SUM(r.excusedCount)) " +
+            "FROM AttendanceRollup r WHERE r.subject.teacher.id = :teacherId AND r.period = :period " +
+            "AND r.periodStart BETWEEN :from AND :to")
+    AttendanceCounts sumByTeacher(@Param("teacherId") Long teacherId, @Param("period") RollupPeriod period,
+                                  @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Série de tout l'établissement (tableau de bord admin)
+    @Query("SELECT new com.school.sgai.dto.attendance.AttendanceCounts(r.periodStart, " +
+            "SUM(r.presentCount), SUM(r.absentCount), SUM(r.lateCount), SUM(r.excusedCount)) " +
+            "FROM AttendanceRollup r WHERE r.period = :period " +
+            "AND r.periodStart BETWEEN :from AND :to GROUP BY r.periodStart ORDER BY r.periodStart")
+    List<AttendanceCounts> series(@Param("period") RollupPeriod period,
+                                  @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Étudiants ayant au moins une absence depuis "from" (amorçage des fenêtres d'alerte)
+    @Query("SELECT DISTINCT r.student.id FROM AttendanceRollup r WHERE r.period = com.school.sgai.enums.RollupPeriod.WEEK " +
+            "AND r.periodStart >= :from AND r.absentCount > 0")
+    List<Long> findStudentIdsWithAbsencesSince(@Param("from") LocalDate from);
+
+    @Modifying
+    @Query("DELETE FROM AttendanceRollup r")
+    void deleteAllInBulk();
+}
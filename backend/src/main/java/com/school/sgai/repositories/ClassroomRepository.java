@@ -3,4 +3,8 @@ package com.school.sgai.repositories;
 import com.school.sgai.entities.Classroom;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface ClassroomRepository extends JpaRepository<Classroom, Long> {}
+import java.util.List;
+
+public interface ClassroomRepository extends JpaRepository<Classroom, Long> {
+    List<Classroom> findByProgramIdOrderByName(Long programId);
+}
@@ -1,5 +1,6 @@
 package com.school.sgai.repositories;
 
+import com.school.sgai.dto.schedule.SessionSlot;
 import com.school.sgai.entities.CourseSession;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -19,4 +20,9 @@ public interface CourseSessionRepository extends JpaRepository<CourseSession, Lo
 
     // 3. Pour l'admin : Tout récupérer
     List<CourseSession> findAllByOrderByDayOfWeekAscStartTimeAsc();
+
+    // 4. Index des conflits : les ressources occupées par chaque séance, sans charger les entités
+    @Query("SELECT new com.school.sgai.dto.schedule.SessionSlot(cs.id, t.id, c.id, cs.roomNumber, cs.dayOfWeek, cs.startTime, cs.endTime) " +
+           "FROM CourseSession cs JOIN cs.subject s LEFT JOIN s.teacher t LEFT JOIN s.classroom c")
+    List<SessionSlot> findAllSlots();
 }
@@ -0,0 +1,10 @@
+package com.school.sgai.repositories;
+
+import com.school.sgai.entities.DeliberationPolicy;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface DeliberationPolicyRepository extends JpaRepository<DeliberationPolicy, Long> {
+    Optional<DeliberationPolicy> findByProgramId(Long programId);
+}
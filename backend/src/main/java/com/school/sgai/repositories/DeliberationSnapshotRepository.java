@@ -0,0 +1,24 @@
+package com.school.sgai.repositories;
+
+import com.school.sgai.entities.DeliberationSnapshot;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface DeliberationSnapshotRepository extends JpaRepository<DeliberationSnapshot, Long> {
+
+    List<DeliberationSnapshot> findByClassroomIdOrderByIdDesc(Long classroomId);
+
+    // Dernier PV de chaque classe
+    @Query("SELECT d FROM DeliberationSnapshot d WHERE d.id IN " +
+           "(SELECT MAX(d2.id) FROM DeliberationSnapshot d2 GROUP BY d2.classroom.id)")
+    List<DeliberationSnapshot> findLatestPerClassroom();
+
+    @EntityGraph(attributePaths = "lines")
+    @Query("SELECT d FROM DeliberationSnapshot d WHERE d.id = :id")
+    Optional<DeliberationSnapshot> findWithLinesById(@Param("id") Long id);
+}
@@ -4,6 +4,7 @@ package com.school.sgai.repositories;
 import com.school.sgai.entities.Evaluation;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -12,6 +13,16 @@ import java.util.List;
 public interface EvaluationRepository extends JpaRepository<Evaluation, Long> {
     List<Evaluation> findBySubjectId(Long subjectId);
 
+    @Query("SELECT e FROM Evaluation e WHERE e.subject.classroom.id = :classroomId ORDER BY e.id")
+    List<Evaluation> findByClassroomId(@Param("classroomId") Long classroomId);
+
+    @Query("SELECT COALESCE(SUM(e.coefficient), 0) FROM Evaluation e WHERE e.subject.id = :subjectId")
+    long sumCoefficientsBySubjectId(@Param("subjectId") Long subjectId);
+
     @Query("SELECT e FROM Evaluation e WHERE e.subject.classroom.id = :classroomId AND e.date >= CURRENT_DATE ORDER BY e.date ASC")
     List<Evaluation> findUpcomingExams(@Param("classroomId") Long classroomId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Evaluation e SET e.lastImportHash = :hash WHERE e.id = :evaluationId")
+    int updateLastImportHash(@Param("evaluationId") Long evaluationId, @Param("hash") String hash);
 }
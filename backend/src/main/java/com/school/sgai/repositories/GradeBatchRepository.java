@@ -0,0 +1,37 @@
+package com.school.sgai.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Écriture des notes en lot (JDBC batch) pour les imports : un MERGE par note,
+ * clé (student_id, evaluation_id) = contrainte unique de Grade, envoyés ensemble.
+ */
+@Repository
+@RequiredArgsConstructor
+public class GradeBatchRepository {
+
+    // MERGE standard SQL : met à jour la note existante ou l'insère
+    private static final String MERGE_GRADE =
+            "MERGE INTO grade g"
+            + " USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS DOUBLE PRECISION))) v (student_id, evaluation_id, score)"
+            + " ON g.student_id = v.student_id AND g.evaluation_id = v.evaluation_id"
+            + " WHEN MATCHED THEN UPDATE SET score = v.score"
+            + " WHEN NOT MATCHED THEN INSERT (student_id, evaluation_id, score) VALUES (v.student_id, v.evaluation_id, v.score)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record GradeRow(Long studentId, Double score) {}
+
+    public void upsertAll(Long evaluationId, List<GradeRow> rows) {
+        if (rows.isEmpty()) return;
+        jdbcTemplate.batchUpdate(MERGE_GRADE, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.studentId());
+            ps.setLong(2, evaluationId);
+            ps.setDouble(3, row.score());
+        });
+    }
+}
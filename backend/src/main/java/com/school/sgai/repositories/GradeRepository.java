@@ -1,6 +1,7 @@
 package com.school.sgai.repositories;
 
 
+import com.school.sgai.dto.transcript.GradeCell;
 import com.school.sgai.entities.Grade;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -13,9 +14,19 @@ import java.util.List;
 public interface GradeRepository extends JpaRepository<Grade, Long> {
     Optional<Grade> findByStudentIdAndEvaluationId(Long studentId, Long evaluationId);
     List<Grade> findByStudentId(Long studentId);
+    List<Grade> findByEvaluationId(Long evaluationId);
     @Query("SELECT g FROM Grade g WHERE g.student.id = :studentId ORDER BY g.id DESC")
     List<Grade> findRecentGrades(@Param("studentId") Long studentId, Pageable pageable);
 
+    // Toutes les notes d'une classe, sans hydrater les entités (jury, matrice de notes)
+    @Query("SELECT new com.school.sgai.dto.transcript.GradeCell(g.student.id, g.evaluation.id, g.score) " +
+            "FROM Grade g WHERE g.evaluation.subject.classroom.id = :classroomId")
+    List<GradeCell> findCellsByClassroomId(@Param("classroomId") Long classroomId);
+
+    @Query("SELECT new com.school.sgai.dto.transcript.GradeCell(g.student.id, g.evaluation.id, g.score) " +
+            "FROM Grade g WHERE g.evaluation.id = :evaluationId")
+    List<GradeCell> findCellsByEvaluationId(@Param("evaluationId") Long evaluationId);
+
     // --- ADDED FOR AI SERVICES ---
 
     // Calculate average for a specific subject (e.g., 'Mathématiques')
@@ -0,0 +1,15 @@
+package com.school.sgai.repositories;
+
+import com.school.sgai.entities.ImportJobError;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ImportJobErrorRepository extends JpaRepository<ImportJobError, Long> {
+
+    @Query("SELECT e FROM ImportJobError e WHERE e.job.id = :jobId ORDER BY e.rowNumber, e.id")
+    List<ImportJobError> findByJobId(@Param("jobId") Long jobId, Pageable pageable);
+}
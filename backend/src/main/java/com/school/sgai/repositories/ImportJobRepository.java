@@ -0,0 +1,12 @@
+package com.school.sgai.repositories;
+
+import com.school.sgai.entities.ImportJob;
+import com.school.sgai.enums.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+    List<ImportJob> findByStatusIn(Collection<JobStatus> statuses);
+}
@@ -0,0 +1,14 @@
+package com.school.sgai.repositories;
+
+import com.school.sgai.entities.ReportJob;
+import com.school.sgai.enums.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ReportJobRepository extends JpaRepository<ReportJob, Long> {
+    List<ReportJob> findTop20ByOrderByIdDesc();
+
+    List<ReportJob> findByStatusIn(Collection<JobStatus> statuses);
+}
@@ -0,0 +1,98 @@
+package com.school.sgai.repositories;
+
+import com.school.sgai.enums.Role;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Insertions d'étudiants en lot (JDBC batch) pour les imports massifs :
+ * une requête par table et par lot au lieu d'un save() Hibernate par étudiant.
+ * Mapping JOINED : une ligne dans users, puis une ligne dans student avec le même id.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StudentBatchRepository {
+
+    private static final String INSERT_USER =
+            "INSERT INTO users (username, password, first_name, last_name, email, role, activation_token, activation_expires_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_STUDENT =
+            "INSERT INTO student (id, student_id_number, classroom_id) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public record NewStudent(String username, String passwordHash, String firstName, String lastName,
+                             String email, String studentIdNumber, Long classroomId,
+                             String activationToken, LocalDateTime activationExpiresAt) {}
+
+    /**
+     * Inserts the students in two JDBC batches and returns their generated ids, in the same order.
+     * Must run inside a transaction: both batches commit or roll back together.
+     */
+    public List<Long> insertAll(List<NewStudent> students) {
+        if (students.isEmpty()) return List.of();
+        return jdbcTemplate.execute((Connection con) -> {
+            List<Long> ids = new ArrayList<>(students.size());
+            try (PreparedStatement ps = con.prepareStatement(INSERT_USER, new String[] { "id" })) {
+                for (NewStudent s : students) {
+                    ps.setString(1, s.username());
+                    ps.setString(2, s.passwordHash());
+                    ps.setString(3, s.firstName());
+                    ps.setString(4, s.lastName());
+                    ps.setString(5, s.email());
+                    ps.setString(6, Role.STUDENT.name());
+                    ps.setString(7, s.activationToken());
+                    ps.setTimestamp(8, s.activationExpiresAt() != null ? Timestamp.valueOf(s.activationExpiresAt()) : null);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) ids.add(keys.getLong(1));
+                }
+            }
+            if (ids.size() != students.size()) {
+                throw new SQLException("Clés générées manquantes : " + ids.size() + " pour " + students.size() + " lignes");
+            }
+            try (PreparedStatement ps = con.prepareStatement(INSERT_STUDENT)) {
+                for (int i = 0; i < students.size(); i++) {
+                    ps.setLong(1, ids.get(i));
+                    ps.setString(2, students.get(i).studentIdNumber());
+                    ps.setLong(3, students.get(i).classroomId());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return ids;
+        });
+    }
+
+    // Identifiants déjà pris, en une requête par lot (usernames, emails et CNE)
+    public Set<String> findExistingUsernames(Collection<String> usernames) {
+        if (usernames.isEmpty()) return Set.of();
+        return new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT username FROM users WHERE username IN (:values)",
+                new MapSqlParameterSource("values", usernames), String.class));
+    }
+
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        if (emails.isEmpty()) return Set.of();
+        return new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT email FROM users WHERE email IN (:values)",
+                new MapSqlParameterSource("values", emails), String.class));
+    }
+
+    public Set<String> findExistingStudentIdNumbers(Collection<String> studentIdNumbers) {
+        if (studentIdNumbers.isEmpty()) return Set.of();
+        return new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT student_id_number FROM student WHERE student_id_number IN (:values)",
+                new MapSqlParameterSource("values", studentIdNumbers), String.class));
+    }
+}
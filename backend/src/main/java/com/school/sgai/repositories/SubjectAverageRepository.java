@@ -0,0 +1,56 @@
+package com.school.sgai.repositories;
+
+import com.school.sgai.dto.transcript.SubjectAverageRow;
+import com.school.sgai.entities.SubjectAverage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SubjectAverageRepository extends JpaRepository<SubjectAverage, Long> {
+
+    // Bulletin d'un étudiant : une ligne par matière de sa classe (lecture par clé dans le rollup)
+    @Query("SELECT new com.school.sgai.dto.transcript.SubjectAverageRow(" +
+            "s.id, s.name, t.lastName, s.coefficient, r.weightedSum, r.coefficientTotal, s.eliminatoryMinimum) " +
+            "FROM Subject s " +
+            "LEFT JOIN s.teacher t " +
+            "LEFT JOIN SubjectAverage r ON r.subject = s AND r.student.id = :studentId " +
+            "WHERE s.classroom.id = :classroomId " +
+            "ORDER BY s.id")
+    List<SubjectAverageRow> findSubjectAverages(@Param("studentId") Long studentId, @Param("classroomId") Long classroomId);
+
+    @Query("SELECT r FROM SubjectAverage r WHERE r.subject.classroom.id = :classroomId")
+    List<SubjectAverage> findByClassroomId(@Param("classroomId") Long classroomId);
+
+    @Query("SELECT r.student.id FROM SubjectAverage r WHERE r.subject.id = :subjectId AND r.student.id IN :studentIds")
+    List<Long> findStudentIdsWithRow(@Param("subjectId") Long subjectId, @Param("studentIds") Collection<Long> studentIds);
+
+    // Incréments atomiques : pas de lecture/écriture concurrente perdue entre deux saisies
+    @Modifying
+    @Query("UPDATE SubjectAverage r SET r.weightedSum = r.weightedSum + :delta " +
+            "WHERE r.subject.id = :subjectId AND r.student.id = :studentId")
+    int addToWeightedSum(@Param("subjectId") Long subjectId, @Param("studentId") Long studentId, @Param("delta") double delta);
+
+    @Modifying
+    @Query("UPDATE SubjectAverage r SET r.coefficientTotal = r.coefficientTotal + :delta WHERE r.subject.id = :subjectId")
+    int addToCoefficientTotal(@Param("subjectId") Long subjectId, @Param("delta") long delta);
+
+    @Modifying
+    @Query("DELETE FROM SubjectAverage r WHERE r.subject.id = :subjectId AND r.student.id IN :studentIds " +
+            "AND NOT EXISTS (SELECT g.id FROM Grade g WHERE g.student.id = r.student.id " +
+            "AND g.evaluation.subject.id = :subjectId AND g.evaluation.id <> :evaluationId)")
+    int deleteWithoutOtherGrades(@Param("subjectId") Long subjectId, @Param("evaluationId") Long evaluationId,
+                                 @Param("studentIds") Collection<Long> studentIds);
+
+    // Suppression d'un étudiant : ses lignes d'abord (clé étrangère)
+    @Modifying
+    @Query("DELETE FROM SubjectAverage r WHERE r.student.id = :studentId")
+    int deleteByStudentId(@Param("studentId") Long studentId);
+
+    @Modifying
+    @Query("DELETE FROM SubjectAverage r")
+    void deleteAllInBulk();
+}
@@ -3,10 +3,17 @@ package com.school.sgai.repositories;
 
 import com.school.sgai.entities.Subject;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
 
 public interface SubjectRepository extends JpaRepository<Subject, Long> {
     List<Subject> findByClassroomId(Long classroomId);
+
+    // Matières d'une classe avec leur enseignant, dans l'ordre du bulletin
+    @Query("SELECT s FROM Subject s LEFT JOIN FETCH s.teacher WHERE s.classroom.id = :classroomId ORDER BY s.id")
+    List<Subject> findByClassroomIdWithTeacher(@Param("classroomId") Long classroomId);
     List<Subject> findByTeacherId(Long teacherId);
 
     long countByTeacherId(Long teacherId);
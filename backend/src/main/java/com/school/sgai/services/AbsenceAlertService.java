@@ -0,0 +1,189 @@
+package com.school.sgai.services;
+
+import com.school.sgai.dto.attendance.AttendanceMark;
+import com.school.sgai.entities.*;
+import com.school.sgai.enums.AbsenceStatus;
+import com.school.sgai.enums.RollupPeriod;
+import com.school.sgai.repositories.*;
+import com.school.sgai.repositories.AttendanceBatchRepository.AttendanceRow;
+import com.school.sgai.services.attendance.AbsenceWindows;
+import com.school.sgai.services.attendance.AbsenceWindows.Crossing;
+import com.school.sgai.services.attendance.AbsenceWindows.Key;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Alertes d'absences non excusées.
+ *
+ * Chaque saisie d'appel met à jour des fenêtres glissantes gardées en mémoire
+ * (AbsenceWindows) : le franchissement du seuil d'une matière crée une alerte dans la
+ * même transaction que l'appel. Les alertes en attente sont envoyées par lots (digests),
+ * un par enseignant (un pour l'administration, matières sans enseignant), à heure fixe.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class AbsenceAlertService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbsenceAlertService.class);
+
+    private static final int SEED_BATCH = 500;
+
+    private final AbsenceAlertRepository alertRepo;
+    private final AlertDigestRepository digestRepo;
+    private final AttendanceRepository attendanceRepo;
+    private final AttendanceRollupRepository rollupRepo;
+    private final AppUserRepository userRepo;
+    private final SubjectRepository subjectRepo;
+
+    @Value("${sgai.alerts.absence-threshold:3}")
+    private int threshold;
+
+    @Value("${sgai.alerts.window-days:14}")
+    private int windowDays;
+
+    private AbsenceWindows windows;
+
+    // Fenêtres modifiées par une transaction annulée : rechargées depuis la base au prochain accès
+    private final Set<Key> stale = new HashSet<>();
+
+    @PostConstruct
+    void init() {
+        windows = new AbsenceWindows(threshold, windowDays);
+    }
+
+    // Amorçage : le rollup hebdomadaire désigne les étudiants ayant des absences récentes,
+    // seules leurs absences de la fenêtre sont relues
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        LocalDate from = windows.horizon(LocalDate.now());
+        List<Long> students = rollupRepo.findStudentIdsWithAbsencesSince(
+                AttendanceAnalyticsService.periodStart(RollupPeriod.WEEK, from));
+        synchronized (windows) {
+            for (int i = 0; i < students.size(); i += SEED_BATCH) {
+                for (AttendanceMark mark : attendanceRepo.findAbsencesSince(
+                        students.subList(i, Math.min(i + SEED_BATCH, students.size())), from)) {
+                    windows.seed(mark.getStudentId(), mark.getSubjectId(), mark.getDate());
+                }
+            }
+            logger.info("Fenêtres d'absences amorcées : {} couple(s) étudiant/matière", windows.trackedPairs());
+        }
+    }
+
+    // --- ATTENDANCE WRITES ---
+
+    /**
+     * Appelé dans la transaction de la saisie, après l'écriture des statuts (after)
+     * qui remplacent ceux lus avant (before).
+     */
+    public List<AbsenceAlert> onAttendanceWritten(Long subjectId, LocalDate date,
+                                                  Map<Long, AbsenceStatus> before, List<AttendanceRow> after) {
+        LocalDate today = LocalDate.now();
+        List<Crossing> crossings = new ArrayList<>();
+        Set<Key> touched = new HashSet<>();
+
+        synchronized (windows) {
+            for (AttendanceRow row : after) {
+                boolean wasAbsent = before.get(row.studentId()) == AbsenceStatus.ABSENT;
+                boolean isAbsent = row.status() == AbsenceStatus.ABSENT;
+                if (wasAbsent == isAbsent) continue;
+
+                Key key = new Key(row.studentId(), subjectId);
+                if (stale.remove(key)) reload(key, date, wasAbsent, today);
+                touched.add(key);
+                if (isAbsent) {
+                    Crossing crossing = windows.addAbsence(row.studentId(), subjectId, date, today);
+                    if (crossing != null) crossings.add(crossing);
+                } else {
+                    windows.removeAbsence(row.studentId(), subjectId, date);
+                }
+            }
+        }
+        if (!touched.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) return;
+                    synchronized (windows) {
+                        stale.addAll(touched);
+                    }
+                }
+            });
+        }
+        // Une absence retirée puis remise ramène la fenêtre au seuil : l'alerte existe déjà
+        crossings.removeIf(c -> alertRepo.existsOverlapping(c.studentId(), c.subjectId(), c.windowStart(), c.windowEnd()));
+        if (crossings.isEmpty()) return List.of();
+
+        Subject subject = subjectRepo.getReferenceById(subjectId);
+        Map<Long, AppUser> students = new HashMap<>();
+        userRepo.findAllById(crossings.stream().map(Crossing::studentId).toList())
+                .forEach(u -> students.put(u.getId(), u));
+        List<AbsenceAlert> alerts = new ArrayList<>();
+        for (Crossing crossing : crossings) {
+            alerts.add(AbsenceAlert.builder()
+                    .student((Student) students.get(crossing.studentId()))
+                    .subject(subject)
+                    .windowStart(crossing.windowStart())
+                    .windowEnd(crossing.windowEnd())
+                    .absenceCount(crossing.absences())
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        return alertRepo.saveAll(alerts);
+    }
+
+    // La base contient déjà l'écriture en cours : on remet la date du jour saisi dans son état d'avant
+    private void reload(Key key, LocalDate date, boolean wasAbsent, LocalDate today) {
+        Set<LocalDate> dates = new HashSet<>(attendanceRepo.findAbsenceDates(key.studentId(), key.subjectId(), windows.horizon(today)));
+        if (wasAbsent) dates.add(date);
+        else dates.remove(date);
+        windows.reset(key, dates);
+    }
+
+    // --- DIGESTS ---
+
+    // Alertes en attente groupées par enseignant de la matière (administration sans enseignant)
+    @Scheduled(cron = "${sgai.alerts.digest-cron:0 0 18 * * *}")
+    public int sendDigests() {
+        // id de l'enseignant (null = administration) -> alertes
+        Map<Long, List<AbsenceAlert>> byRecipient = new LinkedHashMap<>();
+        for (AbsenceAlert alert : alertRepo.findPending()) {
+            Teacher teacher = alert.getSubject().getTeacher();
+            byRecipient.computeIfAbsent(teacher != null ? teacher.getId() : null, k -> new ArrayList<>()).add(alert);
+        }
+        for (List<AbsenceAlert> alerts : byRecipient.values()) {
+            Teacher teacher = alerts.get(0).getSubject().getTeacher();
+            AlertDigest digest = digestRepo.save(AlertDigest.builder()
+                    .recipient(teacher)
+                    .createdAt(LocalDateTime.now())
+                    .alertCount(alerts.size())
+                    .build());
+            alerts.forEach(a -> a.setDigest(digest));
+            logger.info("Digest d'alertes d'absence : {} alerte(s) pour {}", alerts.size(),
+                    teacher != null ? teacher.getUsername() : "l'administration");
+        }
+        return byRecipient.size();
+    }
+
+    public List<AbsenceAlert> getDeliveredAlerts(Long teacherId) {
+        return alertRepo.findDeliveredToTeacher(teacherId, LocalDateTime.now().minusDays(windowDays));
+    }
+
+    public List<AbsenceAlert> getAdministrationAlerts() {
+        return alertRepo.findDeliveredToAdministration(LocalDateTime.now().minusDays(windowDays));
+    }
+}
@@ -3,13 +3,16 @@ package com.school.sgai.services;
 
 import com.school.sgai.entities.*;
 import com.school.sgai.enums.Role;
+import com.school.sgai.events.ResultsChangedEvent;
 import com.school.sgai.repositories.*;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,7 +23,9 @@ public class AcademicService {
     private final AppUserRepository userRepository;
     private final ClassroomRepository classroomRepo;
     private final SubjectRepository subjectRepo;
+    private final SubjectAverageRepository averageRepo;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher events;
 
     // --- STUDENT MANAGEMENT ---
 
@@ -28,12 +33,16 @@ public class AcademicService {
         Classroom classroom = classroomRepo.findById(classroomId)
                 .orElseThrow(() -> new RuntimeException("Classroom not found"));
 
+        checkStudentIdNumberFree(student.getStudentIdNumber(), null);
+
         // Security defaults
         student.setRole(Role.STUDENT);
         student.setPassword(passwordEncoder.encode("1234")); // Default password
         student.setClassroom(classroom);
 
-        return userRepository.save(student);
+        Student saved = userRepository.save(student);
+        events.publishEvent(ResultsChangedEvent.forClassroom(classroomId));
+        return saved;
     }
 
     // Helper to get only Students (filtering from generic Users)
@@ -55,7 +64,10 @@ public class AcademicService {
         subject.setClassroom(classroom);
         subject.setTeacher(teacher);
 
-        return subjectRepo.save(subject);
+        Subject saved = subjectRepo.save(subject);
+        // Nouvelle matière = nouveau coefficient dans la moyenne générale de toute la classe
+        events.publishEvent(ResultsChangedEvent.forClassroom(classroomId));
+        return saved;
     }
 
     public List<Subject> getAllSubjects() { return subjectRepo.findAll(); }
@@ -95,6 +107,8 @@ public class AcademicService {
 
     public void updateStudent(Student student) {
         Student existing = getStudentById(student.getId());
+        Long previousClassroomId = existing.getClassroom() != null ? existing.getClassroom().getId() : null;
+        checkStudentIdNumberFree(student.getStudentIdNumber(), existing.getId());
 
         existing.setFirstName(student.getFirstName());
         existing.setLastName(student.getLastName());
@@ -102,10 +116,29 @@ public class AcademicService {
         existing.setClassroom(student.getClassroom());
 
         userRepository.save(existing);
+        events.publishEvent(ResultsChangedEvent.forStudents(previousClassroomId, Set.of(existing.getId())));
+        if (existing.getClassroom() != null && !existing.getClassroom().getId().equals(previousClassroomId)) {
+            events.publishEvent(ResultsChangedEvent.forClassroom(existing.getClassroom().getId()));
+        }
     }
 
 
+    // Le CNE est unique (clé naturelle utilisée par l'import de notes)
+    private void checkStudentIdNumberFree(String studentIdNumber, Long studentId) {
+        if (studentIdNumber == null) return;
+        userRepository.findByStudentIdNumber(studentIdNumber)
+                .filter(other -> !other.getId().equals(studentId))
+                .ifPresent(other -> { throw new RuntimeException("CNE déjà utilisé : " + studentIdNumber); });
+    }
+
     public void deleteUser(Long id) {
+        userRepository.findById(id).ifPresent(user -> {
+            if (user instanceof Student s) {
+                events.publishEvent(ResultsChangedEvent.forStudents(
+                        s.getClassroom() != null ? s.getClassroom().getId() : null, Set.of(id)));
+                averageRepo.deleteByStudentId(id);
+            }
+        });
         userRepository.deleteById(id);
     }
 }
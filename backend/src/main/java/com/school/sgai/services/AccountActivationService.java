@@ -0,0 +1,79 @@
+package com.school.sgai.services;
+
+import com.school.sgai.entities.AppUser;
+import com.school.sgai.repositories.AppUserRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Comptes créés sans mot de passe (import en masse) : l'utilisateur choisit le sien
+ * via un lien à usage unique. Seule l'empreinte SHA-256 du jeton est stockée.
+ */
+@Service
+@RequiredArgsConstructor
+public class AccountActivationService {
+
+    // Ne ressemble pas à un hash BCrypt : aucune connexion possible avant l'activation
+    public static final String PENDING_PASSWORD = "!activation-pending";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final AppUserRepository userRepo;
+    private final PasswordEncoder passwordEncoder;
+
+    @Value("${sgai.activation.validity-days:14}")
+    private int validityDays;
+
+    public record IssuedToken(String token, String tokenHash, LocalDateTime expiresAt) {}
+
+    public IssuedToken issueToken() {
+        byte[] bytes = new byte[24];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        return new IssuedToken(token, hash(token), LocalDateTime.now().plusDays(validityDays));
+    }
+
+    public AppUser findPendingAccount(String token) {
+        AppUser user = token == null ? null : userRepo.findByActivationToken(hash(token)).orElse(null);
+        if (user == null || user.getActivationExpiresAt() == null
+                || user.getActivationExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("Lien d'activation invalide ou expiré");
+        }
+        return user;
+    }
+
+    @Transactional
+    public AppUser activate(String token, String password, String confirmation) {
+        AppUser user = findPendingAccount(token);
+        if (password == null || password.length() < 8) {
+            throw new RuntimeException("Le mot de passe doit contenir au moins 8 caractères");
+        }
+        if (!password.equals(confirmation)) {
+            throw new RuntimeException("Les deux mots de passe ne correspondent pas");
+        }
+        user.setPassword(passwordEncoder.encode(password));
+        user.setActivationToken(null);
+        user.setActivationExpiresAt(null);
+        return userRepo.save(user);
+    }
+
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,9 +2,10 @@ package com.school.sgai.services;
 
 import com.school.sgai.dto.ai.RecommendationResponse;
 import com.school.sgai.dto.ai.ScheduleOptimizationResponse;
+import com.school.sgai.dto.attendance.AttendanceCounts;
 import com.school.sgai.entities.Student;
 import com.school.sgai.repositories.GradeRepository;
-import com.school.sgai.repositories.AttendanceRepository;
+import com.school.sgai.services.grading.ClassRanking;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -56,7 +57,13 @@ public class AiIntegrationService {
     private GradeRepository gradeRepository;
     
     @Autowired
-    private AttendanceRepository attendanceRepository;
+    private AttendanceAnalyticsService attendanceAnalytics;
+    
+    @Autowired
+    private ClassRankingService rankingService;
+    
+    @Autowired
+    private TimetableEngineService timetableEngine;
     
     /**
      * Obtient les recommandations de parcours pour un étudiant
@@ -119,18 +126,24 @@ public class AiIntegrationService {
         profile.put("info_avg", infoAvg != null ? infoAvg : 0.0);
         profile.put("overall_avg", overallAvg != null ? overallAvg : 0.0);
         
-        // Taux d'assiduité
-        Long totalSessions = attendanceRepository.countTotalSessionsByStudent(student.getId());
-        Long presentSessions = attendanceRepository.countPresentSessionsByStudent(student.getId());
+        // Taux d'assiduité (somme des compteurs mensuels du rollup)
+        AttendanceCounts attendance = attendanceAnalytics.getStudentTotals(student.getId());
         
         double attendanceRate = 100.0;
-        if (totalSessions != null && totalSessions > 0) {
-            attendanceRate = (presentSessions != null ? presentSessions : 0) * 100.0 / totalSessions;
+        if (attendance.getTotal() > 0) {
+            attendanceRate = attendance.getPresent() * 100.0 / attendance.getTotal();
         }
         profile.put("attendance_rate", attendanceRate);
         
-        // Rang dans la classe (simplifié)
-        profile.put("class_rank", calculateClassRank(student));
+        // Rang dans la classe (classement dense, mis en cache par classe)
+        if (student.getClassroom() != null) {
+            ClassRanking ranking = rankingService.getRanking(student.getClassroom().getId());
+            profile.put("class_rank", ranking.rankOf(student.getId()));
+            profile.put("class_percentile", ranking.percentileOf(student.getId()));
+            profile.put("class_size", ranking.size());
+        } else {
+            profile.put("class_rank", null);
+        }
         
         return profile;
     }
@@ -145,7 +158,7 @@ public class AiIntegrationService {
     public ScheduleOptimizationResponse optimizeSchedule(Long classroomId, Map<String, Boolean> constraints) {
         if (!scheduleEnabled) {
             logger.warn("Service d'optimisation EDT désactivé");
-            return createFallbackSchedule(classroomId);
+            return createFallbackSchedule(classroomId, constraints);
         }
         
         try {
@@ -174,12 +187,12 @@ public class AiIntegrationService {
                 return response.getBody();
             } else {
                 logger.warn("Réponse inattendue du service IA: {}", response.getStatusCode());
-                return createFallbackSchedule(classroomId);
+                return createFallbackSchedule(classroomId, constraints);
             }
             
         } catch (Exception e) {
             logger.error("Erreur lors de l'optimisation EDT", e);
-            return createFallbackSchedule(classroomId);
+            return createFallbackSchedule(classroomId, constraints);
         }
     }
     
@@ -259,13 +272,28 @@ public class AiIntegrationService {
     }
     
     /**
-     * Crée une réponse d'optimisation par défaut en cas d'erreur
+     * Planning calculé par le moteur local quand le service distant est indisponible,
+     * planning vide si le moteur local échoue aussi
      */
-    private ScheduleOptimizationResponse createFallbackSchedule(Long classroomId) {
+    private ScheduleOptimizationResponse createFallbackSchedule(Long classroomId, Map<String, Boolean> constraints) {
+        try {
+            logger.warn("Optimisation EDT locale pour classe {}", classroomId);
+            return timetableEngine.optimize(classroomId, constraints != null ? constraints : getDefaultConstraints());
+        } catch (RuntimeException e) {
+            logger.error("Échec de l'optimisation EDT locale", e);
+        }
+        
         ScheduleOptimizationResponse fallback = new ScheduleOptimizationResponse();
         fallback.setClassroomId(classroomId);
         fallback.setSchedule(new ArrayList<>());
         
+        ScheduleOptimizationResponse.QualityMetrics quality = new ScheduleOptimizationResponse.QualityMetrics();
+        quality.setHardViolations(0);
+        quality.setSoftViolations(0);
+        quality.setTotalViolations(0);
+        quality.setIsValid(false);
+        fallback.setQuality(quality);
+        
         logger.warn("Utilisation de planning par défaut pour classe {}", classroomId);
         return fallback;
     }
@@ -281,15 +309,6 @@ public class AiIntegrationService {
         return defaults;
     }
     
-    /**
-     * Calcule le rang approximatif d'un étudiant dans sa classe
-     */
-    private Integer calculateClassRank(Student student) {
-        // Implémentation simplifiée
-        // En production, faire une vraie requête SQL
-        return 15; // Valeur par défaut
-    }
-    
     /**
      * Interface fonctionnelle pour retry
      */
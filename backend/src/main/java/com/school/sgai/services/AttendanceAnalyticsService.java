@@ -0,0 +1,148 @@
+package com.school.sgai.services;
+
+import com.school.sgai.dto.attendance.AttendanceCounts;
+import com.school.sgai.dto.attendance.AttendanceMark;
+import com.school.sgai.entities.Classroom;
+import com.school.sgai.enums.AbsenceStatus;
+import com.school.sgai.enums.RollupPeriod;
+import com.school.sgai.repositories.AttendanceBatchRepository;
+import com.school.sgai.repositories.AttendanceBatchRepository.AttendanceRow;
+import com.school.sgai.repositories.AttendanceBatchRepository.RollupDelta;
+import com.school.sgai.repositories.AttendanceRepository;
+import com.school.sgai.repositories.AttendanceRollupRepository;
+import com.school.sgai.repositories.ClassroomRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * Maintient la table AttendanceRollup (compteurs présent / absent / retard / excusé
+ * par étudiant, par matière et par semaine ou par mois) à chaque saisie d'appel.
+ * Tableau de bord et profil IA lisent des sommes de ce rollup au lieu des présences brutes.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class AttendanceAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceAnalyticsService.class);
+
+    // Bornes d'une somme sur tout l'historique
+    private static final LocalDate ALL_FROM = LocalDate.of(1970, 1, 1);
+    private static final LocalDate ALL_TO = LocalDate.of(9999, 12, 31);
+
+    private final AttendanceRollupRepository rollupRepo;
+    private final AttendanceBatchRepository batchRepo;
+    private final AttendanceRepository attendanceRepo;
+    private final ClassroomRepository classroomRepo;
+
+    @Value("${sgai.rollup.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    public static LocalDate periodStart(RollupPeriod period, LocalDate date) {
+        return period == RollupPeriod.WEEK
+                ? date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                : date.withDayOfMonth(1);
+    }
+
+    // --- ATTENDANCE WRITES ---
+
+    /**
+     * Applique à la semaine et au mois de la séance la différence entre les statuts
+     * déjà saisis (before) et ceux qui viennent d'être écrits (after).
+     */
+    public void applyChanges(Long subjectId, LocalDate date, Map<Long, AbsenceStatus> before, List<AttendanceRow> after) {
+        Map<Long, long[]> deltas = new HashMap<>();
+        for (AttendanceRow row : after) {
+            AbsenceStatus old = before.get(row.studentId());
+            if (old == row.status()) continue;
+            long[] counts = deltas.computeIfAbsent(row.studentId(), id -> new long[AbsenceStatus.values().length]);
+            if (old != null) counts[old.ordinal()]--;
+            counts[row.status().ordinal()]++;
+        }
+        if (deltas.isEmpty()) return;
+
+        List<RollupDelta> rows = new ArrayList<>();
+        deltas.forEach((studentId, counts) -> {
+            for (RollupPeriod period : RollupPeriod.values()) {
+                rows.add(delta(studentId, period, periodStart(period, date), counts));
+            }
+        });
+        batchRepo.addToRollups(subjectId, rows);
+    }
+
+    private static RollupDelta delta(Long studentId, RollupPeriod period, LocalDate start, long[] counts) {
+        return new RollupDelta(studentId, period, start,
+                counts[AbsenceStatus.PRESENT.ordinal()], counts[AbsenceStatus.ABSENT.ordinal()],
+                counts[AbsenceStatus.LATE.ordinal()], counts[AbsenceStatus.EXCUSED.ordinal()]);
+    }
+
+    // --- READS ---
+
+    public AttendanceCounts getStudentTotals(Long studentId) {
+        return rollupRepo.sumByStudent(studentId, RollupPeriod.MONTH, ALL_FROM, ALL_TO);
+    }
+
+    // Matières d'un enseignant sur les dernières semaines (semaine en cours comprise)
+    public AttendanceCounts getTeacherRecentTotals(Long teacherId, int weeks, LocalDate today) {
+        LocalDate from = periodStart(RollupPeriod.WEEK, today).minusWeeks(weeks - 1L);
+        return rollupRepo.sumByTeacher(teacherId, RollupPeriod.WEEK, from, today);
+    }
+
+    // Établissement, une ligne par semaine saisie
+    public List<AttendanceCounts> getWeeklySeries(int weeks, LocalDate today) {
+        LocalDate from = periodStart(RollupPeriod.WEEK, today).minusWeeks(weeks - 1L);
+        return rollupRepo.series(RollupPeriod.WEEK, from, today);
+    }
+
+    // --- REBUILD ---
+
+    /**
+     * Recalcule entièrement le rollup depuis les présences brutes, classe par classe.
+     */
+    public int rebuild() {
+        rollupRepo.deleteAllInBulk();
+        int rows = 0;
+        for (Classroom classroom : classroomRepo.findAll()) {
+            // (matière, étudiant, période, début) -> compteurs
+            Map<Long, Map<RollupKey, long[]>> bySubject = new HashMap<>();
+            for (AttendanceMark mark : attendanceRepo.findMarksByClassroomId(classroom.getId())) {
+                if (mark.getStatus() == null) continue;
+                Map<RollupKey, long[]> keys = bySubject.computeIfAbsent(mark.getSubjectId(), id -> new HashMap<>());
+                for (RollupPeriod period : RollupPeriod.values()) {
+                    RollupKey key = new RollupKey(mark.getStudentId(), period, periodStart(period, mark.getDate()));
+                    keys.computeIfAbsent(key, k -> new long[AbsenceStatus.values().length])[mark.getStatus().ordinal()]++;
+                }
+            }
+            for (Map.Entry<Long, Map<RollupKey, long[]>> subject : bySubject.entrySet()) {
+                List<RollupDelta> batch = new ArrayList<>();
+                subject.getValue().forEach((key, counts) ->
+                        batch.add(delta(key.studentId(), key.period(), key.start(), counts)));
+                batchRepo.addToRollups(subject.getKey(), batch);
+                rows += batch.size();
+            }
+        }
+        logger.info("Rollup des présences reconstruit : {} lignes", rows);
+        return rows;
+    }
+
+    private record RollupKey(Long studentId, RollupPeriod period, LocalDate start) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() {
+        // Base existante sans rollup (première mise en production) : on le construit une fois
+        if (rebuildOnStartup || (rollupRepo.count() == 0 && attendanceRepo.count() > 0)) {
+            rebuild();
+        }
+    }
+}
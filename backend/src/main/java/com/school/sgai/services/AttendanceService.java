@@ -2,16 +2,23 @@ package com.school.sgai.services;
 
 
 import com.school.sgai.dto.AttendanceWrapper;
+import com.school.sgai.dto.attendance.AttendanceCell;
+import com.school.sgai.dto.attendance.AttendanceGrid;
+import com.school.sgai.dto.attendance.AttendanceMark;
 import com.school.sgai.entities.*;
 import com.school.sgai.enums.AbsenceStatus;
 import com.school.sgai.repositories.*;
+import com.school.sgai.repositories.AttendanceBatchRepository.AttendanceRow;
+import com.school.sgai.services.attendance.AttendanceBitmap;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -19,29 +26,29 @@ import java.util.List;
 public class AttendanceService {
 
     private final AttendanceRepository attendanceRepo;
-    private final SubjectRepository subjectRepo;
     private final AppUserRepository userRepo;
+    private final AttendanceBatchRepository attendanceBatchRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final AttendanceAnalyticsService analyticsService;
+    private final AbsenceAlertService alertService;
 
-    public AttendanceWrapper getAttendanceSheet(Long subjectId, LocalDate date) {
-        Subject subject = subjectRepo.findById(subjectId).orElseThrow();
-        List<Student> students = subject.getClassroom().getStudents();
+    // Borne de la vue multi-jours (une colonne par jour saisi)
+    private static final int MAX_GRID_DAYS = 92;
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
 
+    // Feuille d'appel du jour : une seule requête (liste de la classe + présences du jour)
+    public AttendanceWrapper getAttendanceSheet(Long subjectId, LocalDate date) {
         AttendanceWrapper wrapper = new AttendanceWrapper();
         wrapper.setSubjectId(subjectId);
         wrapper.setDate(date);
 
         List<AttendanceWrapper.StudentAttendanceDTO> dtos = new ArrayList<>();
-
-        for (Student s : students) {
+        for (AttendanceCell cell : attendanceRepo.findSheet(subjectId, date)) {
             AttendanceWrapper.StudentAttendanceDTO dto = new AttendanceWrapper.StudentAttendanceDTO();
-            dto.setStudentId(s.getId());
-            dto.setStudentName(s.getLastName() + " " + s.getFirstName());
-
-            AbsenceStatus status = attendanceRepo.findByStudentIdAndSubjectIdAndDate(s.getId(), subjectId, date)
-                    .map(Attendance::getStatus)
-                    .orElse(AbsenceStatus.PRESENT);
-
-            dto.setStatus(status);
+            dto.setStudentId(cell.getStudentId());
+            dto.setStudentName(cell.getStudentName());
+            dto.setStatus(cell.getStatus() != null ? cell.getStatus() : AbsenceStatus.PRESENT);
             dtos.add(dto);
         }
 
@@ -49,21 +56,92 @@ public class AttendanceService {
         return wrapper;
     }
 
-    public void saveAttendance(AttendanceWrapper form) {
-        Subject subject = subjectRepo.findById(form.getSubjectId()).orElseThrow();
+    // Présences sur plusieurs jours : même jointure sur la période, puis mise en grille en mémoire
+    public AttendanceGrid getAttendanceGrid(Long subjectId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) throw new RuntimeException("Période invalide : la date de fin précède la date de début");
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_GRID_DAYS) {
+            throw new RuntimeException("Période trop longue (" + MAX_GRID_DAYS + " jours maximum)");
+        }
+        List<AttendanceCell> cells = attendanceRepo.findSheetBetween(subjectId, from, to);
+
+        TreeSet<LocalDate> dates = new TreeSet<>();
+        for (AttendanceCell cell : cells) {
+            if (cell.getDate() != null) dates.add(cell.getDate());
+        }
+        Map<LocalDate, Integer> columns = new HashMap<>();
+        for (LocalDate d : dates) columns.put(d, columns.size());
+
+        // Séries d'absences calculées sur la forme compacte (bitsets par étudiant)
+        List<AttendanceMark> marks = new ArrayList<>();
+        Set<Long> roster = new HashSet<>();
+        for (AttendanceCell cell : cells) {
+            roster.add(cell.getStudentId());
+            if (cell.getDate() != null) {
+                marks.add(new AttendanceMark(cell.getStudentId(), subjectId, cell.getDate(), cell.getStatus()));
+            }
+        }
+        AttendanceBitmap bitmap = AttendanceBitmap.build(roster, marks);
+
+        // Cellules triées par étudiant : une ligne de grille par étudiant
+        Map<Long, AttendanceGrid.Row> rows = new LinkedHashMap<>();
+        for (AttendanceCell cell : cells) {
+            AttendanceGrid.Row row = rows.computeIfAbsent(cell.getStudentId(), id -> new AttendanceGrid.Row(
+                    id, cell.getStudentName(), new ArrayList<>(Collections.nCopies(dates.size(), null)),
+                    bitmap.longestAbsenceStreak(id)));
+            if (cell.getDate() != null) row.getStatuses().set(columns.get(cell.getDate()), cell.getStatus());
+        }
+        return new AttendanceGrid(subjectId, from, to, new ArrayList<>(dates), new ArrayList<>(rows.values()));
+    }
+
+    // Présences d'une classe sur une période, sous forme de bitmaps (taux, séries, seuils)
+    public AttendanceBitmap getAttendanceBitmap(Long classroomId, LocalDate from, LocalDate to) {
+        return AttendanceBitmap.build(userRepo.findStudentIdsByClassroomId(classroomId),
+                attendanceRepo.findMarksByClassroomBetween(classroomId, from, to));
+    }
 
+    // Feuille d'appel saisie : statut de chaque étudiant, écrit en un seul lot
+    // SUPPORTS : hors transaction appelante, chaque tentative d'écriture a sa propre transaction
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public void saveAttendance(AttendanceWrapper form) {
+        Set<Long> roster = new HashSet<>(userRepo.findStudentIdsBySubjectId(form.getSubjectId()));
+        // Un statut par étudiant (le dernier l'emporte si le formulaire le répète)
+        Map<Long, AttendanceRow> rows = new LinkedHashMap<>();
         for (AttendanceWrapper.StudentAttendanceDTO dto : form.getStudents()) {
-            Student student = (Student) userRepo.findById(dto.getStudentId()).orElseThrow();
+            if (!roster.contains(dto.getStudentId())) {
+                throw new RuntimeException("Étudiant non inscrit dans la classe de cette matière : " + dto.getStudentId());
+            }
+            rows.put(dto.getStudentId(), new AttendanceRow(dto.getStudentId(),
+                    dto.getStatus() != null ? dto.getStatus() : AbsenceStatus.PRESENT));
+        }
+        writeSheet(form.getSubjectId(), form.getDate(), new ArrayList<>(rows.values()));
+    }
 
-            Attendance attendance = attendanceRepo.findByStudentIdAndSubjectIdAndDate(student.getId(), subject.getId(), form.getDate())
-                    .orElse(Attendance.builder()
-                            .student(student)
-                            .subject(subject)
-                            .date(form.getDate())
-                            .build());
+    // Saisie rapide : les absents cochés, tous les autres étudiants de la classe présents
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public void saveAttendanceBulk(Long subjectId, LocalDate date, Collection<Long> absentStudentIds) {
+        Set<Long> absent = new HashSet<>(absentStudentIds);
+        List<AttendanceRow> rows = new ArrayList<>();
+        for (Long studentId : userRepo.findStudentIdsBySubjectId(subjectId)) {
+            rows.add(new AttendanceRow(studentId, absent.contains(studentId) ? AbsenceStatus.ABSENT : AbsenceStatus.PRESENT));
+        }
+        writeSheet(subjectId, date, rows);
+    }
 
-            attendance.setStatus(dto.getStatus());
-            attendanceRepo.save(attendance);
+    private void writeSheet(Long subjectId, LocalDate date, List<AttendanceRow> rows) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Map<Long, AbsenceStatus> before = attendanceBatchRepo.findStatusesForUpdate(subjectId, date);
+                    attendanceBatchRepo.upsertAll(subjectId, date, rows);
+                    analyticsService.applyChanges(subjectId, date, before, rows);
+                    alertService.onAttendanceWritten(subjectId, date, before, rows);
+                });
+                return;
+            } catch (DuplicateKeyException e) {
+                // Un autre enseignant a inséré la même présence au même moment :
+                // le MERGE rejoué trouve sa ligne et la met à jour
+                if (attempt == MAX_WRITE_ATTEMPTS) throw e;
+            }
         }
     }
 
@@ -0,0 +1,65 @@
+package com.school.sgai.services;
+
+import com.school.sgai.dto.transcript.TranscriptDTO;
+import com.school.sgai.entities.Student;
+import com.school.sgai.events.ResultsChangedEvent;
+import com.school.sgai.services.grading.ClassRanking;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Classement des étudiants par classe, calculé en un seul tri des moyennes
+ * générales et gardé en cache jusqu'au prochain changement de résultats de la classe.
+ */
+@Service
+@RequiredArgsConstructor
+public class ClassRankingService {
+
+    private final TranscriptService transcriptService;
+
+    private final Map<Long, ClassRanking> rankings = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong();
+
+    public ClassRanking getRanking(Long classroomId) {
+        ClassRanking cached = rankings.get(classroomId);
+        if (cached != null) return cached;
+        return rank(classroomId, transcriptService.generateClassTranscripts(classroomId));
+    }
+
+    /**
+     * Classe un tableau de jury déjà calculé (sans relire la base) et remplit TranscriptDTO.rank.
+     */
+    public ClassRanking rank(Long classroomId, List<TranscriptDTO> board) {
+        long startEpoch = epoch.get();
+        long[] ids = new long[board.size()];
+        double[] averages = new double[board.size()];
+        for (int i = 0; i < board.size(); i++) {
+            ids[i] = board.get(i).getStudent().getId();
+            averages[i] = board.get(i).getGlobalAverage();
+        }
+        ClassRanking ranking = ClassRanking.of(ids, averages);
+        for (TranscriptDTO t : board) {
+            t.setRank(ClassRanking.format(ranking.rankOf(t.getStudent().getId())));
+        }
+        if (epoch.get() == startEpoch) rankings.put(classroomId, ranking);
+        return ranking;
+    }
+
+    public Integer getRank(Student student) {
+        if (student.getClassroom() == null) return null;
+        return getRanking(student.getClassroom().getId()).rankOf(student.getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onResultsChanged(ResultsChangedEvent event) {
+        epoch.incrementAndGet();
+        // La note d'un seul étudiant peut déplacer tous les autres : on oublie le classement de la classe
+        if (event.getClassroomId() != null) rankings.remove(event.getClassroomId());
+    }
+}
@@ -4,10 +4,13 @@ import com.school.sgai.dto.DashboardStats;
 import com.school.sgai.entities.*;
 import com.school.sgai.enums.Role;
 import com.school.sgai.repositories.*;
+import com.school.sgai.services.grading.ClassRanking;
+import com.school.sgai.services.grading.TranscriptCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Service
@@ -19,7 +22,10 @@ public class DashboardService {
     private final SubjectRepository subjectRepo;
     private final GradeRepository gradeRepo;
     private final EvaluationRepository evalRepo;
-    private final TranscriptService transcriptService;
+    private final TranscriptCache transcriptCache;
+    private final ClassRankingService rankingService;
+    private final AttendanceAnalyticsService attendanceAnalytics;
+    private final AbsenceAlertService alertService;
 
     // 1. STATS ADMIN
     public DashboardStats.AdminStats getAdminStats() {
@@ -28,6 +34,8 @@ public class DashboardService {
                 .totalTeachers(userRepo.findAll().stream().filter(u -> u.getRole() == Role.TEACHER).count())
                 .totalClasses(classRepo.count())
                 .totalSubjects(subjectRepo.count())
+                .weeklyAttendance(attendanceAnalytics.getWeeklySeries(8, LocalDate.now()))
+                .absenceAlerts(alertService.getAdministrationAlerts())
                 .build();
     }
 
@@ -42,6 +50,8 @@ public class DashboardService {
         return DashboardStats.TeacherStats.builder()
                 .subjectCount(subjects.size())
                 .totalStudents(studentCount)
+                .recentAbsenceRate(attendanceAnalytics.getTeacherRecentTotals(teacherId, 4, LocalDate.now()).getAbsenceRate())
+                .absenceAlerts(alertService.getDeliveredAlerts(teacherId))
                 .build();
     }
 
@@ -51,7 +61,7 @@ public class DashboardService {
 
         double avg = 0.0;
         try {
-            avg = transcriptService.generateTranscript(studentId).getGlobalAverage();
+            avg = transcriptCache.get(studentId).getGlobalAverage();
         } catch (Exception e) {
             avg = 0.0;
         }
@@ -59,14 +69,20 @@ public class DashboardService {
         List<Grade> recentGrades = gradeRepo.findRecentGrades(studentId, PageRequest.of(0, 3));
 
         List<Evaluation> nextExams = List.of();
+        ClassRanking ranking = null;
         if (student.getClassroom() != null) {
             nextExams = evalRepo.findUpcomingExams(student.getClassroom().getId(), PageRequest.of(0, 3));
+            ranking = rankingService.getRanking(student.getClassroom().getId());
         }
 
         return DashboardStats.StudentStats.builder()
                 .globalAverage(avg)
+                .rank(ranking != null ? ranking.rankOf(studentId) : null)
+                .classSize(ranking != null ? ranking.size() : null)
+                .percentile(ranking != null ? ranking.percentileOf(studentId) : null)
                 .recentGrades(recentGrades)
                 .upcomingExams(nextExams)
+                .attendanceRate(attendanceAnalytics.getStudentTotals(studentId).getPresenceRate())
                 .build();
     }
 }
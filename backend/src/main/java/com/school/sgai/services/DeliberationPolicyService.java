@@ -0,0 +1,87 @@
+package com.school.sgai.services;
+
+import com.school.sgai.entities.DeliberationPolicy;
+import com.school.sgai.entities.Program;
+import com.school.sgai.entities.Subject;
+import com.school.sgai.events.DeliberationPolicyChangedEvent;
+import com.school.sgai.repositories.DeliberationPolicyRepository;
+import com.school.sgai.repositories.ProgramRepository;
+import com.school.sgai.services.grading.DeliberationRules;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Règles de délibération par filière, compilées une fois puis gardées en mémoire
+ * jusqu'à la prochaine modification de la politique.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class DeliberationPolicyService {
+
+    private final DeliberationPolicyRepository policyRepo;
+    private final ProgramRepository programRepo;
+    private final ApplicationEventPublisher events;
+
+    // programId -> règles compilées (0L pour une classe sans filière)
+    private final Map<Long, DeliberationRules> compiled = new ConcurrentHashMap<>();
+
+    public DeliberationRules rulesForProgram(Program program) {
+        if (program == null) return DeliberationRules.DEFAULT;
+        return compiled.computeIfAbsent(program.getId(),
+                id -> DeliberationRules.compile(policyRepo.findByProgramId(id).orElse(null)));
+    }
+
+    /**
+     * Notes éliminatoires alignées sur l'ordre des matières (NaN = pas de note éliminatoire).
+     */
+    public static double[] eliminatoryMinimums(List<Subject> subjects) {
+        double[] minimums = new double[subjects.size()];
+        for (int i = 0; i < subjects.size(); i++) {
+            Double min = subjects.get(i).getEliminatoryMinimum();
+            minimums[i] = min != null ? min : Double.NaN;
+        }
+        return minimums;
+    }
+
+    public Map<Long, DeliberationPolicy> getPoliciesByProgram() {
+        Map<Long, DeliberationPolicy> policies = new HashMap<>();
+        for (DeliberationPolicy p : policyRepo.findAll()) policies.put(p.getProgram().getId(), p);
+        return policies;
+    }
+
+    public DeliberationPolicy savePolicy(Long programId, DeliberationPolicy form) {
+        Program program = programRepo.findById(programId)
+                .orElseThrow(() -> new RuntimeException("Filière introuvable"));
+        if (form.getConditionalThreshold() != null && form.getConditionalThreshold() > form.getPassThreshold()) {
+            throw new RuntimeException("Le seuil d'admission conditionnelle doit être inférieur au seuil d'admission");
+        }
+
+        DeliberationPolicy policy = policyRepo.findByProgramId(programId)
+                .orElseGet(() -> DeliberationPolicy.builder().program(program).build());
+        policy.setPassThreshold(form.getPassThreshold());
+        policy.setConditionalThreshold(form.getConditionalThreshold());
+        policy.setCompensation(form.isCompensation());
+        policy.setSubjectPassMark(form.getSubjectPassMark());
+        policy.setMaxDebts(form.getMaxDebts());
+        DeliberationPolicy saved = policyRepo.save(policy);
+
+        compiled.remove(programId);
+        events.publishEvent(new DeliberationPolicyChangedEvent(programId));
+        return saved;
+    }
+
+    // Après le commit : un calcul lancé pendant la transaction a pu recompiler l'ancienne politique
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPolicyChanged(DeliberationPolicyChangedEvent event) {
+        compiled.remove(event.getProgramId());
+    }
+}
@@ -1,15 +1,20 @@
 package com.school.sgai.services;
 
+import com.school.sgai.dto.transcript.SubjectStatDTO;
 import com.school.sgai.dto.transcript.TranscriptDTO;
-import com.school.sgai.entities.Student;
+import com.school.sgai.entities.*;
 import com.school.sgai.enums.ValidationStatus;
+import com.school.sgai.events.ResultsChangedEvent;
 import com.school.sgai.repositories.AppUserRepository;
+import com.school.sgai.repositories.ClassroomRepository;
+import com.school.sgai.repositories.DeliberationSnapshotRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.LocalDateTime;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -18,14 +23,16 @@ public class DeliberationService {
 
     private final AcademicService academicService;
     private final TranscriptService transcriptService;
+    private final ClassRankingService rankingService;
     private final AppUserRepository userRepo;
+    private final ClassroomRepository classroomRepo;
+    private final DeliberationSnapshotRepository snapshotRepo;
+    private final ApplicationEventPublisher events;
 
     public List<TranscriptDTO> getJuryBoard(Long classroomId) {
-        List<Student> students = userRepo.findStudentsByClassroomId(classroomId);
-
-        return students.stream()
-                .map(s -> transcriptService.generateTranscript(s.getId()))
-                .collect(Collectors.toList());
+        List<TranscriptDTO> board = transcriptService.generateClassTranscripts(classroomId);
+        rankingService.rank(classroomId, board);
+        return board;
     }
 
     public void validateStudent(Long studentId, String decision) {
@@ -33,12 +40,85 @@ public class DeliberationService {
         student.setAcademicStatus(ValidationStatus.VALIDATED);
         student.setJuryDecision(decision);
         userRepo.save(student);
+        events.publishEvent(ResultsChangedEvent.forStudents(student.getClassroom().getId(), Set.of(studentId)));
     }
 
-    public void validateClassroom(Long classroomId) {
+    /**
+     * Validation de toute la classe en une passe : le tableau du jury est calculé une fois,
+     * les décisions sont appliquées par UPDATE groupés (un par décision) et le PV est figé
+     * dans un DeliberationSnapshot.
+     * Les étudiants déjà validés individuellement gardent leur décision (surcharge du jury).
+     */
+    public DeliberationSnapshot validateClassroom(Long classroomId, String validatedBy) {
+        Classroom classroom = classroomRepo.findById(classroomId)
+                .orElseThrow(() -> new RuntimeException("Classe introuvable"));
         List<TranscriptDTO> board = getJuryBoard(classroomId);
-        for(TranscriptDTO t : board) {
-            validateStudent(t.getStudent().getId(), t.getFinalDecision());
+
+        Map<String, List<Long>> idsByDecision = new HashMap<>();
+        List<DeliberationSnapshotLine> lines = new ArrayList<>(board.size());
+        List<DeliberationSnapshotSubject> subjectAverages = new ArrayList<>();
+        for (TranscriptDTO t : board) {
+            Student s = t.getStudent();
+            String decision = t.getFinalDecision();
+            if (s.getAcademicStatus() == ValidationStatus.VALIDATED && s.getJuryDecision() != null) {
+                decision = s.getJuryDecision();
+            } else {
+                idsByDecision.computeIfAbsent(decision, d -> new ArrayList<>()).add(s.getId());
+            }
+
+            lines.add(DeliberationSnapshotLine.builder()
+                    .studentId(s.getId())
+                    .studentIdNumber(s.getStudentIdNumber())
+                    .lastName(s.getLastName())
+                    .firstName(s.getFirstName())
+                    .globalAverage(t.getGlobalAverage())
+                    .studentRank(t.getRank())
+                    .decision(decision)
+                    .build());
+            for (SubjectStatDTO stat : t.getSubjects()) {
+                subjectAverages.add(DeliberationSnapshotSubject.builder()
+                        .studentId(s.getId())
+                        .subjectName(stat.getSubjectName())
+                        .coefficient(stat.getCoefficient())
+                        .average(stat.getAverage())
+                        .build());
+            }
+        }
+
+        idsByDecision.forEach((decision, ids) -> userRepo.updateJuryDecision(ids, ValidationStatus.VALIDATED, decision));
+
+        DeliberationSnapshot snapshot = snapshotRepo.save(DeliberationSnapshot.builder()
+                .classroom(classroomRepo.getReferenceById(classroomId))
+                .className(classroom.getName())
+                .academicYear(classroom.getAcademicYear() != null ? classroom.getAcademicYear().getCode() : "N/A")
+                .createdAt(LocalDateTime.now())
+                .validatedBy(validatedBy)
+                .lines(lines)
+                .subjectAverages(subjectAverages)
+                .build());
+
+        events.publishEvent(ResultsChangedEvent.forClassroom(classroomId));
+        return snapshot;
+    }
+
+    // ==========================================
+    // PV FIGÉS
+    // ==========================================
+
+    public List<DeliberationSnapshot> getSnapshots(Long classroomId) {
+        return snapshotRepo.findByClassroomIdOrderByIdDesc(classroomId);
+    }
+
+    public Map<Long, DeliberationSnapshot> getLatestSnapshots() {
+        Map<Long, DeliberationSnapshot> latest = new HashMap<>();
+        for (DeliberationSnapshot s : snapshotRepo.findLatestPerClassroom()) {
+            latest.put(s.getClassroom().getId(), s);
         }
+        return latest;
+    }
+
+    public DeliberationSnapshot getSnapshot(Long snapshotId) {
+        return snapshotRepo.findWithLinesById(snapshotId)
+                .orElseThrow(() -> new RuntimeException("PV introuvable"));
     }
 }
@@ -0,0 +1,138 @@
+package com.school.sgai.services;
+
+import com.school.sgai.entities.DeliberationPolicy;
+import com.school.sgai.entities.Student;
+import com.school.sgai.events.ResultsChangedEvent;
+import com.school.sgai.services.grading.ClassroomGradeMatrix;
+import com.school.sgai.services.grading.DeliberationRules;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Matrices de notes par classe gardées en mémoire pour les simulations du jury
+ * ("et si...") : chaque scénario se calcule sur des tableaux primitifs, sans requête.
+ * Une matrice est rechargée au premier accès qui suit un changement de résultats.
+ */
+@Service
+@RequiredArgsConstructor
+public class GradeMatrixService {
+
+    private final TranscriptService transcriptService;
+    private final DeliberationPolicyService policyService;
+
+    private final Map<Long, ClassroomGradeMatrix> matrices = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong();
+
+    public ClassroomGradeMatrix getMatrix(Long classroomId) {
+        ClassroomGradeMatrix cached = matrices.get(classroomId);
+        if (cached != null) return cached;
+
+        long startEpoch = epoch.get();
+        ClassroomGradeMatrix matrix = transcriptService.loadGradeMatrix(classroomId);
+        if (epoch.get() == startEpoch) matrices.put(classroomId, matrix);
+        return matrix;
+    }
+
+    /**
+     * Note minimale à obtenir sur une évaluation pour atteindre la moyenne cible, par étudiant.
+     */
+    public Map<String, Object> minimumScores(Long classroomId, Long evaluationId, double target) {
+        ClassroomGradeMatrix matrix = getMatrix(classroomId);
+        Integer evalSlot = matrix.evaluationSlot(evaluationId);
+        if (evalSlot == null) throw new RuntimeException("Cette évaluation n'appartient pas à la classe");
+
+        long start = System.nanoTime();
+        double[] needed = matrix.minimumScoresFor(evalSlot, target);
+        long elapsed = System.nanoTime() - start;
+
+        List<Map<String, Object>> students = new ArrayList<>();
+        for (int s = 0; s < matrix.studentCount(); s++) {
+            Student student = matrix.getStudents().get(s);
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("student_id", student.getId());
+            line.put("name", student.getLastName() + " " + student.getFirstName());
+            line.put("current_score", matrix.score(s, evalSlot));
+            line.put("minimum_score", Double.isNaN(needed[s]) ? null : needed[s]);
+            line.put("reachable", !Double.isNaN(needed[s]));
+            students.add(line);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("evaluation_id", evaluationId);
+        result.put("target", target);
+        result.put("students", students);
+        result.put("computation_micros", elapsed / 1000);
+        return result;
+    }
+
+    /**
+     * Taux de réussite de la classe si le coefficient d'une matière change.
+     */
+    public Map<String, Object> passRateWithCoefficient(Long classroomId, Long subjectId, int coefficient, double threshold) {
+        ClassroomGradeMatrix matrix = getMatrix(classroomId);
+        Integer subjectSlot = matrix.subjectSlot(subjectId);
+        if (subjectSlot == null) throw new RuntimeException("Cette matière n'appartient pas à la classe");
+
+        long start = System.nanoTime();
+        double current = matrix.passRate(matrix.subjectCoefficients(), threshold);
+        double simulated = matrix.passRateWithCoefficient(subjectSlot, coefficient, threshold);
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("subject_id", subjectId);
+        result.put("current_coefficient", matrix.subjectCoefficient(subjectSlot));
+        result.put("simulated_coefficient", coefficient);
+        result.put("current_pass_rate", current);
+        result.put("simulated_pass_rate", simulated);
+        result.put("student_count", matrix.studentCount());
+        result.put("computation_micros", elapsed / 1000);
+        return result;
+    }
+
+    /**
+     * Décisions de la classe avec une politique de délibération en projet, comparées aux règles en vigueur.
+     */
+    public Map<String, Object> decisionsWithPolicy(Long classroomId, DeliberationPolicy draft) {
+        ClassroomGradeMatrix matrix = getMatrix(classroomId);
+        DeliberationRules currentRules = matrix.studentCount() > 0
+                ? policyService.rulesForProgram(matrix.getStudents().get(0).getClassroom().getProgram())
+                : DeliberationRules.DEFAULT;
+        double[] minimums = DeliberationPolicyService.eliminatoryMinimums(matrix.getSubjects());
+
+        long start = System.nanoTime();
+        String[] current = matrix.decisions(currentRules, minimums);
+        String[] simulated = matrix.decisions(DeliberationRules.compile(draft), minimums);
+        long elapsed = System.nanoTime() - start;
+
+        int changed = 0;
+        for (int s = 0; s < current.length; s++) if (!current[s].equals(simulated[s])) changed++;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("current", countDecisions(current));
+        result.put("simulated", countDecisions(simulated));
+        result.put("changed_decisions", changed);
+        result.put("student_count", matrix.studentCount());
+        result.put("computation_micros", elapsed / 1000);
+        return result;
+    }
+
+    private Map<String, Integer> countDecisions(String[] decisions) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put(DeliberationRules.ADMITTED, 0);
+        counts.put(DeliberationRules.CONDITIONAL, 0);
+        counts.put(DeliberationRules.FAILED, 0);
+        for (String d : decisions) counts.merge(d, 1, Integer::sum);
+        return counts;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onResultsChanged(ResultsChangedEvent event) {
+        epoch.incrementAndGet();
+        if (event.getClassroomId() != null) matrices.remove(event.getClassroomId());
+    }
+}
@@ -3,14 +3,14 @@ package com.school.sgai.services;
 
 import com.school.sgai.dto.GradeInputWrapper;
 import com.school.sgai.entities.*;
-import com.school.sgai.enums.AbsenceStatus;
 import com.school.sgai.enums.ValidationStatus;
 import com.school.sgai.repositories.*;
+import com.school.sgai.services.grading.GradeChange;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,16 +23,31 @@ public class GradingService {
     private final GradeRepository gradeRepo;
     private final SubjectRepository subjectRepo;
     private final AppUserRepository userRepo;
-    private final AttendanceRepository attendanceRepo;
+    private final SubjectAverageService averageService;
 
     public Evaluation createEvaluation(Evaluation eval, Long subjectId) {
         Subject subject = subjectRepo.findById(subjectId).orElseThrow();
         eval.setSubject(subject);
-        return evalRepo.save(eval);
+        Evaluation saved = evalRepo.save(eval);
+        averageService.evaluationCreated(saved);
+        return saved;
+    }
+
+    public Long deleteEvaluation(Long evaluationId) {
+        Evaluation eval = evalRepo.findById(evaluationId).orElseThrow(() -> new RuntimeException("Évaluation introuvable"));
+        List<Grade> grades = gradeRepo.findByEvaluationId(evaluationId);
+        if (grades.stream().anyMatch(g -> g.getStudent().getAcademicStatus() == ValidationStatus.VALIDATED)) {
+            throw new RuntimeException("Suppression impossible : des résultats de cette évaluation ont déjà été validés par le jury.");
+        }
+        averageService.evaluationDeleted(eval, grades);
+        gradeRepo.deleteAll(grades);
+        evalRepo.delete(eval);
+        return eval.getSubject().getId();
     }
 
     public void saveGradesBulk(GradeInputWrapper form) {
         Evaluation eval = evalRepo.findById(form.getEvaluationId()).orElseThrow();
+        List<GradeChange> changes = new ArrayList<>();
 
         for (GradeInputWrapper.StudentGradeDTO dto : form.getStudentGrades()) {
             if (dto.getScore() != null) {
@@ -44,9 +59,11 @@ public class GradingService {
 
                 if (existing.isPresent()) {
                     Grade g = existing.get();
+                    changes.add(new GradeChange(student.getId(), g.getScore(), dto.getScore()));
                     g.setScore(dto.getScore());
                     gradeRepo.save(g);
                 } else {
+                    changes.add(new GradeChange(student.getId(), null, dto.getScore()));
                     Grade newGrade = Grade.builder()
                             .student(student)
                             .evaluation(eval)
@@ -56,21 +73,8 @@ public class GradingService {
                 }
             }
         }
-    }
-    public void saveAttendanceBulk(Long subjectId, LocalDate date, List<Long> absentStudentIds) {
-        Subject subject = subjectRepo.findById(subjectId).orElseThrow();
-        List<Student> students = subject.getClassroom().getStudents();
-
-        for (Student s : students) {
-            AbsenceStatus status = absentStudentIds.contains(s.getId()) ? AbsenceStatus.ABSENT : AbsenceStatus.PRESENT;
-
-            Attendance att = Attendance.builder()
-                    .date(date)
-                    .student(s)
-                    .subject(subject)
-                    .status(status)
-                    .build();
-            attendanceRepo.save(att);
-        }
+        averageService.applyGradeChanges(eval, changes);
+        // Notes modifiées à la main : le prochain import du même fichier doit être rejoué
+        if (!changes.isEmpty()) eval.setLastImportHash(null);
     }
 }
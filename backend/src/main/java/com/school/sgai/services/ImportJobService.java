@@ -0,0 +1,328 @@
+package com.school.sgai.services;
+
+import com.school.sgai.entities.ImportJob;
+import com.school.sgai.entities.ImportJobError;
+import com.school.sgai.enums.ImportType;
+import com.school.sgai.enums.JobStatus;
+import com.school.sgai.enums.RowOutcome;
+import com.school.sgai.repositories.ImportJobErrorRepository;
+import com.school.sgai.repositories.ImportJobRepository;
+import com.school.sgai.services.imports.ImportSink;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports CSV exécutés en arrière-plan.
+ *
+ * Le fichier reçu est copié dans le répertoire de spool, puis traité par lots committés
+ * sur un pool borné. Chaque lot committe aussi la progression du job (dernière ligne,
+ * compteurs, erreurs) : au redémarrage, un job interrompu reprend après son dernier lot.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+
+    private final ImportJobRepository jobRepo;
+    private final ImportJobErrorRepository errorRepo;
+    private final ImportService importService;
+
+    @Value("${sgai.import.workers:1}")
+    private int workers;
+
+    @Value("${sgai.import.queue-capacity:10}")
+    private int queueCapacity;
+
+    @Value("${sgai.import.spool-dir:${java.io.tmpdir}/sgai-imports}")
+    private String spoolDir;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "import-worker-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    // Jobs interrompus par un arrêt de l'application : repris après leur dernier lot committé
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        for (ImportJob job : jobRepo.findByStatusIn(List.of(JobStatus.QUEUED, JobStatus.RUNNING))) {
+            if (job.getSpoolPath() == null || !Files.exists(Path.of(job.getSpoolPath()))) {
+                finish(job.getId(), JobStatus.FAILED, "Fichier d'import perdu au redémarrage du serveur");
+                continue;
+            }
+            job.setStatus(JobStatus.QUEUED);
+            jobRepo.save(job);
+            try {
+                executor.execute(() -> run(job.getId()));
+            } catch (RejectedExecutionException e) {
+                finish(job.getId(), JobStatus.FAILED, "File d'attente pleine au redémarrage");
+            }
+        }
+    }
+
+    public ImportJob submit(ImportType type, Long targetId, MultipartFile file, String separator,
+                            boolean withActivation, String requestedBy) {
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new RuntimeException("Trop d'imports en attente, réessayez dans quelques instants.");
+        }
+
+        ImportJob job = jobRepo.save(ImportJob.builder()
+                .type(type)
+                .targetId(targetId)
+                .separator(separator)
+                .withActivation(withActivation)
+                .status(JobStatus.QUEUED)
+                .requestedBy(requestedBy)
+                .originalFileName(file.getOriginalFilename())
+                .createdAt(LocalDateTime.now())
+                .build());
+        try {
+            Path dir = Path.of(spoolDir);
+            Files.createDirectories(dir);
+            Path spool = dir.resolve("import-" + job.getId() + ".csv");
+            file.transferTo(spool);
+            job.setSpoolPath(spool.toAbsolutePath().toString());
+            job = jobRepo.save(job);
+        } catch (IOException e) {
+            finish(job.getId(), JobStatus.FAILED, "Impossible d'enregistrer le fichier : " + e.getMessage());
+            throw new RuntimeException("Impossible d'enregistrer le fichier d'import");
+        }
+
+        Long jobId = job.getId();
+        try {
+            executor.execute(() -> run(jobId));
+        } catch (RejectedExecutionException e) {
+            finish(jobId, JobStatus.FAILED, "File d'attente pleine");
+            throw new RuntimeException("Trop d'imports en attente, réessayez dans quelques instants.");
+        }
+        return job;
+    }
+
+    public ImportJob getJob(Long jobId) {
+        return jobRepo.findById(jobId).orElseThrow(() -> new RuntimeException("Import introuvable"));
+    }
+
+    public List<ImportJobError> getErrors(Long jobId, int limit) {
+        return errorRepo.findByJobId(jobId, PageRequest.of(0, limit));
+    }
+
+    public Map<String, Object> status(ImportJob job) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("job_id", job.getId());
+        status.put("type", job.getType());
+        status.put("status", job.getStatus());
+        status.put("rows_done", job.getRowsDone());
+        status.put("success_count", job.getSuccessCount());
+        status.put("error_count", job.getErrorCount());
+        if (job.getType() == ImportType.GRADES) {
+            status.put("created_count", job.getCreatedCount());
+            status.put("updated_count", job.getUpdatedCount());
+            status.put("unchanged_count", job.getUnchangedCount());
+            status.put("unchanged_file", job.isUnchangedFile());
+        }
+        status.put("error", job.getErrorMessage());
+        return status;
+    }
+
+    // Liens d'activation des comptes créés par le job : téléchargeables une seule fois
+    public Path activationLinks(ImportJob job) {
+        Path path = activationsPath(job.getId());
+        if (!job.isFinished() || !Files.exists(path)) throw new RuntimeException("Aucun lien d'activation disponible");
+        return path;
+    }
+
+    public void discardActivationLinks(ImportJob job) throws IOException {
+        Files.deleteIfExists(activationsPath(job.getId()));
+    }
+
+    private Path activationsPath(Long jobId) {
+        return Path.of(spoolDir).resolve("import-" + jobId + "-activations.csv");
+    }
+
+    // ==========================================
+    // EXÉCUTION (threads du pool)
+    // ==========================================
+
+    void run(Long jobId) {
+        try {
+            ImportJob job = getJob(jobId);
+            job.setStatus(JobStatus.RUNNING);
+            if (job.getStartedAt() == null) job.setStartedAt(LocalDateTime.now());
+            job = jobRepo.save(job);
+
+            Path spool = Path.of(job.getSpoolPath());
+            if (job.getType() == ImportType.GRADES && job.getLastCommittedRow() <= 1) {
+                // Fichier identique au dernier import de l'évaluation : rien à réécrire
+                String hash;
+                try (InputStream in = Files.newInputStream(spool)) {
+                    hash = ImportService.fileHash(in);
+                }
+                if (importService.isLastImportedFile(job.getTargetId(), hash)) {
+                    job.setUnchangedFile(true);
+                    jobRepo.save(job);
+                    Files.deleteIfExists(spool);
+                    finish(jobId, JobStatus.DONE, null);
+                    return;
+                }
+            }
+
+            JobSink sink = new JobSink(jobId);
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(spool))) {
+                if (job.getType() == ImportType.STUDENTS) {
+                    importService.importStudents(in, job.getSeparator(), job.isWithActivation(), sink, job.getLastCommittedRow());
+                } else {
+                    importService.importGrades(in, job.getTargetId(), job.getSeparator(), sink, job.getLastCommittedRow());
+                }
+            }
+            // Erreur de lecture (ligne 0) signalée après le dernier lot
+            sink.committed(Integer.MAX_VALUE);
+
+            Files.deleteIfExists(spool);
+            finish(jobId, JobStatus.DONE, null);
+        } catch (Exception e) {
+            finish(jobId, JobStatus.FAILED, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    // Un job resté RUNNING serait repris (et échouerait de même) à chaque démarrage
+    private void finish(Long jobId, JobStatus status, String error) {
+        try {
+            jobRepo.findById(jobId).ifPresent(job -> {
+                job.setStatus(status);
+                job.setErrorMessage(truncate(error));
+                job.setFinishedAt(LocalDateTime.now());
+                jobRepo.save(job);
+            });
+        } catch (RuntimeException e) {
+            logger.error("Impossible de clore le job d'import {}", jobId, e);
+        }
+    }
+
+    // Les messages des erreurs SQL contiennent la requête : tronqués à la taille des colonnes
+    private static String truncate(String message) {
+        return message != null && message.length() > ImportJob.ERROR_LENGTH
+                ? message.substring(0, ImportJob.ERROR_LENGTH) : message;
+    }
+
+    /**
+     * Résultats ligne à ligne gardés en mémoire jusqu'au commit du lot qui les couvre,
+     * puis écrits dans la même transaction que les données du lot.
+     */
+    private class JobSink implements ImportSink {
+
+        private final Long jobId;
+        private int pendingSuccess;
+        private final Map<RowOutcome, Integer> pendingOutcomes = new EnumMap<>(RowOutcome.class);
+        private final List<ImportJobError> pendingErrors = new ArrayList<>();
+        private final List<String[]> pendingActivations = new ArrayList<>();
+
+        JobSink(Long jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public void success(int row) {
+            pendingSuccess++;
+        }
+
+        @Override
+        public void success(int row, RowOutcome outcome) {
+            pendingSuccess++;
+            pendingOutcomes.merge(outcome, 1, Integer::sum);
+        }
+
+        @Override
+        public void error(int row, String message) {
+            pendingErrors.add(ImportJobError.builder().rowNumber(row).message(truncate(message)).build());
+        }
+
+        @Override
+        public void activation(int row, String username, String token) {
+            pendingActivations.add(new String[] { String.valueOf(row), username, token });
+        }
+
+        @Override
+        public void committed(int lastRow) {
+            ImportJob job = getJob(jobId);
+
+            // Les erreurs de lecture du lot suivant (déjà lu) attendent le commit de ce lot-là
+            List<ImportJobError> flushed = new ArrayList<>();
+            for (Iterator<ImportJobError> it = pendingErrors.iterator(); it.hasNext(); ) {
+                ImportJobError e = it.next();
+                if (e.getRowNumber() <= lastRow) {
+                    e.setJob(job);
+                    flushed.add(e);
+                    it.remove();
+                }
+            }
+            errorRepo.saveAll(flushed);
+            writeActivations(lastRow);
+
+            job.setSuccessCount(job.getSuccessCount() + pendingSuccess);
+            job.setErrorCount(job.getErrorCount() + flushed.size());
+            job.setCreatedCount(job.getCreatedCount() + pendingOutcomes.getOrDefault(RowOutcome.CREATED, 0));
+            job.setUpdatedCount(job.getUpdatedCount() + pendingOutcomes.getOrDefault(RowOutcome.UPDATED, 0));
+            job.setUnchangedCount(job.getUnchangedCount() + pendingOutcomes.getOrDefault(RowOutcome.UNCHANGED, 0));
+            if (lastRow != Integer.MAX_VALUE) job.setLastCommittedRow(Math.max(job.getLastCommittedRow(), lastRow));
+            jobRepo.save(job);
+            pendingSuccess = 0;
+            pendingOutcomes.clear();
+        }
+
+        private void writeActivations(int lastRow) {
+            if (pendingActivations.isEmpty()) return;
+            try {
+                Files.createDirectories(Path.of(spoolDir));
+                try (BufferedWriter out = Files.newBufferedWriter(activationsPath(jobId),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (Iterator<String[]> it = pendingActivations.iterator(); it.hasNext(); ) {
+                        String[] a = it.next();
+                        if (Integer.parseInt(a[0]) > lastRow) continue;
+                        out.write(a[1] + ";/activate?token=" + a[2]);
+                        out.newLine();
+                        it.remove();
+                    }
+                }
+            } catch (IOException e) {
+                // Fait échouer le lot : ses comptes seraient créés sans lien d'activation
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
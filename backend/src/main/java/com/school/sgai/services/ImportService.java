@@ -4,19 +4,43 @@ package com.school.sgai.services;
 import com.opencsv.CSVParser;
 import com.opencsv.CSVParserBuilder;
 import com.school.sgai.dto.ImportReport; // A créer (voir plus bas)
+import com.school.sgai.dto.StudentKey;
+import com.school.sgai.dto.transcript.GradeCell;
 import com.school.sgai.entities.*;
-import com.school.sgai.enums.Role;
+import com.school.sgai.enums.RowOutcome;
+import com.school.sgai.enums.ValidationStatus;
+import com.school.sgai.events.ResultsChangedEvent;
 import com.school.sgai.repositories.*;
+import com.school.sgai.repositories.GradeBatchRepository.GradeRow;
+import com.school.sgai.repositories.StudentBatchRepository.NewStudent;
+import com.school.sgai.services.AccountActivationService.IssuedToken;
+import com.school.sgai.services.grading.GradeChange;
+import com.school.sgai.services.imports.ImportSink;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
-import java.util.Optional;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
@@ -27,129 +51,488 @@ public class ImportService {
     private final PasswordEncoder passwordEncoder;
     private final EvaluationRepository evalRepo;
     private final GradeRepository gradeRepo;
+    private final SubjectAverageService averageService;
+    private final StudentBatchRepository studentBatchRepo;
+    private final GradeBatchRepository gradeBatchRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
+    private final AccountActivationService activationService;
+
+    private static final String DEFAULT_PASSWORD = "1234";
+
+    // Nombre de lignes écrites (et committées) ensemble pendant un import
+    @Value("${sgai.import.chunk-size:500}")
+    private int chunkSize;
+
+    // Threads de hachage BCrypt (0 = un par cœur)
+    @Value("${sgai.import.hash-workers:0}")
+    private int hashWorkers;
+
+    private ExecutorService hashPool;
+
+    @PostConstruct
+    void startHashPool() {
+        int threads = hashWorkers > 0 ? hashWorkers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        hashPool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "import-hash-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void stopHashPool() {
+        hashPool.shutdownNow();
+    }
 
     // ==========================================
     // 1. IMPORT ADMIN : ÉTUDIANTS
     // Format CSV : Prenom;Nom;Email;Username;CNE;CodeClasse
     // Exemple : Jean;Dupont;j.dup@school.com;jdup;D13000;CI1-GINF-2024
+    //
+    // Le fichier est lu au fil de l'eau et écrit par lots de chunkSize lignes (JDBC batch,
+    // un commit par lot) ; les classes sont chargées une seule fois.
+    // Les mots de passe sont hachés (BCrypt) en parallèle sur le pool d'import pendant la lecture
+    // du lot suivant ; au plus deux lots sont en mémoire. Avec withActivation, aucun mot de passe
+    // n'est haché : chaque compte reçoit un lien d'activation à usage unique.
     // ==========================================
-    public ImportReport importStudents(MultipartFile file, String separatorChoice) {
-
+    public ImportReport importStudents(MultipartFile file, String separatorChoice, boolean withActivation) {
         ImportReport report = new ImportReport();
+        try (InputStream in = file.getInputStream()) {
+            importStudents(in, separatorChoice, withActivation, ImportSink.of(report), 0);
+        } catch (IOException e) {
+            report.addError(0, "Erreur lecture fichier : " + e.getMessage());
+        }
+        return report;
+    }
+
+    /**
+     * @param resumeAfterRow lignes déjà committées par un job interrompu : relues pour les
+     *                       contrôles de doublons dans le fichier, mais ni écrites ni rapportées
+     */
+    public void importStudents(InputStream in, String separatorChoice, boolean withActivation,
+                               ImportSink sink, int resumeAfterRow) {
+        processStudents(in, separatorChoice, withActivation, sink, resumeAfterRow, false);
+    }
+
+    /**
+     * Validation seule : mêmes contrôles que l'import (lots, requêtes ensemblistes), sans
+     * aucune écriture. Les lignes valides sont rapportées comme succès.
+     */
+    public void validateStudents(InputStream in, String separatorChoice, ImportSink sink) {
+        processStudents(in, separatorChoice, false, sink, 0, true);
+    }
+
+    private void processStudents(InputStream in, String separatorChoice, boolean withActivation,
+                                 ImportSink sink, int resumeAfterRow, boolean dryRun) {
         char separator = separatorChoice.charAt(0);
-        try (Reader reader = new InputStreamReader(file.getInputStream())) {
-            CSVParser parser = new CSVParserBuilder()
-                    .withSeparator(separator)
-                    .build();
-            CSVReader csvReader = new CSVReaderBuilder(reader)
-                    .withCSVParser(parser)
-                    .withSkipLines(1)
-                    .build();
+
+        Map<String, Long> classIds = new HashMap<>();
+        for (Classroom c : classroomRepo.findAll()) classIds.put(c.getName().toLowerCase(), c.getId());
+
+        Set<String> usernamesInFile = new HashSet<>();
+        Set<String> emailsInFile = new HashSet<>();
+        Set<String> cnesInFile = new HashSet<>();
+
+        // Lot dont les hachages tournent pendant la lecture du lot courant
+        StudentChunk hashing = new StudentChunk();
+
+        try (Reader reader = new InputStreamReader(in)) {
+            CSVReader csvReader = csvReader(reader, separator);
 
             String[] line;
             int row = 1;
+            StudentChunk chunk = new StudentChunk();
+            // Un lot couvre chunkSize lignes du fichier, valides ou non : les résultats en attente restent bornés
+            int chunkEnd = Math.max(resumeAfterRow, 1) + chunkSize;
 
             while ((line = csvReader.readNext()) != null) {
                 row++;
+                if (row > chunkEnd) {
+                    chunk.lastRow = chunkEnd;
+                    writeStudentChunk(hashing, sink, dryRun);
+                    hashing = chunk;
+                    chunk = new StudentChunk();
+                    chunkEnd += chunkSize;
+                }
+                ImportSink rowSink = row <= resumeAfterRow ? ImportSink.IGNORE : sink;
+                if (line.length < 6) {
+                    rowSink.error(row, "Colonnes manquantes");
+                    continue;
+                }
+
+                String firstName = line[0].trim();
+                String lastName = line[1].trim();
+                String email = line[2].trim().isEmpty() ? null : line[2].trim();
+                String username = line[3].trim();
+                String cne = line[4].trim().isEmpty() ? null : line[4].trim();
+                String classCode = line[5].trim();
+
+                Long classroomId = classIds.get(classCode.toLowerCase());
+                if (classroomId == null) {
+                    rowSink.error(row, "Classe inconnue : " + classCode);
+                    continue;
+                }
+                if (!usernamesInFile.add(username)) {
+                    rowSink.error(row, "Identifiant en double dans le fichier : " + username);
+                    continue;
+                }
+                if (email != null && !emailsInFile.add(email)) {
+                    rowSink.error(row, "Email en double dans le fichier : " + email);
+                    continue;
+                }
+                if (cne != null && !cnesInFile.add(cne)) {
+                    rowSink.error(row, "CNE en double dans le fichier : " + cne);
+                    continue;
+                }
+                if (row <= resumeAfterRow) continue;
+
+                if (dryRun) {
+                    NewStudent student = new NewStudent(username, null, firstName, lastName, email, cne, classroomId, null, null);
+                    chunk.rows.add(new StudentRow(row, student, CompletableFuture.completedFuture(null), null));
+                } else if (withActivation) {
+                    IssuedToken token = activationService.issueToken();
+                    NewStudent student = new NewStudent(username, AccountActivationService.PENDING_PASSWORD, firstName,
+                            lastName, email, cne, classroomId, token.tokenHash(), token.expiresAt());
+                    chunk.rows.add(new StudentRow(row, student, CompletableFuture.completedFuture(null), token.token()));
+                } else {
+                    NewStudent student = new NewStudent(username, null, firstName, lastName, email, cne, classroomId, null, null);
+                    chunk.rows.add(new StudentRow(row, student,
+                            CompletableFuture.supplyAsync(() -> passwordEncoder.encode(DEFAULT_PASSWORD), hashPool), null));
+                }
+            }
+            chunk.lastRow = row;
+            writeStudentChunk(hashing, sink, dryRun);
+            hashing = new StudentChunk();
+            writeStudentChunk(chunk, sink, dryRun);
+        } catch (IOException | CsvValidationException e) {
+            sink.error(0, "Erreur lecture fichier : " + e.getMessage());
+        } finally {
+            hashing.rows.forEach(r -> r.passwordHash().cancel(false));
+        }
+    }
+
+    // passwordHash : hachage en cours sur le pool (valeur null pour un compte à activer)
+    private record StudentRow(int row, NewStudent student, CompletableFuture<String> passwordHash, String activationToken) {
+        StudentRow withPassword(String hash) {
+            NewStudent s = student;
+            return new StudentRow(row, new NewStudent(s.username(), hash, s.firstName(), s.lastName(), s.email(),
+                    s.studentIdNumber(), s.classroomId(), s.activationToken(), s.activationExpiresAt()), passwordHash, activationToken);
+        }
+    }
+
+    // Lignes valides d'un lot ; lastRow = dernière ligne du fichier couverte par le lot
+    private static class StudentChunk {
+        final List<StudentRow> rows = new ArrayList<>();
+        int lastRow;
+    }
+
+    /**
+     * Un lot = une transaction : attente des hachages du lot, contrôle des identifiants
+     * déjà pris (3 requêtes), puis insertion JDBC batch. Si le lot est refusé malgré tout
+     * (conflit concurrent), il est rejoué ligne par ligne pour isoler les lignes fautives.
+     * En validation seule (dryRun), seuls les contrôles sont faits.
+     */
+    private void writeStudentChunk(StudentChunk chunk, ImportSink sink, boolean dryRun) {
+        if (chunk.rows.isEmpty()) {
+            if (chunk.lastRow > 0) commitProgress(sink, chunk.lastRow, dryRun);
+            return;
+        }
+        int lastRow = chunk.lastRow;
+
+        List<StudentRow> hashed = new ArrayList<>(chunk.rows.size());
+        for (StudentRow r : chunk.rows) {
+            try {
+                String hash = r.passwordHash().join();
+                hashed.add(hash == null ? r : r.withPassword(hash));
+            } catch (CompletionException | CancellationException e) {
+                sink.error(r.row(), "Erreur de hachage du mot de passe");
+            }
+        }
+
+        Set<String> takenUsernames = studentBatchRepo.findExistingUsernames(
+                hashed.stream().map(r -> r.student().username()).toList());
+        Set<String> takenEmails = studentBatchRepo.findExistingEmails(
+                hashed.stream().map(r -> r.student().email()).filter(Objects::nonNull).toList());
+        Set<String> takenCnes = studentBatchRepo.findExistingStudentIdNumbers(
+                hashed.stream().map(r -> r.student().studentIdNumber()).filter(Objects::nonNull).toList());
+
+        List<StudentRow> valid = new ArrayList<>(hashed.size());
+        for (StudentRow r : hashed) {
+            if (takenUsernames.contains(r.student().username())) {
+                sink.error(r.row(), "Identifiant déjà utilisé : " + r.student().username());
+            } else if (r.student().email() != null && takenEmails.contains(r.student().email())) {
+                sink.error(r.row(), "Email déjà utilisé : " + r.student().email());
+            } else if (r.student().studentIdNumber() != null && takenCnes.contains(r.student().studentIdNumber())) {
+                sink.error(r.row(), "CNE déjà utilisé : " + r.student().studentIdNumber());
+            } else {
+                valid.add(r);
+            }
+        }
+
+        if (dryRun) {
+            valid.forEach(r -> sink.success(r.row()));
+            sink.committed(lastRow);
+            return;
+        }
+
+        List<StudentRow> inserted = new ArrayList<>(valid.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                studentBatchRepo.insertAll(valid.stream().map(StudentRow::student).toList());
+                valid.forEach(r -> reportInserted(r, sink));
+                sink.committed(lastRow);
+            });
+            inserted.addAll(valid);
+        } catch (DataAccessException e) {
+            for (StudentRow r : valid) {
                 try {
-                    if (line.length < 6) throw new Exception("Colonnes manquantes");
-
-                    String firstName = line[0].trim();
-                    String lastName = line[1].trim();
-                    String email = line[2].trim();
-                    String username = line[3].trim();
-                    String cne = line[4].trim();
-                    String classCode = line[5].trim();
-
-                    Optional<Classroom> classOpt = classroomRepo.findAll().stream()
-                            .filter(c -> c.getName().equalsIgnoreCase(classCode))
-                            .findFirst();
-
-                    if (classOpt.isEmpty()) {
-                        report.addError(row, "Classe inconnue : " + classCode);
-                        continue;
-                    }
-
-                    Student s = Student.builder()
-                            .firstName(firstName).lastName(lastName)
-                            .email(email).username(username)
-                            .password(passwordEncoder.encode("1234"))
-                            .role(Role.STUDENT)
-                            .studentIdNumber(cne)
-                            .classroom(classOpt.get())
-                            .build();
-
-                    userRepo.save(s);
-                    report.addSuccess();
-
-                } catch (Exception e) {
-                    report.addError(row, e.getMessage());
+                    transactionTemplate.executeWithoutResult(status -> {
+                        studentBatchRepo.insertAll(List.of(r.student()));
+                        reportInserted(r, sink);
+                    });
+                    inserted.add(r);
+                } catch (DataAccessException rowError) {
+                    sink.error(r.row(), "Insertion refusée : " + rowError.getMostSpecificCause().getMessage());
                 }
             }
-        } catch (Exception e) {
-            report.addError(0, "Erreur lecture fichier : " + e.getMessage());
+            commitProgress(sink, lastRow, false);
         }
-        return report;
+
+        // Nouveaux étudiants : bulletins, classements et matrices des classes concernées à recalculer
+        inserted.stream().map(r -> r.student().classroomId()).distinct()
+                .forEach(id -> events.publishEvent(ResultsChangedEvent.forClassroom(id)));
+    }
+
+    private void reportInserted(StudentRow r, ImportSink sink) {
+        sink.success(r.row());
+        if (r.activationToken() != null) sink.activation(r.row(), r.student().username(), r.activationToken());
+    }
+
+    // Lot sans ligne à écrire (que des erreurs) : son résultat est committé sans écriture de données
+    private void commitProgress(ImportSink sink, int lastRow, boolean dryRun) {
+        if (dryRun) {
+            sink.committed(lastRow);
+        } else {
+            transactionTemplate.executeWithoutResult(status -> sink.committed(lastRow));
+        }
+    }
+
+    private static CSVReader csvReader(Reader reader, char separator) {
+        CSVParser parser = new CSVParserBuilder()
+                .withSeparator(separator)
+                .build();
+        return new CSVReaderBuilder(reader)
+                .withCSVParser(parser)
+                .withSkipLines(1)
+                .build();
     }
 
     // ==========================================
     // 2. IMPORT PROF : NOTES
     // Format CSV : CNE_Etudiant;Note
     // Exemple : D13000;14.5
+    //
+    // Les CNE de la classe et les notes existantes sont chargés une seule fois ; les notes
+    // sont ensuite écrites par lots (MERGE en batch + rollup, un commit par lot).
+    // Import en delta : seules les notes nouvelles ou modifiées sont écrites, et un fichier
+    // identique au dernier import complet de l'évaluation (même SHA-256) est ignoré.
     // ==========================================
     public ImportReport importGrades(MultipartFile file, Long evaluationId, String separatorChoice) {
         ImportReport report = new ImportReport();
+        try {
+            try (InputStream in = file.getInputStream()) {
+                if (isLastImportedFile(evaluationId, fileHash(in))) {
+                    report.setUnchangedFile(true);
+                    return report;
+                }
+            }
+            try (InputStream in = file.getInputStream()) {
+                importGrades(in, evaluationId, separatorChoice, ImportSink.of(report), 0);
+            }
+        } catch (IOException e) {
+            report.addError(0, "Erreur fichier");
+        }
+        return report;
+    }
+
+    public boolean isLastImportedFile(Long evaluationId, String fileHash) {
+        return fileHash.equals(evalRepo.findById(evaluationId).orElseThrow().getLastImportHash());
+    }
+
+    public static String fileHash(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        try (DigestInputStream digesting = new DigestInputStream(in, digest)) {
+            digesting.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void importGrades(InputStream in, Long evaluationId, String separatorChoice,
+                             ImportSink sink, int resumeAfterRow) {
+        processGrades(in, evaluationId, separatorChoice, sink, resumeAfterRow, false);
+    }
+
+    // Validation seule : mêmes contrôles que l'import, aucune note écrite
+    public void validateGrades(InputStream in, Long evaluationId, String separatorChoice, ImportSink sink) {
+        processGrades(in, evaluationId, separatorChoice, sink, 0, true);
+    }
+
+    private void processGrades(InputStream in, Long evaluationId, String separatorChoice,
+                               ImportSink sink, int resumeAfterRow, boolean dryRun) {
         Evaluation eval = evalRepo.findById(evaluationId).orElseThrow();
         char separator = separatorChoice.charAt(0);
 
-        try (Reader reader = new InputStreamReader(file.getInputStream())) {
-            CSVParser parser = new CSVParserBuilder()
-                    .withSeparator(separator)
-                    .build();
-            CSVReader csvReader = new CSVReaderBuilder(reader)
-                    .withCSVParser(parser)
-                    .withSkipLines(1)
-                    .build();
+        Map<String, StudentKey> students = new HashMap<>();
+        for (StudentKey key : userRepo.findKeysByClassroomId(eval.getSubject().getClassroom().getId())) {
+            students.put(key.getStudentIdNumber(), key);
+        }
+        Map<Long, Double> currentScores = new HashMap<>();
+        for (GradeCell cell : gradeRepo.findCellsByEvaluationId(evaluationId)) {
+            currentScores.put(cell.getStudentId(), cell.getScore());
+        }
+
+        Set<Long> seen = new HashSet<>();
+        GradeChunk chunk = new GradeChunk();
+        // Empreinte du fichier calculée pendant la lecture, gardée seulement pour un import
+        // complet et sans erreur (sinon un nouvel envoi doit reproduire le rapport d'erreurs)
+        MessageDigest digest = sha256();
+        ErrorTracking tracked = new ErrorTracking(sink);
+        sink = tracked;
+
+        try (Reader reader = new InputStreamReader(new DigestInputStream(in, digest))) {
+            CSVReader csvReader = csvReader(reader, separator);
             String[] line;
             int row = 1;
+            int chunkEnd = Math.max(resumeAfterRow, 1) + chunkSize;
 
             while ((line = csvReader.readNext()) != null) {
                 row++;
+                if (row > chunkEnd) {
+                    chunk.lastRow = chunkEnd;
+                    writeGradeChunk(eval, chunk, sink, dryRun);
+                    chunk = new GradeChunk();
+                    chunkEnd += chunkSize;
+                }
+                ImportSink rowSink = row <= resumeAfterRow ? ImportSink.IGNORE : sink;
+                if (line.length < 2) {
+                    rowSink.error(row, "Colonnes manquantes");
+                    continue;
+                }
+                String cne = line[0].trim();
+                double score;
                 try {
-                    String cne = line[0].trim();
-                    Double score = Double.parseDouble(line[1].trim());
-
-                    Optional<AppUser> userOpt = userRepo.findAll().stream()
-                            .filter(u -> u instanceof Student && ((Student) u).getStudentIdNumber().equals(cne))
-                            .findFirst();
-
-                    if (userOpt.isEmpty()) {
-                        report.addError(row, "CNE introuvable : " + cne);
-                        continue;
-                    }
-
-                    Student student = (Student) userOpt.get();
-
-                    Optional<Grade> existing = gradeRepo.findByStudentIdAndEvaluationId(student.getId(), eval.getId());
-                    if (existing.isPresent()) {
-                        Grade g = existing.get();
-                        g.setScore(score);
-                        gradeRepo.save(g);
-                    } else {
-                        Grade g = Grade.builder().student(student).evaluation(eval).score(score).build();
-                        gradeRepo.save(g);
-                    }
-                    report.addSuccess();
-
+                    score = Double.parseDouble(line[1].trim());
                 } catch (NumberFormatException e) {
-                    report.addError(row, "Format de note invalide");
-                } catch (Exception e) {
-                    report.addError(row, e.getMessage());
+                    rowSink.error(row, "Format de note invalide");
+                    continue;
+                }
+
+                StudentKey student = students.get(cne);
+                if (student == null) {
+                    // Résolu au niveau du lot : une requête pour tous les CNE hors de la classe
+                    if (row > resumeAfterRow) chunk.unknown.put(row, cne);
+                    continue;
+                }
+                if (student.getAcademicStatus() == ValidationStatus.VALIDATED) {
+                    rowSink.error(row, "Résultats déjà validés par le jury : " + cne);
+                    continue;
+                }
+                if (!seen.add(student.getId())) {
+                    rowSink.error(row, "CNE en double dans le fichier : " + cne);
+                    continue;
+                }
+                if (row <= resumeAfterRow) continue;
+
+                Double current = currentScores.get(student.getId());
+                if (current != null && current == score) {
+                    sink.success(row, RowOutcome.UNCHANGED);
+                    continue;
                 }
+                chunk.add(row, current == null ? RowOutcome.CREATED : RowOutcome.UPDATED,
+                        new GradeRow(student.getId(), score), new GradeChange(student.getId(), current, score));
             }
-        } catch (Exception e) {
-            report.addError(0, "Erreur fichier");
+            chunk.lastRow = row;
+            writeGradeChunk(eval, chunk, sink, dryRun);
+            while (reader.read() != -1) {
+                // Fin du fichier (après la dernière ligne CSV) comprise dans l'empreinte
+            }
+            if (!dryRun && resumeAfterRow <= 1 && !tracked.failed) {
+                String hash = HexFormat.of().formatHex(digest.digest());
+                transactionTemplate.executeWithoutResult(status -> evalRepo.updateLastImportHash(evaluationId, hash));
+            }
+        } catch (IOException | CsvValidationException e) {
+            sink.error(0, "Erreur fichier");
+        }
+    }
+
+    private static class ErrorTracking implements ImportSink {
+        final ImportSink target;
+        boolean failed;
+
+        ErrorTracking(ImportSink target) {
+            this.target = target;
+        }
+
+        @Override public void success(int row) { target.success(row); }
+        @Override public void success(int row, RowOutcome outcome) { target.success(row, outcome); }
+        @Override public void error(int row, String message) { failed = true; target.error(row, message); }
+        @Override public void committed(int lastRow) { target.committed(lastRow); }
+    }
+
+    // Lignes d'un lot ; lastRow = dernière ligne du fichier couverte par le lot
+    private static class GradeChunk {
+        final List<Integer> rows = new ArrayList<>();
+        final List<RowOutcome> outcomes = new ArrayList<>();
+        final List<GradeRow> grades = new ArrayList<>();
+        final List<GradeChange> changes = new ArrayList<>();
+        final Map<Integer, String> unknown = new LinkedHashMap<>();
+        int lastRow;
+
+        void add(int row, RowOutcome outcome, GradeRow grade, GradeChange change) {
+            rows.add(row);
+            outcomes.add(outcome);
+            grades.add(grade);
+            changes.add(change);
+        }
+
+        void reportSuccesses(ImportSink sink) {
+            for (int i = 0; i < rows.size(); i++) sink.success(rows.get(i), outcomes.get(i));
+        }
+    }
+
+    private void writeGradeChunk(Evaluation eval, GradeChunk chunk, ImportSink sink, boolean dryRun) {
+        if (!chunk.unknown.isEmpty()) {
+            // Distingue un CNE inconnu d'un étudiant d'une autre classe
+            Set<String> elsewhere = studentBatchRepo.findExistingStudentIdNumbers(new HashSet<>(chunk.unknown.values()));
+            chunk.unknown.forEach((row, cne) -> sink.error(row, elsewhere.contains(cne)
+                    ? "CNE hors de la classe : " + cne
+                    : "CNE introuvable : " + cne));
+        }
+        if (dryRun || chunk.rows.isEmpty()) {
+            if (dryRun) chunk.reportSuccesses(sink);
+            commitProgress(sink, chunk.lastRow, dryRun);
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                gradeBatchRepo.upsertAll(eval.getId(), chunk.grades);
+                averageService.applyGradeChanges(eval, chunk.changes);
+                chunk.reportSuccesses(sink);
+                sink.committed(chunk.lastRow);
+            });
+        } catch (DataAccessException e) {
+            chunk.rows.forEach(r -> sink.error(r, "Enregistrement refusé : " + e.getMostSpecificCause().getMessage()));
+            commitProgress(sink, chunk.lastRow, false);
         }
-        return report;
     }
 }
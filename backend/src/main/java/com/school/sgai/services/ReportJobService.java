@@ -0,0 +1,274 @@
+package com.school.sgai.services;
+
+import com.school.sgai.dto.transcript.TranscriptDTO;
+import com.school.sgai.entities.Classroom;
+import com.school.sgai.entities.ReportJob;
+import com.school.sgai.enums.JobStatus;
+import com.school.sgai.enums.ReportType;
+import com.school.sgai.repositories.ClassroomRepository;
+import com.school.sgai.repositories.ProgramRepository;
+import com.school.sgai.repositories.ReportJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File de génération des rapports (PV, ZIP de bulletins) hors du thread de la requête.
+ *
+ * Les jobs tournent sur un pool borné avec une file d'attente limitée ; une demande
+ * identique à un job encore en cours renvoie ce job au lieu d'en créer un second.
+ * Le fichier produit est gardé sur disque, la ligne ReportJob garde son statut.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    private final ReportJobRepository jobRepo;
+    private final ClassroomRepository classroomRepo;
+    private final ProgramRepository programRepo;
+    private final DeliberationService deliberationService;
+    private final ReportPdfService pdfService;
+    private final TranscriptExportService exportService;
+
+    @Value("${sgai.reports.workers:2}")
+    private int workers;
+
+    @Value("${sgai.reports.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${sgai.reports.dir:${java.io.tmpdir}/sgai-reports}")
+    private String reportsDir;
+
+    private ThreadPoolExecutor executor;
+
+    // "TYPE:targetId" -> job en attente ou en cours
+    private final Map<String, Long> inFlight = new HashMap<>();
+    private final Map<Long, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void start() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "report-worker-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    // Jobs interrompus par un arrêt de l'application : leur fichier n'a jamais été terminé
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        for (ReportJob job : jobRepo.findByStatusIn(List.of(JobStatus.QUEUED, JobStatus.RUNNING))) {
+            job.setStatus(JobStatus.FAILED);
+            job.setErrorMessage("Interrompu par un redémarrage du serveur");
+            job.setFinishedAt(LocalDateTime.now());
+            jobRepo.save(job);
+        }
+    }
+
+    public synchronized ReportJob submit(ReportType type, Long targetId, String requestedBy) {
+        String key = type + ":" + targetId;
+        Long existing = inFlight.get(key);
+        if (existing != null) return getJob(existing);
+
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new RuntimeException("Trop de rapports en attente, réessayez dans quelques instants.");
+        }
+
+        ReportJob job = jobRepo.save(ReportJob.builder()
+                .type(type)
+                .targetId(targetId)
+                .status(JobStatus.QUEUED)
+                .requestedBy(requestedBy)
+                .createdAt(LocalDateTime.now())
+                .build());
+        inFlight.put(key, job.getId());
+        try {
+            executor.execute(() -> run(job.getId(), key));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+            finish(job.getId(), JobStatus.FAILED, "File d'attente pleine");
+            throw new RuntimeException("Trop de rapports en attente, réessayez dans quelques instants.");
+        }
+        return job;
+    }
+
+    public ReportJob getJob(Long jobId) {
+        return jobRepo.findById(jobId).orElseThrow(() -> new RuntimeException("Rapport introuvable"));
+    }
+
+    public List<ReportJob> getRecentJobs() {
+        return jobRepo.findTop20ByOrderByIdDesc();
+    }
+
+    public Path getArtifact(ReportJob job) {
+        if (job.getStatus() != JobStatus.DONE) throw new RuntimeException("Le rapport n'est pas encore prêt");
+        Path path = Path.of(job.getArtifactPath());
+        if (!Files.exists(path)) throw new RuntimeException("Le fichier du rapport n'existe plus");
+        return path;
+    }
+
+    public Map<String, Object> status(ReportJob job) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("job_id", job.getId());
+        status.put("type", job.getType());
+        status.put("status", job.getStatus());
+        status.put("file_name", job.getFileName());
+        status.put("size_bytes", job.getSizeBytes());
+        status.put("error", job.getErrorMessage());
+        status.put("queue_depth", executor.getQueue().size());
+        return status;
+    }
+
+    /**
+     * Flux SSE : un événement "status" à chaque changement, fermé quand le job est terminé.
+     */
+    public SseEmitter subscribe(Long jobId) {
+        ReportJob job = getJob(jobId);
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(10));
+        if (job.isFinished()) {
+            send(emitter, job);
+            emitter.complete();
+            return emitter;
+        }
+        List<SseEmitter> list = emitters.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>());
+        list.add(emitter);
+        emitter.onCompletion(() -> list.remove(emitter));
+        emitter.onTimeout(() -> list.remove(emitter));
+        // Le job a pu se terminer entre la lecture et l'inscription
+        ReportJob current = getJob(jobId);
+        if (current.isFinished()) {
+            send(emitter, current);
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    // ==========================================
+    // EXÉCUTION (threads du pool)
+    // ==========================================
+
+    private void run(Long jobId, String key) {
+        try {
+            ReportJob job = getJob(jobId);
+            job.setStatus(JobStatus.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            notifyListeners(jobRepo.save(job));
+
+            Path dir = Path.of(reportsDir);
+            Files.createDirectories(dir);
+            Path artifact = dir.resolve("report-" + jobId + (job.getType() == ReportType.CLASS_PV || job.getType() == ReportType.SNAPSHOT_PV ? ".pdf" : ".zip"));
+            String fileName;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(artifact))) {
+                fileName = render(job, out);
+            }
+
+            job = getJob(jobId);
+            job.setFileName(fileName);
+            job.setContentType(fileName.endsWith(".zip") ? "application/zip" : "application/pdf");
+            job.setArtifactPath(artifact.toAbsolutePath().toString());
+            job.setSizeBytes(Files.size(artifact));
+            job.setStatus(JobStatus.DONE);
+            job.setFinishedAt(LocalDateTime.now());
+            notifyListeners(jobRepo.save(job));
+        } catch (Exception e) {
+            finish(jobId, JobStatus.FAILED, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            synchronized (this) {
+                inFlight.remove(key);
+            }
+        }
+    }
+
+    private String render(ReportJob job, OutputStream out) throws IOException {
+        switch (job.getType()) {
+            case CLASS_PV -> {
+                Classroom classroom = classroomRepo.findById(job.getTargetId())
+                        .orElseThrow(() -> new RuntimeException("Classe introuvable"));
+                List<TranscriptDTO> board = deliberationService.getJuryBoard(classroom.getId());
+                pdfService.exportClassGlobalReport(out, classroom.getName(), board);
+                return "PV_" + classroom.getName() + ".pdf";
+            }
+            case SNAPSHOT_PV -> {
+                var snapshot = deliberationService.getSnapshot(job.getTargetId());
+                pdfService.exportClassGlobalReport(out, snapshot);
+                return "PV_" + snapshot.getClassName() + "_" + snapshot.getId() + ".pdf";
+            }
+            case CLASS_TRANSCRIPTS -> {
+                Classroom classroom = classroomRepo.findById(job.getTargetId())
+                        .orElseThrow(() -> new RuntimeException("Classe introuvable"));
+                exportService.exportClassroom(classroom.getId(), out);
+                return "Bulletins_" + classroom.getName() + ".zip";
+            }
+            case PROGRAM_TRANSCRIPTS -> {
+                var program = programRepo.findById(job.getTargetId())
+                        .orElseThrow(() -> new RuntimeException("Filière introuvable"));
+                exportService.exportProgram(program.getId(), out);
+                return "Bulletins_" + program.getCode() + ".zip";
+            }
+            default -> throw new IllegalStateException("Type de rapport inconnu : " + job.getType());
+        }
+    }
+
+    // Appelé depuis le pool : une erreur ici laisserait le job RUNNING et ses clients SSE sans fin
+    private void finish(Long jobId, JobStatus status, String error) {
+        try {
+            jobRepo.findById(jobId).ifPresent(job -> {
+                job.setStatus(status);
+                // Les messages des erreurs SQL contiennent la requête : tronqués à la taille de la colonne
+                job.setErrorMessage(error != null && error.length() > ReportJob.ERROR_LENGTH
+                        ? error.substring(0, ReportJob.ERROR_LENGTH) : error);
+                job.setFinishedAt(LocalDateTime.now());
+                notifyListeners(jobRepo.save(job));
+            });
+        } catch (RuntimeException e) {
+            logger.error("Impossible de clore le job de rapport {}", jobId, e);
+            List<SseEmitter> list = emitters.remove(jobId);
+            if (list != null) list.forEach(SseEmitter::complete);
+        }
+    }
+
+    private void notifyListeners(ReportJob job) {
+        List<SseEmitter> list = job.isFinished() ? emitters.remove(job.getId()) : emitters.get(job.getId());
+        if (list == null) return;
+        for (SseEmitter emitter : list) {
+            send(emitter, job);
+            if (job.isFinished()) emitter.complete();
+        }
+    }
+
+    private void send(SseEmitter emitter, ReportJob job) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(status(job)));
+        } catch (IOException | IllegalStateException e) {
+            // Client parti : l'émetteur sera retiré à sa fermeture
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -4,18 +4,20 @@ package com.school.sgai.services;
 import com.school.sgai.dto.transcript.SubjectStatDTO;
 import com.school.sgai.dto.transcript.TranscriptDTO;
 import com.lowagie.text.*;
-import com.lowagie.text.pdf.PdfPCell;
-import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfWriter;
+import com.lowagie.text.pdf.*;
+import com.school.sgai.entities.DeliberationSnapshot;
+import com.school.sgai.entities.DeliberationSnapshotLine;
 import com.school.sgai.entities.Evaluation;
 import com.school.sgai.entities.Grade;
 import com.school.sgai.entities.Student;
+import com.school.sgai.services.report.PdfPageTemplate;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Service;
 import java.util.List;
 
 import java.awt.Color;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
@@ -23,66 +25,100 @@ import java.time.format.DateTimeFormatter;
 @Service
 public class ReportPdfService {
 
-    private final Font FONT_TITLE = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, Color.BLUE);
-    private final Font FONT_HEADER = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, Color.WHITE);
-    private final Font FONT_NORMAL = FontFactory.getFont(FontFactory.HELVETICA, 10, Color.BLACK);
-    private final Font FONT_BOLD = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, Color.BLACK);
+    // =========================================================
+    // RESSOURCES PARTAGÉES (construites une fois pour tous les documents)
+    // =========================================================
+    private static final Font FONT_TITLE = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, Color.BLUE);
+    private static final Font FONT_HEADER = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, Color.WHITE);
+    private static final Font FONT_NORMAL = FontFactory.getFont(FontFactory.HELVETICA, 10, Color.BLACK);
+    private static final Font FONT_BOLD = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, Color.BLACK);
+
+    private static final BaseFont HELVETICA = FONT_NORMAL.getCalculatedBaseFont(false);
+    private static final BaseFont HELVETICA_BOLD = FONT_BOLD.getCalculatedBaseFont(false);
+
+    private static final Color HEADER_BACKGROUND = new Color(66, 66, 66);
+    private static final Color FAILING_SCORE_BACKGROUND = new Color(255, 235, 238);
+
+    // En-têtes de tableaux : PdfPTable.addCell copie la cellule, le modèle n'est jamais modifié
+    private static final PdfPCell[] CLASS_LIST_HEADER = headerCells("ID", "Nom & Prénom", "Signature / Remarques");
+    private static final PdfPCell[] PV_HEADER = headerCells("ID", "Étudiant", "Moyenne Générale", "Décision Jury", "Statut");
+    private static final PdfPCell[] SNAPSHOT_PV_HEADER = headerCells("ID", "Étudiant", "Moyenne Générale", "Rang", "Décision Jury");
+
+    private static final String SCHOOL_NAME = "SGAI - Système de Gestion Académique Intégré";
+    private static final float LETTERHEAD_HEIGHT = 40f;
+    private static final float MARGIN = 36f;
+
+    private static final PdfPageTemplate LETTERHEAD_PORTRAIT = letterhead(PageSize.A4);
+    private static final PdfPageTemplate LETTERHEAD_LANDSCAPE = letterhead(PageSize.A4.rotate());
+
+    // Bulletin : page 1 (titre, étiquettes, en-tête du tableau) et pages suivantes (en-tête du tableau seul)
+    private static final float[] TRANSCRIPT_COLUMNS = columns(PageSize.A4, 3, 2, 1, 1, 2);
+    private static final String[] TRANSCRIPT_HEADERS = { "Matière", "Enseignant", "Coeff", "Moyenne", "Appréciation" };
+    private static final float TRANSCRIPT_INFO_Y = 715f;
+    private static final float TRANSCRIPT_TABLE_TOP = 680f;
+    private static final float ROW_HEIGHT = 18f;
+    private static final float HEADER_ROW_HEIGHT = 22f;
+    private static final PdfPageTemplate TRANSCRIPT_FIRST_PAGE = transcriptPage(true);
+    private static final PdfPageTemplate TRANSCRIPT_NEXT_PAGE = transcriptPage(false);
+
+    // Certificat : tout le texte fixe est posé une fois, seules les valeurs de l'étudiant changent
+    private static final float[][] CERTIFICATE_FIELDS = new float[6][];
+    private static final PdfPageTemplate CERTIFICATE = certificatePage();
 
     // =========================================================
     // 1. BULLETIN DE NOTES (TRANSCRIPT) - Pour Étudiant
     // =========================================================
     public void exportTranscript(HttpServletResponse response, TranscriptDTO transcript) throws IOException {
+        exportTranscript(response.getOutputStream(), transcript);
+    }
+
+    public void exportTranscript(OutputStream out, TranscriptDTO transcript) {
         Document document = new Document(PageSize.A4);
-        PdfWriter.getInstance(document, response.getOutputStream());
+        PdfWriter writer = PdfWriter.getInstance(document, out);
         document.open();
-
-        addSchoolHeader(document);
-
-        Paragraph title = new Paragraph("BULLETIN DE NOTES", FONT_TITLE);
-        title.setAlignment(Element.ALIGN_CENTER);
-        document.add(title);
-        document.add(new Paragraph(" "));
-
-        // Info Étudiant
-        PdfPTable infoTable = new PdfPTable(2);
-        infoTable.setWidthPercentage(100);
-        infoTable.addCell(getCell("Étudiant: " + transcript.getStudent().getLastName() + " " + transcript.getStudent().getFirstName(), false));
-        infoTable.addCell(getCell("Classe: " + transcript.getClassName(), false));
-        infoTable.addCell(getCell("ID: " + transcript.getStudent().getStudentIdNumber(), false));
-        infoTable.addCell(getCell("Année: " + transcript.getAcademicYear(), false));
-        document.add(infoTable);
-
-        document.add(new Paragraph(" "));
-
-        // Tableau des Notes
-        PdfPTable table = new PdfPTable(5);
-        table.setWidthPercentage(100);
-        table.setWidths(new float[] {3, 2, 1, 1, 2});
-
-        addTableHeader(table, "Matière", "Enseignant", "Coeff", "Moyenne", "Appréciation");
-
+        PdfContentByte canvas = writer.getDirectContent();
+        float width = PageSize.A4.getWidth();
+
+        canvas.addTemplate(TRANSCRIPT_FIRST_PAGE.compile(writer), 0, 0);
+        PdfTemplate nextPage = null;
+
+        // Info Étudiant (les étiquettes sont dans le modèle)
+        Student student = transcript.getStudent();
+        float half = (width - 2 * MARGIN) / 2;
+        stampAfterLabel(canvas, "Étudiant: ", student.getLastName() + " " + student.getFirstName(), MARGIN + 5, TRANSCRIPT_INFO_Y, half - 10);
+        stampAfterLabel(canvas, "Classe: ", transcript.getClassName(), MARGIN + half + 5, TRANSCRIPT_INFO_Y, half - 10);
+        stampAfterLabel(canvas, "ID: ", student.getStudentIdNumber(), MARGIN + 5, TRANSCRIPT_INFO_Y - 18, half - 10);
+        stampAfterLabel(canvas, "Année: ", transcript.getAcademicYear(), MARGIN + half + 5, TRANSCRIPT_INFO_Y - 18, half - 10);
+
+        // Tableau des Notes : une ligne tamponnée par matière
+        float y = TRANSCRIPT_TABLE_TOP - HEADER_ROW_HEIGHT;
         for (SubjectStatDTO stat : transcript.getSubjects()) {
-            table.addCell(new Phrase(stat.getSubjectName(), FONT_NORMAL));
-            table.addCell(new Phrase(stat.getTeacherName(), FONT_NORMAL));
-            table.addCell(new Phrase(String.valueOf(stat.getCoefficient()), FONT_NORMAL));
-            table.addCell(new Phrase(String.valueOf(stat.getAverage()), FONT_BOLD));
-            table.addCell(new Phrase(stat.getAppreciation(), FONT_NORMAL));
+            if (y - ROW_HEIGHT < MARGIN) {
+                writer.setPageEmpty(false);
+                document.newPage();
+                if (nextPage == null) nextPage = TRANSCRIPT_NEXT_PAGE.compile(writer);
+                canvas.addTemplate(nextPage, 0, 0);
+                y = PageSize.A4.getHeight() - MARGIN - LETTERHEAD_HEIGHT - HEADER_ROW_HEIGHT;
+            }
+            String[] values = { stat.getSubjectName(), stat.getTeacherName(), String.valueOf(stat.getCoefficient()),
+                    String.valueOf(stat.getAverage()), stat.getAppreciation() };
+            stampRow(canvas, TRANSCRIPT_COLUMNS, values, 3, y);
+            y -= ROW_HEIGHT;
         }
 
-        document.add(table);
-
         // Résultat Final
-        document.add(new Paragraph(" "));
-        Paragraph result = new Paragraph("MOYENNE GÉNÉRALE : " + transcript.getGlobalAverage() + " / 20",
-                FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14));
-        result.setAlignment(Element.ALIGN_RIGHT);
-        document.add(result);
-
-        Paragraph decision = new Paragraph("DÉCISION DU JURY : " + transcript.getFinalDecision(),
-                FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, Color.RED));
-        decision.setAlignment(Element.ALIGN_RIGHT);
-        document.add(decision);
+        if (y - 60 < MARGIN) {
+            writer.setPageEmpty(false);
+            document.newPage();
+            canvas.addTemplate(LETTERHEAD_PORTRAIT.compile(writer), 0, 0);
+            y = PageSize.A4.getHeight() - MARGIN - LETTERHEAD_HEIGHT;
+        }
+        PdfPageTemplate.stamp(canvas, HELVETICA_BOLD, 14, Color.BLACK, Element.ALIGN_RIGHT,
+                "MOYENNE GÉNÉRALE : " + transcript.getGlobalAverage() + " / 20", width - MARGIN, y - 30, width - 2 * MARGIN);
+        PdfPageTemplate.stamp(canvas, HELVETICA_BOLD, 14, Color.RED, Element.ALIGN_RIGHT,
+                "DÉCISION DU JURY : " + transcript.getFinalDecision(), width - MARGIN, y - 50, width - 2 * MARGIN);
 
+        writer.setPageEmpty(false);
         document.close();
     }
 
@@ -90,11 +126,11 @@ public class ReportPdfService {
     // 2. LISTE DE CLASSE (CLASS LIST) - Pour Professeur
     // =========================================================
     public void exportClassList(HttpServletResponse response, List<Student> students, String className) throws IOException {
-        Document document = new Document(PageSize.A4);
-        PdfWriter.getInstance(document, response.getOutputStream());
-        document.open();
+        exportClassList(response.getOutputStream(), students, className);
+    }
 
-        addSchoolHeader(document);
+    public void exportClassList(OutputStream out, List<Student> students, String className) {
+        Document document = openDocument(PageSize.A4, out);
         Paragraph title = new Paragraph("LISTE DE CLASSE : " + className, FONT_TITLE);
         title.setAlignment(Element.ALIGN_CENTER);
         document.add(title);
@@ -104,7 +140,7 @@ public class ReportPdfService {
         table.setWidthPercentage(100);
         table.setWidths(new float[] {1, 3, 2});
 
-        addTableHeader(table, "ID", "Nom & Prénom", "Signature / Remarques");
+        addTableHeader(table, CLASS_LIST_HEADER);
 
         for (Student s : students) {
             table.addCell(new Phrase(s.getStudentIdNumber(), FONT_NORMAL));
@@ -120,41 +156,34 @@ public class ReportPdfService {
     // 3. CERTIFICAT DE SCOLARITÉ - Pour Étudiant
     // =========================================================
     public void exportCertificate(HttpServletResponse response, Student student) throws IOException {
+        exportCertificate(response.getOutputStream(), student);
+    }
+
+    public void exportCertificate(OutputStream out, Student student) {
         Document document = new Document(PageSize.A4);
-        PdfWriter.getInstance(document, response.getOutputStream());
+        PdfWriter writer = PdfWriter.getInstance(document, out);
         document.open();
+        PdfContentByte canvas = writer.getDirectContent();
+        canvas.addTemplate(CERTIFICATE.compile(writer), 0, 0);
+
+        String[] values = {
+                student.getLastName().toUpperCase() + " " + student.getFirstName(),
+                student.getStudentIdNumber(),
+                student.getBirthDate() != null ? student.getBirthDate().toString() : "N/A",
+                student.getClassroom().getAcademicYear().getCode() + ".",
+                student.getClassroom().getProgram().getName(),
+                student.getClassroom().getName()
+        };
+        for (int i = 0; i < values.length; i++) {
+            float[] field = CERTIFICATE_FIELDS[i];
+            PdfPageTemplate.stamp(canvas, HELVETICA, 12, Color.BLACK, Element.ALIGN_LEFT, values[i], field[0], field[1], field[2]);
+        }
 
-        addSchoolHeader(document);
-
-        Paragraph title = new Paragraph("CERTIFICAT DE SCOLARITÉ", FONT_TITLE);
-        title.setAlignment(Element.ALIGN_CENTER);
-        title.setSpacingBefore(30);
-        document.add(title);
-
-        document.add(new Paragraph(" "));
-        document.add(new Paragraph(" "));
-
-        String text = "Je soussigné, Directeur de l'établissement SGAI, atteste que l'étudiant(e) :\n\n" +
-                "Nom & Prénom : " + student.getLastName().toUpperCase() + " " + student.getFirstName() + "\n" +
-                "Numéro Étudiant (CNE) : " + student.getStudentIdNumber() + "\n" +
-                "Date de naissance : " + (student.getBirthDate() != null ? student.getBirthDate() : "N/A") + "\n\n" +
-                "Est régulièrement inscrit(e) pour l'année universitaire " +
-                (student.getClassroom().getAcademicYear().getCode()) + ".\n\n" +
-                "Filière : " + student.getClassroom().getProgram().getName() + "\n" +
-                "Classe : " + student.getClassroom().getName() + "\n\n" +
-                "Ce certificat est délivré à l'intéressé(e) pour servir et valoir ce que de droit.";
-
-        Paragraph body = new Paragraph(text, FontFactory.getFont(FontFactory.HELVETICA, 12));
-        body.setLeading(25f);
-        document.add(body);
-
-        document.add(new Paragraph(" "));
-        document.add(new Paragraph(" "));
-
-        Paragraph date = new Paragraph("Fait le : " + LocalDate.now().format(DateTimeFormatter.ISO_DATE), FONT_BOLD);
-        date.setAlignment(Element.ALIGN_RIGHT);
-        document.add(date);
+        float width = PageSize.A4.getWidth();
+        PdfPageTemplate.stamp(canvas, HELVETICA_BOLD, 10, Color.BLACK, Element.ALIGN_RIGHT,
+                "Fait le : " + LocalDate.now().format(DateTimeFormatter.ISO_DATE), width - MARGIN, CERTIFICATE_FIELDS[5][1] - 120, width - 2 * MARGIN);
 
+        writer.setPageEmpty(false);
         document.close();
     }
 
@@ -162,11 +191,11 @@ public class ReportPdfService {
     // 4. FEUILLE DE NOTES - Pour Professeur
     // =========================================================
     public void exportGradeSheet(HttpServletResponse response, Evaluation eval, List<Grade> grades) throws IOException {
-        Document document = new Document(PageSize.A4);
-        PdfWriter.getInstance(document, response.getOutputStream());
-        document.open();
+        exportGradeSheet(response.getOutputStream(), eval, grades);
+    }
 
-        addSchoolHeader(document);
+    public void exportGradeSheet(OutputStream out, Evaluation eval, List<Grade> grades) {
+        Document document = openDocument(PageSize.A4, out);
         document.add(new Paragraph("FEUILLE DE NOTES", FONT_TITLE));
         document.add(new Paragraph("Examen : " + eval.getTitle() + " (Coeff " + eval.getCoefficient() + ")"));
         document.add(new Paragraph("Matière : " + eval.getSubject().getName()));
@@ -177,7 +206,7 @@ public class ReportPdfService {
         table.setWidths(new float[] {1, 3, 1});
         table.setWidthPercentage(100);
 
-        addTableHeader(table, "ID Étudiant", "Nom & Prénom", "Note / " + eval.getMaxScore());
+        addTableHeader(table, headerCells("ID Étudiant", "Nom & Prénom", "Note / " + eval.getMaxScore()));
 
         for (Grade g : grades) {
             table.addCell(new Phrase(g.getStudent().getStudentIdNumber(), FONT_NORMAL));
@@ -185,7 +214,7 @@ public class ReportPdfService {
 
             PdfPCell scoreCell = new PdfPCell(new Phrase(String.valueOf(g.getScore()), FONT_BOLD));
             scoreCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            if(g.getScore() < 10) scoreCell.setBackgroundColor(new Color(255, 235, 238));
+            if(g.getScore() < 10) scoreCell.setBackgroundColor(FAILING_SCORE_BACKGROUND);
             table.addCell(scoreCell);
         }
 
@@ -197,11 +226,11 @@ public class ReportPdfService {
     // 5. RAPPORT GLOBAL CLASSE (PV) - Pour Admin
     // =========================================================
     public void exportClassGlobalReport(HttpServletResponse response, String className, List<TranscriptDTO> transcripts) throws IOException {
-        Document document = new Document(PageSize.A4.rotate());
-        PdfWriter.getInstance(document, response.getOutputStream());
-        document.open();
+        exportClassGlobalReport(response.getOutputStream(), className, transcripts);
+    }
 
-        addSchoolHeader(document);
+    public void exportClassGlobalReport(OutputStream out, String className, List<TranscriptDTO> transcripts) {
+        Document document = openDocument(PageSize.A4.rotate(), out);
         document.add(new Paragraph("PROCES VERBAL DE DELIBERATION", FONT_TITLE));
         document.add(new Paragraph("Classe : " + className + " | Date : " + LocalDate.now()));
         document.add(new Paragraph(" "));
@@ -210,7 +239,7 @@ public class ReportPdfService {
         table.setWidths(new float[] {1, 3, 1, 2, 1});
         table.setWidthPercentage(100);
 
-        addTableHeader(table, "ID", "Étudiant", "Moyenne Générale", "Décision Jury", "Statut");
+        addTableHeader(table, PV_HEADER);
 
         for (TranscriptDTO t : transcripts) {
             table.addCell(new Phrase(t.getStudent().getStudentIdNumber(), FONT_NORMAL));
@@ -228,32 +257,175 @@ public class ReportPdfService {
         document.close();
     }
 
+    /**
+     * PV d'une délibération déjà validée, relu tel quel depuis son snapshot.
+     */
+    public void exportClassGlobalReport(HttpServletResponse response, DeliberationSnapshot snapshot) throws IOException {
+        exportClassGlobalReport(response.getOutputStream(), snapshot);
+    }
+
+    public void exportClassGlobalReport(OutputStream out, DeliberationSnapshot snapshot) {
+        Document document = openDocument(PageSize.A4.rotate(), out);
+        document.add(new Paragraph("PROCES VERBAL DE DELIBERATION", FONT_TITLE));
+        document.add(new Paragraph("Classe : " + snapshot.getClassName() + " | Année : " + snapshot.getAcademicYear()
+                + " | Délibéré le : " + snapshot.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))));
+        document.add(new Paragraph(" "));
+
+        PdfPTable table = new PdfPTable(5);
+        table.setWidths(new float[] {1, 3, 1, 1, 2});
+        table.setWidthPercentage(100);
+
+        addTableHeader(table, SNAPSHOT_PV_HEADER);
+
+        for (DeliberationSnapshotLine line : snapshot.getLines()) {
+            table.addCell(new Phrase(line.getStudentIdNumber(), FONT_NORMAL));
+            table.addCell(new Phrase(line.getLastName() + " " + line.getFirstName(), FONT_BOLD));
+
+            PdfPCell avgCell = new PdfPCell(new Phrase(String.valueOf(line.getGlobalAverage()), FONT_BOLD));
+            avgCell.setBackgroundColor(line.getGlobalAverage() >= 10 ? Color.GREEN : Color.RED);
+            table.addCell(avgCell);
+
+            table.addCell(new Phrase(line.getStudentRank(), FONT_NORMAL));
+            table.addCell(new Phrase(line.getDecision(), FONT_NORMAL));
+        }
+
+        document.add(table);
+        document.close();
+    }
+
     // =========================================================
     // UTILITAIRES INTERNES (Helpers)
     // =========================================================
 
-    private void addSchoolHeader(Document doc) throws DocumentException {
-        Paragraph p = new Paragraph("SGAI - Système de Gestion Académique Intégré", FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, Color.GRAY));
-        p.setAlignment(Element.ALIGN_RIGHT);
-        doc.add(p);
-        doc.add(new Paragraph("______________________________________________________________________________"));
-        doc.add(new Paragraph(" "));
+    /**
+     * Ouvre un document dont chaque page reçoit l'en-tête de l'établissement.
+     */
+    private Document openDocument(Rectangle pageSize, OutputStream out) {
+        Document document = new Document(pageSize, MARGIN, MARGIN, MARGIN + LETTERHEAD_HEIGHT, MARGIN);
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setPageEvent(new Letterhead());
+        document.open();
+        return document;
+    }
+
+    /**
+     * En-tête de l'établissement : compilé une fois par document dans un form XObject
+     * et posé sur chaque page.
+     */
+    private static class Letterhead extends PdfPageEventHelper {
+        private PdfTemplate template;
+
+        @Override
+        public void onStartPage(PdfWriter writer, Document document) {
+            if (template == null) {
+                boolean landscape = document.getPageSize().getWidth() > document.getPageSize().getHeight();
+                template = (landscape ? LETTERHEAD_LANDSCAPE : LETTERHEAD_PORTRAIT).compile(writer);
+            }
+            writer.getDirectContent().addTemplate(template, 0, 0);
+        }
+    }
+
+    private static PdfPageTemplate letterhead(Rectangle page) {
+        float top = page.getHeight() - MARGIN;
+        return PdfPageTemplate.builder(page)
+                .text(HELVETICA_BOLD, 10, Color.GRAY, Element.ALIGN_RIGHT, SCHOOL_NAME, page.getWidth() - MARGIN, top - 12)
+                .line(MARGIN, top - 22, page.getWidth() - MARGIN, top - 22, 0.5f, Color.BLACK)
+                .build();
+    }
+
+    private static PdfPageTemplate transcriptPage(boolean firstPage) {
+        Rectangle page = PageSize.A4;
+        float width = page.getWidth();
+        PdfPageTemplate.Builder builder = PdfPageTemplate.builder(page).include(LETTERHEAD_PORTRAIT);
+        float tableTop = page.getHeight() - MARGIN - LETTERHEAD_HEIGHT;
+        if (firstPage) {
+            float half = (width - 2 * MARGIN) / 2;
+            builder.text(HELVETICA_BOLD, 18, Color.BLUE, Element.ALIGN_CENTER, "BULLETIN DE NOTES", width / 2, 745)
+                    .text(HELVETICA, 10, Color.BLACK, Element.ALIGN_LEFT, "Étudiant: ", MARGIN + 5, TRANSCRIPT_INFO_Y)
+                    .text(HELVETICA, 10, Color.BLACK, Element.ALIGN_LEFT, "Classe: ", MARGIN + half + 5, TRANSCRIPT_INFO_Y)
+                    .text(HELVETICA, 10, Color.BLACK, Element.ALIGN_LEFT, "ID: ", MARGIN + 5, TRANSCRIPT_INFO_Y - 18)
+                    .text(HELVETICA, 10, Color.BLACK, Element.ALIGN_LEFT, "Année: ", MARGIN + half + 5, TRANSCRIPT_INFO_Y - 18);
+            tableTop = TRANSCRIPT_TABLE_TOP;
+        }
+        builder.box(MARGIN, tableTop - HEADER_ROW_HEIGHT, width - 2 * MARGIN, HEADER_ROW_HEIGHT, HEADER_BACKGROUND);
+        for (int c = 0; c < TRANSCRIPT_HEADERS.length; c++) {
+            float center = (TRANSCRIPT_COLUMNS[c] + TRANSCRIPT_COLUMNS[c + 1]) / 2;
+            builder.text(HELVETICA_BOLD, 12, Color.WHITE, Element.ALIGN_CENTER, TRANSCRIPT_HEADERS[c], center, tableTop - 15);
+        }
+        return builder.build();
+    }
+
+    private static PdfPageTemplate certificatePage() {
+        Rectangle page = PageSize.A4;
+        float width = page.getWidth();
+        float textWidth = width - 2 * MARGIN;
+        float leading = 25f;
+        PdfPageTemplate.Builder builder = PdfPageTemplate.builder(page).include(LETTERHEAD_PORTRAIT)
+                .text(HELVETICA_BOLD, 18, Color.BLUE, Element.ALIGN_CENTER, "CERTIFICAT DE SCOLARITÉ", width / 2, 715);
+
+        float y = builder.paragraph(HELVETICA, 12, Color.BLACK,
+                "Je soussigné, Directeur de l'établissement SGAI, atteste que l'étudiant(e) :", MARGIN, 655, textWidth, leading);
+        y -= leading;
+        String[] labels = { "Nom & Prénom : ", "Numéro Étudiant (CNE) : ", "Date de naissance : ",
+                "Est régulièrement inscrit(e) pour l'année universitaire ", "Filière : ", "Classe : " };
+        for (int i = 0; i < labels.length; i++) {
+            // Lignes vides entre les blocs, comme dans le texte d'origine
+            if (i == 3 || i == 4) y -= leading;
+            builder.text(HELVETICA, 12, Color.BLACK, Element.ALIGN_LEFT, labels[i], MARGIN, y);
+            float labelWidth = HELVETICA.getWidthPoint(labels[i], 12);
+            CERTIFICATE_FIELDS[i] = new float[] { MARGIN + labelWidth, y, textWidth - labelWidth };
+            y -= leading;
+        }
+        y -= leading;
+        builder.paragraph(HELVETICA, 12, Color.BLACK,
+                "Ce certificat est délivré à l'intéressé(e) pour servir et valoir ce que de droit.", MARGIN, y, textWidth, leading);
+        return builder.build();
+    }
+
+    // Bords des colonnes (x) pour des largeurs relatives, sur toute la largeur utile de la page
+    private static float[] columns(Rectangle page, float... relativeWidths) {
+        float total = 0;
+        for (float w : relativeWidths) total += w;
+        float[] edges = new float[relativeWidths.length + 1];
+        edges[0] = MARGIN;
+        for (int i = 0; i < relativeWidths.length; i++) {
+            edges[i + 1] = edges[i] + (page.getWidth() - 2 * MARGIN) * relativeWidths[i] / total;
+        }
+        return edges;
+    }
+
+    private void stampAfterLabel(PdfContentByte canvas, String label, String value, float x, float y, float width) {
+        float labelWidth = HELVETICA.getWidthPoint(label, 10);
+        PdfPageTemplate.stamp(canvas, HELVETICA, 10, Color.BLACK, Element.ALIGN_LEFT, value, x + labelWidth, y, width - labelWidth);
+    }
+
+    // Une ligne de tableau : bordures + valeurs, sans passer par PdfPTable
+    private void stampRow(PdfContentByte canvas, float[] edges, String[] values, int boldColumn, float top) {
+        canvas.setLineWidth(0.5f);
+        canvas.setColorStroke(Color.BLACK);
+        for (int c = 0; c < values.length; c++) {
+            canvas.rectangle(edges[c], top - ROW_HEIGHT, edges[c + 1] - edges[c], ROW_HEIGHT);
+        }
+        canvas.stroke();
+        for (int c = 0; c < values.length; c++) {
+            PdfPageTemplate.stamp(canvas, c == boldColumn ? HELVETICA_BOLD : HELVETICA, 10, Color.BLACK, Element.ALIGN_LEFT,
+                    values[c], edges[c] + 3, top - 13, edges[c + 1] - edges[c] - 6);
+        }
     }
 
-    private void addTableHeader(PdfPTable table, String... headers) {
-        for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, FONT_HEADER));
-            cell.setBackgroundColor(new Color(66, 66, 66));
+    private static PdfPCell[] headerCells(String... headers) {
+        PdfPCell[] cells = new PdfPCell[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            PdfPCell cell = new PdfPCell(new Phrase(headers[i], FONT_HEADER));
+            cell.setBackgroundColor(HEADER_BACKGROUND);
             cell.setPadding(6);
             cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            table.addCell(cell);
+            cells[i] = cell;
         }
+        return cells;
     }
 
-    private PdfPCell getCell(String text, boolean border) {
-        PdfPCell cell = new PdfPCell(new Phrase(text, FONT_NORMAL));
-        cell.setPadding(5);
-        if (!border) cell.setBorder(Rectangle.NO_BORDER);
-        return cell;
+    private void addTableHeader(PdfPTable table, PdfPCell[] headerCells) {
+        for (PdfPCell cell : headerCells) table.addCell(cell);
     }
-}
\ No newline at end of file
+}
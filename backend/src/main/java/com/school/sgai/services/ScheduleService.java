@@ -1,43 +1,164 @@
 package com.school.sgai.services;
 
 
+import com.school.sgai.dto.schedule.SessionSlot;
 import com.school.sgai.entities.*;
 import com.school.sgai.repositories.*;
+import com.school.sgai.services.schedule.ScheduleConflictIndex;
+import com.school.sgai.services.schedule.ScheduleConflictIndex.Conflict;
+import com.school.sgai.services.schedule.WeeklyOccupancy;
+import com.school.sgai.services.schedule.WeeklyOccupancy.FreeSlot;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.DayOfWeek;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
+/**
+ * Emplois du temps.
+ *
+ * Les créneaux occupés de chaque enseignant, salle et classe sont gardés en mémoire
+ * (ScheduleConflictIndex), reconstruits au démarrage puis tenus à jour à chaque ajout
+ * ou suppression : une séance qui chevauche une séance existante est refusée.
+ * Les mêmes changements tiennent à jour la semaine de chaque ressource en masques de bits
+ * (WeeklyOccupancy), pour la recherche de créneaux libres.
+ */
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class ScheduleService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleService.class);
+
     private final CourseSessionRepository sessionRepo;
     private final SubjectRepository subjectRepo;
     private final AppUserRepository userRepo;
 
+    private final ScheduleConflictIndex index = new ScheduleConflictIndex();
+    // Protégé par le verrou de l'index
+    private final WeeklyOccupancy occupancy = new WeeklyOccupancy();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        List<SessionSlot> slots = sessionRepo.findAllSlots();
+        List<Conflict> conflicts = new ArrayList<>();
+        synchronized (index) {
+            index.clear();
+            occupancy.clear();
+            for (SessionSlot slot : slots) {
+                conflicts.addAll(index.put(slot));
+                occupancy.add(slot);
+            }
+        }
+        logger.info("Index des emplois du temps : {} séance(s)", slots.size());
+        // Séances enregistrées avant la validation des conflits : signalées, pas supprimées
+        for (Conflict conflict : conflicts) logger.warn("Conflit existant : {}", conflict.message());
+    }
+
     // --- ADMIN : CRÉATION ---
-    public void addSession(Long subjectId, DayOfWeek day, LocalTime start, LocalTime end, String room) {
-        // TODO: Ici, on pourrait ajouter une validation de conflit (Prof déjà occupé ?)
-        Subject subject = subjectRepo.findById(subjectId).orElseThrow();
+    public CourseSession addSession(Long subjectId, DayOfWeek day, LocalTime start, LocalTime end, String room) {
+        if (day == null || start == null || end == null || !start.isBefore(end)) {
+            throw new RuntimeException("Horaire invalide : l'heure de début doit précéder l'heure de fin");
+        }
+        Subject subject = subjectRepo.findById(subjectId).orElseThrow(() -> new RuntimeException("Matière introuvable"));
 
-        CourseSession session = CourseSession.builder()
+        CourseSession session = sessionRepo.save(CourseSession.builder()
                 .subject(subject)
                 .dayOfWeek(day)
                 .startTime(start)
                 .endTime(end)
                 .roomNumber(room)
-                .build();
+                .build());
 
-        sessionRepo.save(session);
+        // Le créneau est réservé dès maintenant (une création concurrente le voit) et
+        // libéré si la transaction est annulée
+        SessionSlot slot = slotOf(session);
+        synchronized (index) {
+            List<Conflict> conflicts = index.add(slot);
+            if (!conflicts.isEmpty()) throw new RuntimeException(conflicts.get(0).message());
+            occupancy.add(slot);
+        }
+        afterCompletion(session.getId(), false);
+        return session;
     }
 
     public void deleteSession(Long sessionId) {
         sessionRepo.deleteById(sessionId);
+        afterCompletion(sessionId, true);
+    }
+
+    // --- CONFLITS ---
+
+    // Conflits qu'aurait une séance, sans l'enregistrer
+    public List<Conflict> checkSession(SessionSlot slot) {
+        synchronized (index) {
+            return index.conflicts(slot);
+        }
+    }
+
+    // Emploi du temps complet (import, proposition d'optimisation) : contre l'existant et contre lui-même
+    public List<Conflict> validateTimetable(Collection<SessionSlot> timetable) {
+        synchronized (index) {
+            return index.validate(timetable);
+        }
+    }
+
+    // --- CRÉNEAUX LIBRES ---
+
+    // Premiers créneaux libres pour l'enseignant et la classe d'une matière, dans la salle donnée ou une salle connue
+    public List<FreeSlot> findFreeSlots(Long subjectId, String room, int minutes, int limit) {
+        Subject subject = subjectRepo.findById(subjectId).orElseThrow(() -> new RuntimeException("Matière introuvable"));
+        return findFreeSlots(subject.getTeacher() != null ? subject.getTeacher().getId() : null,
+                subject.getClassroom() != null ? subject.getClassroom().getId() : null, room, minutes, limit);
+    }
+
+    public List<FreeSlot> findFreeSlots(Long teacherId, Long classroomId, String room, int minutes, int limit) {
+        if (limit < 1) throw new RuntimeException("Nombre de créneaux demandé invalide");
+        synchronized (index) {
+            try {
+                return occupancy.findFree(teacherId, classroomId, room, minutes, limit);
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException(e.getMessage());
+            }
+        }
+    }
+
+    private void afterCompletion(Long sessionId, boolean onCommit) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (onCommit) removeFromIndex(sessionId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if ((status == STATUS_COMMITTED) == onCommit) removeFromIndex(sessionId);
+            }
+        });
+    }
+
+    private void removeFromIndex(Long sessionId) {
+        synchronized (index) {
+            index.remove(sessionId);
+            occupancy.remove(sessionId);
+        }
+    }
+
+    private static SessionSlot slotOf(CourseSession session) {
+        Subject subject = session.getSubject();
+        return new SessionSlot(session.getId(),
+                subject.getTeacher() != null ? subject.getTeacher().getId() : null,
+                subject.getClassroom() != null ? subject.getClassroom().getId() : null,
+                session.getRoomNumber(), session.getDayOfWeek(), session.getStartTime(), session.getEndTime());
     }
 
     // --- LECTURE ---
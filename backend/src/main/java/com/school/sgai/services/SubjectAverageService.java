@@ -0,0 +1,147 @@
+package com.school.sgai.services;
+
+
+import com.school.sgai.entities.*;
+import com.school.sgai.events.ResultsChangedEvent;
+import com.school.sgai.repositories.*;
+import com.school.sgai.services.grading.ClassroomGradeMatrix;
+import com.school.sgai.services.grading.GradeChange;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Maintient la table SubjectAverage (somme pondérée et total des coefficients
+ * par étudiant et par matière) à chaque écriture de note ou d'évaluation.
+ * Bulletins, tableau de bord et jury lisent ce rollup au lieu des notes brutes.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class SubjectAverageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubjectAverageService.class);
+
+    private final SubjectAverageRepository averageRepo;
+    private final EvaluationRepository evalRepo;
+    private final GradeRepository gradeRepo;
+    private final ClassroomRepository classroomRepo;
+    private final AppUserRepository userRepo;
+    private final TranscriptService transcriptService;
+    private final ApplicationEventPublisher events;
+
+    // Force la reconstruction complète au démarrage (après une migration de données)
+    @Value("${sgai.rollup.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    // --- GRADE WRITES ---
+
+    public void applyGradeChanges(Evaluation eval, List<GradeChange> changes) {
+        if (changes.isEmpty()) return;
+        Long subjectId = eval.getSubject().getId();
+        events.publishEvent(ResultsChangedEvent.forStudents(eval.getSubject().getClassroom().getId(),
+                changes.stream().map(GradeChange::getStudentId).collect(Collectors.toSet())));
+
+        Set<Long> existing = new HashSet<>(averageRepo.findStudentIdsWithRow(subjectId,
+                changes.stream().map(GradeChange::getStudentId).collect(Collectors.toSet())));
+
+        List<Long> missing = new ArrayList<>();
+        for (GradeChange change : changes) {
+            if (existing.contains(change.getStudentId())) {
+                double delta = change.delta() * eval.getCoefficient();
+                if (delta != 0) averageRepo.addToWeightedSum(subjectId, change.getStudentId(), delta);
+            } else {
+                missing.add(change.getStudentId());
+            }
+        }
+        if (missing.isEmpty()) return;
+
+        // Première note de ces étudiants dans la matière : création de leur ligne
+        long coefficientTotal = evalRepo.sumCoefficientsBySubjectId(subjectId);
+        Map<Long, Double> deltas = changes.stream()
+                .collect(Collectors.toMap(GradeChange::getStudentId, c -> c.delta() * eval.getCoefficient(), Double::sum));
+        List<SubjectAverage> created = new ArrayList<>();
+        for (AppUser user : userRepo.findAllById(missing)) {
+            created.add(SubjectAverage.builder()
+                    .student((Student) user)
+                    .subject(eval.getSubject())
+                    .weightedSum(deltas.get(user.getId()))
+                    .coefficientTotal(coefficientTotal)
+                    .build());
+        }
+        averageRepo.saveAll(created);
+    }
+
+    // --- EVALUATION WRITES ---
+
+    public void evaluationCreated(Evaluation eval) {
+        averageRepo.addToCoefficientTotal(eval.getSubject().getId(), eval.getCoefficient());
+        events.publishEvent(ResultsChangedEvent.forClassroom(eval.getSubject().getClassroom().getId()));
+    }
+
+    public void evaluationDeleted(Evaluation eval, List<Grade> grades) {
+        applyGradeChanges(eval, grades.stream()
+                .map(g -> new GradeChange(g.getStudent().getId(), g.getScore(), null))
+                .collect(Collectors.toList()));
+        // Étudiants dont c'était la seule note dans la matière : plus de ligne, comme avant leur première note
+        Set<Long> studentIds = grades.stream().map(g -> g.getStudent().getId()).collect(Collectors.toSet());
+        if (!studentIds.isEmpty()) {
+            averageRepo.deleteWithoutOtherGrades(eval.getSubject().getId(), eval.getId(), studentIds);
+        }
+        averageRepo.addToCoefficientTotal(eval.getSubject().getId(), -eval.getCoefficient());
+        events.publishEvent(ResultsChangedEvent.forClassroom(eval.getSubject().getClassroom().getId()));
+    }
+
+    // --- REBUILD ---
+
+    /**
+     * Recalcule entièrement le rollup depuis les notes brutes, classe par classe.
+     */
+    public int rebuild() {
+        averageRepo.deleteAllInBulk();
+        int rows = 0;
+        for (Classroom classroom : classroomRepo.findAll()) {
+            ClassroomGradeMatrix matrix = transcriptService.loadGradeMatrix(classroom.getId());
+            List<SubjectAverage> batch = new ArrayList<>();
+            for (int slot = 0; slot < matrix.studentCount(); slot++) {
+                double[] sums = matrix.weightedSums(slot);
+                for (int i = 0; i < matrix.subjectCount(); i++) {
+                    // Comme applyGradeChanges : une ligne seulement à partir de la première note
+                    if (!matrix.hasGrade(slot, i)) continue;
+                    batch.add(SubjectAverage.builder()
+                            .student(matrix.getStudents().get(slot))
+                            .subject(matrix.getSubjects().get(i))
+                            .weightedSum(sums[i])
+                            .coefficientTotal(matrix.subjectCoefficientTotal(i))
+                            .build());
+                }
+            }
+            averageRepo.saveAll(batch);
+            rows += batch.size();
+            events.publishEvent(ResultsChangedEvent.forClassroom(classroom.getId()));
+        }
+        logger.info("Rollup des moyennes reconstruit : {} lignes", rows);
+        return rows;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() {
+        // Base existante sans rollup (première mise en production) : on le construit une fois
+        if (rebuildOnStartup || (averageRepo.count() == 0 && gradeRepo.count() > 0)) {
+            rebuild();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.school.sgai.services;
+
+import com.school.sgai.dto.ai.ScheduleOptimizationResponse;
+import com.school.sgai.dto.ai.ScheduleOptimizationResponse.*;
+import com.school.sgai.dto.schedule.SessionSlot;
+import com.school.sgai.entities.CourseSession;
+import com.school.sgai.entities.Subject;
+import com.school.sgai.entities.Teacher;
+import com.school.sgai.repositories.CourseSessionRepository;
+import com.school.sgai.repositories.SubjectRepository;
+import com.school.sgai.services.schedule.ScheduleConflictIndex.Conflict;
+import com.school.sgai.services.schedule.TimetableProblem;
+import com.school.sgai.services.schedule.TimetableProblem.Lecture;
+import com.school.sgai.services.schedule.TimetableSolver;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optimisation locale de l'emploi du temps d'une classe (sans le service Flask).
+ *
+ * Les séances actuelles de la classe sont replacées (une séance par défaut pour une
+ * matière qui n'en a pas encore), en gardant libres les créneaux où leurs enseignants
+ * et les salles sont pris par les autres classes. Le résultat a la forme de la réponse
+ * de l'optimiseur distant.
+ */
+@Service
+@RequiredArgsConstructor
+public class TimetableEngineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimetableEngineService.class);
+
+    public static final String ALGORITHM = "Local engine (constraint propagation + parallel multi-start local search)";
+
+    private final SubjectRepository subjectRepo;
+    private final CourseSessionRepository sessionRepo;
+    private final ScheduleService scheduleService;
+
+    @Value("${sgai.schedule.solver.time-budget-ms:2000}")
+    private long timeBudgetMs;
+
+    // 0 = un thread par coeur
+    @Value("${sgai.schedule.solver.threads:0}")
+    private int threads;
+
+    @Value("${sgai.schedule.solver.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${sgai.schedule.solver.default-duration-minutes:120}")
+    private int defaultDurationMinutes;
+
+    // Partagé par toutes les optimisations : les appels simultanés se répartissent les mêmes threads
+    private ThreadPoolExecutor executor;
+    private int workers;
+
+    @PostConstruct
+    void start() {
+        workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "timetable-solver-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public ScheduleOptimizationResponse optimize(Long classroomId, Map<String, Boolean> constraints) {
+        TimetableProblem problem = buildProblem(classroomId, constraints);
+        TimetableSolver.Result result;
+        try {
+            result = TimetableSolver.solve(problem, Duration.ofMillis(timeBudgetMs), executor, workers, System.nanoTime());
+        } catch (RejectedExecutionException e) {
+            throw new RuntimeException("Trop d'optimisations en cours, réessayez dans quelques instants.");
+        }
+        logger.info("EDT local classe {} : {} cours, {} violations dures, {} souples ({} itérations, {} ms)",
+                classroomId, problem.getLectures().size(), result.hardViolations(), result.softViolations(),
+                result.iterations(), result.elapsedMillis());
+        ScheduleOptimizationResponse response = toResponse(classroomId, problem, result);
+
+        // Contre-vérification avec l'index des séances enregistrées avant d'afficher la proposition
+        List<Conflict> conflicts = scheduleService.validateTimetable(proposal(classroomId, problem, result));
+        if (!conflicts.isEmpty()) {
+            conflicts.forEach(c -> logger.warn("Proposition EDT classe {} : {}", classroomId, c.message()));
+            response.getQuality().setIsValid(false);
+        }
+        return response;
+    }
+
+    // Séances proposées ; une séance existante garde son id (elle est déplacée)
+    static List<SessionSlot> proposal(Long classroomId, TimetableProblem problem, TimetableSolver.Result result) {
+        List<SessionSlot> slots = new ArrayList<>();
+        List<Lecture> lectures = problem.getLectures();
+        for (int l = 0; l < lectures.size(); l++) {
+            Lecture lecture = lectures.get(l);
+            int start = result.start()[l];
+            int r = result.room()[l];
+            slots.add(new SessionSlot(lecture.courseId(), lecture.teacherId(), classroomId,
+                    r >= 0 ? problem.getRooms().get(r) : null, TimetableProblem.DAYS.get(result.day()[l]),
+                    TimetableProblem.timeOf(start), TimetableProblem.timeOf(start + lecture.slots())));
+        }
+        return slots;
+    }
+
+    TimetableProblem buildProblem(Long classroomId, Map<String, Boolean> constraints) {
+        List<Subject> subjects = subjectRepo.findByClassroomIdWithTeacher(classroomId);
+        List<CourseSession> own = sessionRepo.findByClassroomId(classroomId);
+
+        List<Lecture> lectures = new ArrayList<>();
+        Set<Long> scheduled = new HashSet<>();
+        for (CourseSession session : own) {
+            lectures.add(lecture(session.getId(), session.getSubject(),
+                    TimetableProblem.slotsOf(session.getStartTime(), session.getEndTime())));
+            scheduled.add(session.getSubject().getId());
+        }
+        int defaultSlots = TimetableProblem.slotsOf(LocalTime.MIN, LocalTime.MIN.plusMinutes(defaultDurationMinutes));
+        for (Subject subject : subjects) {
+            if (!scheduled.contains(subject.getId())) lectures.add(lecture(null, subject, defaultSlots));
+        }
+
+        // Salles connues : celles des séances existantes ; les autres classes restent en place
+        // (regroupées par TimetableProblem comme dans l'index des conflits : "b104 " = "B104")
+        List<String> rooms = new ArrayList<>();
+        List<SessionSlot> fixed = new ArrayList<>();
+        for (SessionSlot slot : sessionRepo.findAllSlots()) {
+            if (slot.getRoomNumber() != null) rooms.add(slot.getRoomNumber());
+            if (!classroomId.equals(slot.getClassroomId())) fixed.add(slot);
+        }
+        return new TimetableProblem(lectures, rooms, fixed, constraints);
+    }
+
+    private static Lecture lecture(Long courseId, Subject subject, int slots) {
+        Teacher teacher = subject.getTeacher();
+        return new Lecture(courseId, subject.getId(), subject.getName(),
+                teacher != null ? teacher.getId() : null,
+                teacher != null ? teacher.getFirstName() + " " + teacher.getLastName() : null,
+                slots);
+    }
+
+    static ScheduleOptimizationResponse toResponse(Long classroomId, TimetableProblem problem, TimetableSolver.Result result) {
+        List<ScheduleAssignment> assignments = new ArrayList<>();
+        List<Lecture> lectures = problem.getLectures();
+        for (int l = 0; l < lectures.size(); l++) {
+            Lecture lecture = lectures.get(l);
+            ScheduleAssignment assignment = new ScheduleAssignment();
+
+            CourseDetails course = new CourseDetails();
+            course.setId(lecture.courseId());
+            course.setSubject(lecture.subjectName());
+            course.setDuration(lecture.slots() * TimetableProblem.SLOT_MINUTES);
+            assignment.setCourseId(lecture.courseId());
+            assignment.setCourse(course);
+
+            int r = result.room()[l];
+            if (r >= 0) {
+                RoomDetails room = new RoomDetails();
+                room.setId(r + 1L);
+                room.setName(problem.getRooms().get(r));
+                assignment.setRoomId(room.getId());
+                assignment.setRoom(room);
+            }
+
+            int day = result.day()[l];
+            int start = result.start()[l];
+            TimeslotDetails timeslot = new TimeslotDetails();
+            timeslot.setId((long) day * TimetableProblem.SLOTS_PER_DAY + start + 1);
+            timeslot.setDay(TimetableProblem.DAYS.get(day).name());
+            timeslot.setStartTime(TimetableProblem.timeOf(start).toString());
+            timeslot.setEndTime(TimetableProblem.timeOf(start + lecture.slots()).toString());
+            assignment.setTimeslotId(timeslot.getId());
+            assignment.setTimeslot(timeslot);
+
+            if (lecture.teacherId() != null) {
+                TeacherDetails teacher = new TeacherDetails();
+                teacher.setId(lecture.teacherId());
+                teacher.setName(lecture.teacherName());
+                assignment.setTeacher(teacher);
+            }
+            assignments.add(assignment);
+        }
+        assignments.sort(Comparator.comparing(a -> a.getTimeslotId()));
+
+        OptimizationStatistics statistics = new OptimizationStatistics();
+        statistics.setGenerations((int) Math.min(Integer.MAX_VALUE, result.iterations()));
+        statistics.setBestFitness(result.fitness());
+        statistics.setAvgFitness(result.averageFitness());
+        statistics.setConvergenceGeneration((int) Math.min(Integer.MAX_VALUE, result.bestIteration()));
+        statistics.setExecutionTimeSeconds(result.elapsedMillis() / 1000.0);
+
+        QualityMetrics quality = new QualityMetrics();
+        quality.setHardViolations(result.hardViolations());
+        quality.setSoftViolations(result.softViolations());
+        quality.setTotalViolations(result.hardViolations() + result.softViolations());
+        quality.setIsValid(result.hardViolations() == 0);
+
+        OptimizationMetadata metadata = new OptimizationMetadata();
+        metadata.setAlgorithm(ALGORITHM);
+        metadata.setPopulationSize(result.restarts());
+        metadata.setOptimizedAt(LocalDateTime.now().toString());
+
+        ScheduleOptimizationResponse response = new ScheduleOptimizationResponse();
+        response.setClassroomId(classroomId);
+        response.setSchedule(assignments);
+        response.setStatistics(statistics);
+        response.setQuality(quality);
+        response.setMetadata(metadata);
+        return response;
+    }
+}
@@ -0,0 +1,87 @@
+package com.school.sgai.services;
+
+import com.school.sgai.dto.transcript.TranscriptDTO;
+import com.school.sgai.entities.Classroom;
+import com.school.sgai.entities.Student;
+import com.school.sgai.repositories.ClassroomRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Export des bulletins d'une classe ou d'une filière en un ZIP de PDF, écrit
+ * directement dans le flux de la réponse : chaque PDF est rendu puis envoyé
+ * avant le suivant, la mémoire ne dépend pas du nombre d'étudiants.
+ */
+@Service
+@RequiredArgsConstructor
+public class TranscriptExportService {
+
+    private final ClassroomRepository classroomRepo;
+    private final DeliberationService deliberationService;
+    private final ReportPdfService pdfService;
+
+    public void exportClassroom(Long classroomId, OutputStream out) throws IOException {
+        Classroom classroom = classroomRepo.findById(classroomId)
+                .orElseThrow(() -> new RuntimeException("Classe introuvable"));
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            writeClassroom(zip, classroom, "");
+        }
+    }
+
+    public void exportProgram(Long programId, OutputStream out) throws IOException {
+        List<Classroom> classrooms = classroomRepo.findByProgramIdOrderByName(programId);
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            // Une classe à la fois : les bulletins d'une classe sont libérés avant de passer à la suivante
+            for (Classroom classroom : classrooms) {
+                writeClassroom(zip, classroom, safeName(classroom.getName()) + "/");
+            }
+        }
+    }
+
+    private void writeClassroom(ZipOutputStream zip, Classroom classroom, String folder) throws IOException {
+        // Bulletins calculés en lot (rollup + règles de délibération + rang), puis rendus un par un
+        List<TranscriptDTO> board = deliberationService.getJuryBoard(classroom.getId());
+        OutputStream entryStream = new NonClosingOutputStream(zip);
+        for (TranscriptDTO transcript : board) {
+            zip.putNextEntry(new ZipEntry(folder + fileName(transcript.getStudent())));
+            // PdfWriter ferme son flux à la fin du document : il ne doit pas fermer le ZIP
+            pdfService.exportTranscript(entryStream, transcript);
+            zip.closeEntry();
+            zip.flush();
+        }
+    }
+
+    private String fileName(Student student) {
+        String id = student.getStudentIdNumber() != null ? student.getStudentIdNumber() : String.valueOf(student.getId());
+        String name = student.getLastName() != null ? "_" + student.getLastName() : "";
+        return safeName(id + name) + ".pdf";
+    }
+
+    private String safeName(String value) {
+        return value.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * Forwards the writes to the ZIP entry and turns close() into a flush.
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) { super(out); }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
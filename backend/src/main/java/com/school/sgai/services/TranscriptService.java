@@ -1,24 +1,39 @@
 package com.school.sgai.services;
 
 
+import com.school.sgai.dto.transcript.SubjectAverageRow;
 import com.school.sgai.dto.transcript.SubjectStatDTO;
 import com.school.sgai.dto.transcript.TranscriptDTO;
 import com.school.sgai.entities.*;
 import com.school.sgai.repositories.*;
+import com.school.sgai.services.grading.ClassroomGradeMatrix;
+import com.school.sgai.services.grading.DeliberationRules;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
 public class TranscriptService {
 
     private final AppUserRepository userRepo;
+    private final ClassroomRepository classroomRepo;
     private final SubjectRepository subjectRepo;
     private final EvaluationRepository evalRepo;
     private final GradeRepository gradeRepo;
+    private final SubjectAverageRepository averageRepo;
+    private final DeliberationPolicyService policyService;
+
+    // Au-delà de ce nombre d'étudiants, les bulletins d'une classe sont calculés en parallèle (fork-join)
+    @Value("${sgai.deliberation.parallel-threshold:200}")
+    private int parallelThreshold;
 
     public TranscriptDTO generateTranscript(Long studentId) {
         Student student = (Student) userRepo.findById(studentId).orElseThrow();
@@ -26,26 +41,107 @@ public class TranscriptService {
             throw new RuntimeException("Impossible de générer le bulletin : Vous n'êtes affecté à aucune classe. Contactez l'administration.");
         }
         Classroom classroom = student.getClassroom();
-        List<Subject> classSubjects = subjectRepo.findByClassroomId(classroom.getId());
+
+        // Lecture par clé dans le rollup SubjectAverage, quel que soit le nombre d'évaluations
+        List<SubjectAverageRow> rows = averageRepo.findSubjectAverages(student.getId(), classroom.getId());
+
+        TranscriptDTO transcript = buildTranscript(student, classroom, rows);
+        double[] minimums = new double[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            minimums[i] = rows.get(i).getEliminatoryMinimum() != null ? rows.get(i).getEliminatoryMinimum() : Double.NaN;
+        }
+        applyDecisions(classroom, List.of(transcript), minimums);
+        return transcript;
+    }
+
+    /**
+     * Bulletins de toute une classe en un seul passage, depuis le rollup SubjectAverage
+     * (étudiants, matières et lignes du rollup : 3 requêtes quelle que soit la taille de la classe).
+     */
+    public List<TranscriptDTO> generateClassTranscripts(Long classroomId) {
+        Classroom classroom = classroomRepo.findById(classroomId).orElseThrow(() -> new RuntimeException("Classe introuvable"));
+        List<Student> students = userRepo.findStudentsByClassroomId(classroomId);
+        List<Subject> subjects = subjectRepo.findByClassroomIdWithTeacher(classroomId);
+
+        Map<Long, Map<Long, SubjectAverage>> byStudent = new HashMap<>();
+        for (SubjectAverage r : averageRepo.findByClassroomId(classroomId)) {
+            byStudent.computeIfAbsent(r.getStudent().getId(), k -> new HashMap<>()).put(r.getSubject().getId(), r);
+        }
+
+        IntStream slots = IntStream.range(0, students.size());
+        if (students.size() >= parallelThreshold) slots = slots.parallel();
+
+        List<TranscriptDTO> transcripts = slots.mapToObj(slot -> {
+            Student student = students.get(slot);
+            Map<Long, SubjectAverage> averages = byStudent.getOrDefault(student.getId(), Map.of());
+            List<SubjectAverageRow> rows = new ArrayList<>(subjects.size());
+            for (Subject subject : subjects) {
+                SubjectAverage r = averages.get(subject.getId());
+                rows.add(new SubjectAverageRow(subject.getId(), subject.getName(), teacherName(subject), subject.getCoefficient(),
+                        r != null ? r.getWeightedSum() : null, r != null ? r.getCoefficientTotal() : null, subject.getEliminatoryMinimum()));
+            }
+            return buildTranscript(student, classroom, rows);
+        }).collect(Collectors.toList());
+        applyDecisions(classroom, transcripts, DeliberationPolicyService.eliminatoryMinimums(subjects));
+        return transcripts;
+    }
+
+    /**
+     * Bulletins d'une classe recalculés depuis les notes brutes (matrice étudiant × évaluation).
+     */
+    public List<TranscriptDTO> generateClassTranscripts(ClassroomGradeMatrix matrix) {
+        if (matrix.studentCount() == 0) return List.of();
+        Classroom classroom = matrix.getStudents().get(0).getClassroom();
+
+        IntStream slots = IntStream.range(0, matrix.studentCount());
+        if (matrix.studentCount() >= parallelThreshold) slots = slots.parallel();
+
+        List<TranscriptDTO> transcripts = slots.mapToObj(slot -> buildTranscript(matrix.getStudents().get(slot), classroom, toRows(matrix, slot)))
+                .collect(Collectors.toList());
+        applyDecisions(classroom, transcripts, DeliberationPolicyService.eliminatoryMinimums(matrix.getSubjects()));
+        return transcripts;
+    }
+
+    public ClassroomGradeMatrix loadGradeMatrix(Long classroomId) {
+        classroomRepo.findById(classroomId).orElseThrow(() -> new RuntimeException("Classe introuvable"));
+        return new ClassroomGradeMatrix(classroomId,
+                userRepo.findStudentsByClassroomId(classroomId),
+                subjectRepo.findByClassroomIdWithTeacher(classroomId),
+                evalRepo.findByClassroomId(classroomId),
+                gradeRepo.findCellsByClassroomId(classroomId));
+    }
+
+    private List<SubjectAverageRow> toRows(ClassroomGradeMatrix matrix, int studentSlot) {
+        double[] sums = matrix.weightedSums(studentSlot);
+        List<SubjectAverageRow> rows = new ArrayList<>(matrix.subjectCount());
+        for (int i = 0; i < matrix.subjectCount(); i++) {
+            Subject subject = matrix.getSubjects().get(i);
+            rows.add(new SubjectAverageRow(subject.getId(), subject.getName(), teacherName(subject),
+                    subject.getCoefficient(), sums[i], matrix.subjectCoefficientTotal(i), subject.getEliminatoryMinimum()));
+        }
+        return rows;
+    }
+
+    TranscriptDTO buildTranscript(Student student, Classroom classroom, List<SubjectAverageRow> rows) {
         List<SubjectStatDTO> subjectStats = new ArrayList<>();
 
         double totalScore = 0;
         double totalCoeffs = 0;
 
-        // 1. Calculate Average for each Subject
-        for (Subject subject : classSubjects) {
-            double subjectAvg = calculateSubjectAverage(student.getId(), subject.getId());
+        // 1. Average for each Subject (weighted sums come from the rollup or the grade matrix)
+        for (SubjectAverageRow row : rows) {
+            double subjectAvg = row.getAverage();
 
             subjectStats.add(SubjectStatDTO.builder()
-                    .subjectName(subject.getName())
-                    .teacherName(subject.getTeacher().getLastName())
-                    .coefficient(subject.getCoefficient())
+                    .subjectName(row.getSubjectName())
+                    .teacherName(row.getTeacherName())
+                    .coefficient(row.getCoefficient())
                     .average(subjectAvg)
                     .appreciation(getAppreciation(subjectAvg))
                     .build());
 
-            totalScore += (subjectAvg * subject.getCoefficient());
-            totalCoeffs += subject.getCoefficient();
+            totalScore += (subjectAvg * row.getCoefficient());
+            totalCoeffs += row.getCoefficient();
         }
 
         // 2. Calculate Global Average
@@ -60,28 +156,29 @@ public class TranscriptService {
                 .academicYear(classroom.getAcademicYear().getCode())
                 .subjects(subjectStats)
                 .globalAverage(globalAvg)
-                .finalDecision(globalAvg >= 10 ? "ADMITTED" : "FAILED")
                 .build();
     }
 
-    private double calculateSubjectAverage(Long studentId, Long subjectId) {
-        List<Evaluation> exams = evalRepo.findBySubjectId(subjectId);
-
-        double weightedSum = 0;
-        double coeffSum = 0;
-
-        for (Evaluation exam : exams) {
-            double grade = gradeRepo.findByStudentIdAndEvaluationId(studentId, exam.getId())
-                    .map(Grade::getScore)
-                    .orElse(0.0);
-
-            weightedSum += (grade * exam.getCoefficient());
-            coeffSum += exam.getCoefficient();
+    /**
+     * Décisions du jury pour des bulletins d'une même classe, en une passe sur les moyennes
+     * avec les règles compilées de la filière.
+     */
+    void applyDecisions(Classroom classroom, List<TranscriptDTO> transcripts, double[] eliminatoryMinimums) {
+        DeliberationRules rules = policyService.rulesForProgram(classroom.getProgram());
+        int subjectCount = eliminatoryMinimums.length;
+        double[] globals = new double[transcripts.size()];
+        double[] averages = new double[transcripts.size() * subjectCount];
+        for (int s = 0; s < transcripts.size(); s++) {
+            TranscriptDTO t = transcripts.get(s);
+            globals[s] = t.getGlobalAverage();
+            for (int i = 0; i < subjectCount; i++) averages[s * subjectCount + i] = t.getSubjects().get(i).getAverage();
         }
+        String[] decisions = rules.decideAll(globals, averages, eliminatoryMinimums);
+        for (int s = 0; s < transcripts.size(); s++) transcripts.get(s).setFinalDecision(decisions[s]);
+    }
 
-        if (coeffSum == 0) return 0.0;
-        double avg = weightedSum / coeffSum;
-        return Math.round(avg * 100.0) / 100.0;
+    private String teacherName(Subject subject) {
+        return subject.getTeacher() != null ? subject.getTeacher().getLastName() : null;
     }
 
     private String getAppreciation(double avg) {
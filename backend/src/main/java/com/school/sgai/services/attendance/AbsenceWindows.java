@@ -0,0 +1,82 @@
+package com.school.sgai.services.attendance;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Absences non excusées récentes de chaque couple (étudiant, matière), en mémoire.
+ * Une absence qui amène une fenêtre glissante de windowDays jours à exactement threshold
+ * absences signale un franchissement ; au plus windowDays dates par couple.
+ * Non thread-safe : les appelants synchronisent.
+ */
+public class AbsenceWindows {
+
+    public record Key(Long studentId, Long subjectId) {}
+
+    public record Crossing(Long studentId, Long subjectId, LocalDate windowStart, LocalDate windowEnd, int absences) {}
+
+    private final int threshold;
+    private final int windowDays;
+    private final Map<Key, TreeSet<LocalDate>> absences = new HashMap<>();
+
+    public AbsenceWindows(int threshold, int windowDays) {
+        if (threshold < 1 || windowDays < 1) throw new IllegalArgumentException("Seuil et fenêtre doivent être positifs");
+        this.threshold = threshold;
+        this.windowDays = windowDays;
+    }
+
+    // Plus ancienne date encore utile au jour "today" (les fenêtres plus anciennes sont closes)
+    public LocalDate horizon(LocalDate today) {
+        return today.minusDays(windowDays - 1L);
+    }
+
+    public void seed(Long studentId, Long subjectId, LocalDate absence) {
+        absences.computeIfAbsent(new Key(studentId, subjectId), k -> new TreeSet<>()).add(absence);
+    }
+
+    public void reset(Key key, Collection<LocalDate> dates) {
+        if (dates.isEmpty()) absences.remove(key);
+        else absences.put(key, new TreeSet<>(dates));
+    }
+
+    // Enregistre une absence ; renvoie la fenêtre qui atteint le seuil avec elle, sinon null
+    public Crossing addAbsence(Long studentId, Long subjectId, LocalDate date, LocalDate today) {
+        if (date.isBefore(horizon(today))) return null;
+        TreeSet<LocalDate> dates = absences.computeIfAbsent(new Key(studentId, subjectId), k -> new TreeSet<>());
+        dates.headSet(horizon(today)).clear();
+        if (!dates.add(date)) return null;
+
+        // Fenêtres contenant la date : il suffit de regarder celles qui finissent sur cette
+        // absence ou une absence suivante. Toutes gagnent une absence ; le seuil n'est franchi
+        // que si la plus chargée l'atteint juste (sinon une alerte couvre déjà la période)
+        int max = 0;
+        LocalDate maxEnd = date;
+        for (LocalDate end : dates.subSet(date, true, date.plusDays(windowDays - 1L), true)) {
+            int count = dates.subSet(end.minusDays(windowDays - 1L), true, end, true).size();
+            if (count > max) {
+                max = count;
+                maxEnd = end;
+            }
+        }
+        return max == threshold
+                ? new Crossing(studentId, subjectId, maxEnd.minusDays(windowDays - 1L), maxEnd, max)
+                : null;
+    }
+
+    public void removeAbsence(Long studentId, Long subjectId, LocalDate date) {
+        Key key = new Key(studentId, subjectId);
+        TreeSet<LocalDate> dates = absences.get(key);
+        if (dates == null) return;
+        dates.remove(date);
+        if (dates.isEmpty()) absences.remove(key);
+    }
+
+    public int countInWindowEnding(Long studentId, Long subjectId, LocalDate end) {
+        TreeSet<LocalDate> dates = absences.get(new Key(studentId, subjectId));
+        return dates == null ? 0 : dates.subSet(end.minusDays(windowDays - 1L), true, end, true).size();
+    }
+
+    public int trackedPairs() {
+        return absences.size();
+    }
+}
@@ -0,0 +1,253 @@
+package com.school.sgai.services.attendance;
+
+import com.school.sgai.dto.attendance.AttendanceMark;
+import com.school.sgai.enums.AbsenceStatus;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Présences d'une classe sur une période, en lecture seule, sous forme de bitsets
+ * (par séance et par étudiant) : taux, séries et seuils se calculent par comptage de bits.
+ * Une séance non saisie pour un étudiant ne compte pas dans son taux et ne coupe pas ses séries.
+ */
+public class AttendanceBitmap {
+
+    public record Session(Long subjectId, LocalDate date) {}
+
+    private static final Comparator<Session> TIMELINE =
+            Comparator.comparing(Session::date).thenComparing(Session::subjectId);
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final long[] studentIds;
+    private final Session[] sessions;
+    private final Map<Long, Integer> studentSlots = new HashMap<>();
+    private final Map<Session, Integer> sessionSlots = new HashMap<>();
+
+    // Par séance : bits = slots étudiants
+    private final BitSet[] sessionRecorded;
+    private final BitSet[] sessionAbsent;
+    private final BitSet[] sessionLate;
+
+    // Par étudiant : bits = positions des séances sur la chronologie
+    private final BitSet[] studentRecorded;
+    private final BitSet[] studentAbsent;
+
+    private AttendanceBitmap(long[] studentIds, Session[] sessions,
+                             BitSet[] sessionRecorded, BitSet[] sessionAbsent, BitSet[] sessionLate) {
+        this.studentIds = studentIds;
+        this.sessions = sessions;
+        this.sessionRecorded = sessionRecorded;
+        this.sessionAbsent = sessionAbsent;
+        this.sessionLate = sessionLate;
+        for (int i = 0; i < studentIds.length; i++) studentSlots.put(studentIds[i], i);
+        for (int i = 0; i < sessions.length; i++) sessionSlots.put(sessions[i], i);
+
+        // Transposition séances -> étudiants
+        studentRecorded = new BitSet[studentIds.length];
+        studentAbsent = new BitSet[studentIds.length];
+        for (int s = 0; s < studentIds.length; s++) {
+            studentRecorded[s] = new BitSet(sessions.length);
+            studentAbsent[s] = new BitSet(sessions.length);
+        }
+        for (int t = 0; t < sessions.length; t++) {
+            for (int s = sessionRecorded[t].nextSetBit(0); s >= 0; s = sessionRecorded[t].nextSetBit(s + 1)) {
+                studentRecorded[s].set(t);
+            }
+            for (int s = sessionAbsent[t].nextSetBit(0); s >= 0; s = sessionAbsent[t].nextSetBit(s + 1)) {
+                studentAbsent[s].set(t);
+            }
+        }
+    }
+
+    // Bitmap d'une liste d'étudiants ; les saisies des autres étudiants sont ignorées
+    public static AttendanceBitmap build(Collection<Long> rosterIds, List<AttendanceMark> marks) {
+        long[] studentIds = rosterIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        Map<Long, Integer> slots = new HashMap<>();
+        for (int i = 0; i < studentIds.length; i++) slots.put(studentIds[i], i);
+
+        TreeMap<Session, BitSet[]> bySession = new TreeMap<>(TIMELINE);
+        for (AttendanceMark mark : marks) {
+            Integer slot = slots.get(mark.getStudentId());
+            if (slot == null || mark.getStatus() == null) continue;
+            BitSet[] bits = bySession.computeIfAbsent(new Session(mark.getSubjectId(), mark.getDate()),
+                    k -> new BitSet[] { new BitSet(studentIds.length), new BitSet(), new BitSet() });
+            bits[0].set(slot);
+            if (mark.getStatus() == AbsenceStatus.ABSENT) bits[1].set(slot);
+            if (mark.getStatus() == AbsenceStatus.LATE) bits[2].set(slot);
+        }
+
+        int n = bySession.size();
+        Session[] sessions = new Session[n];
+        BitSet[] recorded = new BitSet[n];
+        BitSet[] absent = new BitSet[n];
+        BitSet[] late = new BitSet[n];
+        int t = 0;
+        for (Map.Entry<Session, BitSet[]> e : bySession.entrySet()) {
+            sessions[t] = e.getKey();
+            recorded[t] = e.getValue()[0];
+            absent[t] = e.getValue()[1];
+            late[t] = e.getValue()[2];
+            t++;
+        }
+        return new AttendanceBitmap(studentIds, sessions, recorded, absent, late);
+    }
+
+    public int getStudentCount() {
+        return studentIds.length;
+    }
+
+    public int getSessionCount() {
+        return sessions.length;
+    }
+
+    public List<Session> getSessions() {
+        return List.of(sessions);
+    }
+
+    // ==========================================
+    // REQUÊTES PAR ÉTUDIANT
+    // ==========================================
+
+    public int recordedCount(Long studentId) {
+        Integer s = studentSlots.get(studentId);
+        return s == null ? 0 : studentRecorded[s].cardinality();
+    }
+
+    public int absenceCount(Long studentId) {
+        Integer s = studentSlots.get(studentId);
+        return s == null ? 0 : studentAbsent[s].cardinality();
+    }
+
+    // Part des séances saisies où l'étudiant était absent (0 sans aucune saisie)
+    public double absenceRate(Long studentId) {
+        int recorded = recordedCount(studentId);
+        return recorded == 0 ? 0.0 : (double) absenceCount(studentId) / recorded;
+    }
+
+    // Plus longue suite d'absences consécutives sur la chronologie des séances saisies
+    public int longestAbsenceStreak(Long studentId) {
+        Integer s = studentSlots.get(studentId);
+        if (s == null) return 0;
+
+        // Une séance non saisie ne coupe pas la série : absent OU non saisi
+        BitSet run = (BitSet) studentRecorded[s].clone();
+        run.flip(0, sessions.length);
+        run.or(studentAbsent[s]);
+
+        int longest = 0;
+        for (int start = run.nextSetBit(0); start >= 0; ) {
+            int end = run.nextClearBit(start);
+            longest = Math.max(longest, studentAbsent[s].get(start, end).cardinality());
+            start = run.nextSetBit(end);
+        }
+        return longest;
+    }
+
+    public List<Long> studentsAbsentMoreThan(int threshold) {
+        List<Long> result = new ArrayList<>();
+        for (int s = 0; s < studentIds.length; s++) {
+            if (studentAbsent[s].cardinality() > threshold) result.add(studentIds[s]);
+        }
+        return result;
+    }
+
+    // ==========================================
+    // REQUÊTES PAR SÉANCE
+    // ==========================================
+
+    public int absentCount(Session session) {
+        Integer t = sessionSlots.get(session);
+        return t == null ? 0 : sessionAbsent[t].cardinality();
+    }
+
+    public int lateCount(Session session) {
+        Integer t = sessionSlots.get(session);
+        return t == null ? 0 : sessionLate[t].cardinality();
+    }
+
+    // Étudiants absents à toutes les séances données (intersection des bitsets)
+    public List<Long> absentAtAll(Collection<Session> selection) {
+        BitSet all = new BitSet(studentIds.length);
+        all.set(0, studentIds.length);
+        for (Session session : selection) {
+            Integer t = sessionSlots.get(session);
+            if (t == null) return List.of();
+            all.and(sessionAbsent[t]);
+        }
+        List<Long> result = new ArrayList<>();
+        for (int s = all.nextSetBit(0); s >= 0; s = all.nextSetBit(s + 1)) result.add(studentIds[s]);
+        return result;
+    }
+
+    // ==========================================
+    // TAILLE ET FORMAT BINAIRE
+    // ==========================================
+
+    // Mémoire des bitsets (mots de 64 bits), hors index de recherche
+    public long bitmapBytes() {
+        long words = 0;
+        for (BitSet[] family : List.of(sessionRecorded, sessionAbsent, sessionLate, studentRecorded, studentAbsent)) {
+            for (BitSet bits : family) words += bits.size() / 64;
+        }
+        return words * 8 + studentIds.length * 8L;
+    }
+
+    // Format binaire : étudiants, chronologie, puis les trois bitsets de chaque séance
+    // (ceux des étudiants s'en déduisent et ne sont pas écrits)
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(studentIds.length);
+            for (long id : studentIds) out.writeLong(id);
+            out.writeInt(sessions.length);
+            for (int t = 0; t < sessions.length; t++) {
+                out.writeLong(sessions[t].subjectId());
+                out.writeInt((int) sessions[t].date().toEpochDay());
+                writeBits(out, sessionRecorded[t]);
+                writeBits(out, sessionAbsent[t]);
+                writeBits(out, sessionLate[t]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static AttendanceBitmap decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != FORMAT_VERSION) throw new IllegalArgumentException("Format de présences inconnu");
+            long[] studentIds = new long[in.readInt()];
+            for (int i = 0; i < studentIds.length; i++) studentIds[i] = in.readLong();
+            int n = in.readInt();
+            Session[] sessions = new Session[n];
+            BitSet[] recorded = new BitSet[n];
+            BitSet[] absent = new BitSet[n];
+            BitSet[] late = new BitSet[n];
+            for (int t = 0; t < n; t++) {
+                sessions[t] = new Session(in.readLong(), LocalDate.ofEpochDay(in.readInt()));
+                recorded[t] = readBits(in);
+                absent[t] = readBits(in);
+                late[t] = readBits(in);
+            }
+            return new AttendanceBitmap(studentIds, sessions, recorded, absent, late);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeBits(DataOutputStream out, BitSet bits) throws IOException {
+        byte[] raw = bits.toByteArray();
+        out.writeShort(raw.length);
+        out.write(raw);
+    }
+
+    private static BitSet readBits(DataInputStream in) throws IOException {
+        byte[] raw = new byte[in.readUnsignedShort()];
+        in.readFully(raw);
+        return BitSet.valueOf(raw);
+    }
+}
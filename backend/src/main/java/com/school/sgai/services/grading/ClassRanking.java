@@ -0,0 +1,71 @@
+package com.school.sgai.services.grading;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dense ranking of a classroom on the global average (equal averages share
+ * the same rank, the next average gets rank + 1).
+ */
+public class ClassRanking {
+
+    private final Map<Long, Integer> ranks;
+    private final Map<Long, Double> percentiles;
+    private final int size;
+
+    private ClassRanking(Map<Long, Integer> ranks, Map<Long, Double> percentiles, int size) {
+        this.ranks = ranks;
+        this.percentiles = percentiles;
+        this.size = size;
+    }
+
+    /**
+     * One pass over the averages sorted in descending order.
+     *
+     * @param studentIds  students of the classroom
+     * @param averages    global averages, same order as studentIds
+     */
+    public static ClassRanking of(long[] studentIds, double[] averages) {
+        int n = studentIds.length;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(averages[b], averages[a]));
+
+        Map<Long, Integer> ranks = new HashMap<>(n * 2);
+        Map<Long, Double> percentiles = new HashMap<>(n * 2);
+        int rank = 0;
+        int below = n; // nombre d'étudiants strictement en dessous de la moyenne courante
+        for (int i = 0; i < n; i++) {
+            int idx = order[i];
+            if (i == 0 || averages[idx] != averages[order[i - 1]]) {
+                rank++;
+                // Les ex aequo partagent le même percentile
+                int j = i;
+                while (j < n && averages[order[j]] == averages[idx]) j++;
+                below = n - j;
+            }
+            ranks.put(studentIds[idx], rank);
+            percentiles.put(studentIds[idx], n > 1 ? Math.round(below * 1000.0 / (n - 1)) / 10.0 : 100.0);
+        }
+        return new ClassRanking(ranks, percentiles, n);
+    }
+
+    public Integer rankOf(Long studentId) { return ranks.get(studentId); }
+
+    // Part de la classe (en %) ayant une moyenne strictement inférieure
+    public Double percentileOf(Long studentId) { return percentiles.get(studentId); }
+
+    public int size() { return size; }
+
+    // 1 -> "1st", 2 -> "2nd", 11 -> "11th"...
+    public static String format(int rank) {
+        if (rank % 100 >= 11 && rank % 100 <= 13) return rank + "th";
+        switch (rank % 10) {
+            case 1: return rank + "st";
+            case 2: return rank + "nd";
+            case 3: return rank + "rd";
+            default: return rank + "th";
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.school.sgai.services.grading;
+
+import com.school.sgai.dto.transcript.GradeCell;
+import com.school.sgai.entities.Evaluation;
+import com.school.sgai.entities.Student;
+import com.school.sgai.entities.Subject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory student × evaluation matrix of a classroom.
+ *
+ * Built once from the classroom's subjects, evaluations and grades, then every
+ * student's subject averages are computed from plain arrays, without any
+ * further database access. A missing grade counts as 0 (same rule as the bulletin).
+ *
+ * The what-if methods work on unrounded averages (the bulletin rounds each
+ * subject average to 2 decimals), and never modify the matrix.
+ */
+public class ClassroomGradeMatrix {
+
+    private final Long classroomId;
+    private final List<Student> students;
+    private final List<Subject> subjects;
+    private final List<Evaluation> evaluations;
+
+    private final Map<Long, Integer> studentSlots = new HashMap<>();
+    private final Map<Long, Integer> subjectSlots = new HashMap<>();
+    private final Map<Long, Integer> evaluationSlots = new HashMap<>();
+
+    // scores[studentSlot * evaluationCount + evaluationSlot]
+    private final double[] scores;
+    private final int[] evaluationCoefficients;
+    private final int[] evaluationSubjectSlots;
+    private final int[] subjectCoefficients;
+    private final long[] subjectCoefficientTotals;
+    private final double[] evaluationMaxScores;
+
+    // graded[studentSlot * subjectCount + subjectSlot] : at least one grade in the subject
+    private final boolean[] graded;
+
+    // averages[studentSlot * subjectCount + subjectSlot], unrounded
+    private final double[] averages;
+
+    // Same layout, rounded like the bulletin (subject averages, then global average, to 2 decimals)
+    private final double[] bulletinAverages;
+    private final double[] bulletinGlobalAverages;
+
+    public ClassroomGradeMatrix(Long classroomId, List<Student> students, List<Subject> subjects,
+                                List<Evaluation> evaluations, List<GradeCell> grades) {
+        this.classroomId = classroomId;
+        this.students = students;
+        this.subjects = subjects;
+        this.evaluations = evaluations;
+
+        for (int i = 0; i < students.size(); i++) studentSlots.put(students.get(i).getId(), i);
+        for (int i = 0; i < subjects.size(); i++) subjectSlots.put(subjects.get(i).getId(), i);
+
+        subjectCoefficients = new int[subjects.size()];
+        for (int i = 0; i < subjects.size(); i++) subjectCoefficients[i] = subjects.get(i).getCoefficient();
+
+        evaluationCoefficients = new int[evaluations.size()];
+        evaluationSubjectSlots = new int[evaluations.size()];
+        evaluationMaxScores = new double[evaluations.size()];
+        subjectCoefficientTotals = new long[subjects.size()];
+        for (int e = 0; e < evaluations.size(); e++) {
+            Evaluation eval = evaluations.get(e);
+            evaluationSlots.put(eval.getId(), e);
+            evaluationCoefficients[e] = eval.getCoefficient();
+            evaluationMaxScores[e] = eval.getMaxScore() != null ? eval.getMaxScore() : 20.0;
+            evaluationSubjectSlots[e] = subjectSlots.get(eval.getSubject().getId());
+            subjectCoefficientTotals[evaluationSubjectSlots[e]] += eval.getCoefficient();
+        }
+
+        scores = new double[students.size() * evaluations.size()];
+        graded = new boolean[students.size() * subjects.size()];
+        for (GradeCell cell : grades) {
+            Integer s = studentSlots.get(cell.getStudentId());
+            Integer e = evaluationSlots.get(cell.getEvaluationId());
+            // Grades of students who left the classroom are ignored
+            if (s == null || e == null || cell.getScore() == null) continue;
+            scores[s * evaluations.size() + e] = cell.getScore();
+            graded[s * subjects.size() + evaluationSubjectSlots[e]] = true;
+        }
+
+        averages = new double[students.size() * subjects.size()];
+        for (int s = 0; s < students.size(); s++) {
+            double[] sums = weightedSums(s);
+            for (int i = 0; i < subjects.size(); i++) {
+                averages[s * subjects.size() + i] = subjectCoefficientTotals[i] > 0 ? sums[i] / subjectCoefficientTotals[i] : 0.0;
+            }
+        }
+
+        bulletinAverages = new double[averages.length];
+        bulletinGlobalAverages = new double[students.size()];
+        for (int s = 0; s < students.size(); s++) {
+            double total = 0;
+            long coeffs = 0;
+            for (int i = 0; i < subjects.size(); i++) {
+                double avg = round2(averages[s * subjects.size() + i]);
+                bulletinAverages[s * subjects.size() + i] = avg;
+                total += avg * subjectCoefficients[i];
+                coeffs += subjectCoefficients[i];
+            }
+            bulletinGlobalAverages[s] = coeffs > 0 ? round2(total / coeffs) : 0.0;
+        }
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    /**
+     * Weighted score sums of one student, indexed by subject slot.
+     */
+    public double[] weightedSums(int studentSlot) {
+        double[] sums = new double[subjects.size()];
+        int offset = studentSlot * evaluations.size();
+        for (int e = 0; e < evaluations.size(); e++) {
+            sums[evaluationSubjectSlots[e]] += scores[offset + e] * evaluationCoefficients[e];
+        }
+        return sums;
+    }
+
+    // ============================================================
+    // WHAT-IF (aucun accès base, tableaux primitifs uniquement)
+    // ============================================================
+
+    /**
+     * Global average of one student with the given subject coefficients.
+     */
+    public double globalAverage(int studentSlot, int[] coefficients) {
+        double total = 0;
+        long coeffs = 0;
+        int offset = studentSlot * subjects.size();
+        for (int i = 0; i < subjects.size(); i++) {
+            total += averages[offset + i] * coefficients[i];
+            coeffs += coefficients[i];
+        }
+        return coeffs > 0 ? total / coeffs : 0.0;
+    }
+
+    /**
+     * Minimum score each student needs on one evaluation so that the global
+     * average reaches the target, all other grades unchanged.
+     *
+     * @return per student slot: 0 if the target is reached whatever the score,
+     *         NaN if it cannot be reached even with the maximum score
+     */
+    public double[] minimumScoresFor(int evaluationSlot, double target) {
+        int subjectSlot = evaluationSubjectSlots[evaluationSlot];
+        double coeffSum = 0;
+        for (int c : subjectCoefficients) coeffSum += c;
+        // Poids d'un point sur cette évaluation dans la moyenne générale
+        double weight = (subjectCoefficientTotals[subjectSlot] > 0 && coeffSum > 0)
+                ? (double) subjectCoefficients[subjectSlot] * evaluationCoefficients[evaluationSlot]
+                  / subjectCoefficientTotals[subjectSlot] / coeffSum
+                : 0.0;
+
+        double[] result = new double[students.size()];
+        for (int s = 0; s < students.size(); s++) {
+            double current = scores[s * evaluations.size() + evaluationSlot];
+            double withoutEval = globalAverage(s, subjectCoefficients) - weight * current;
+            if (withoutEval >= target) {
+                result[s] = 0.0;
+            } else if (weight == 0) {
+                result[s] = Double.NaN;
+            } else {
+                double needed = (target - withoutEval) / weight;
+                result[s] = needed <= evaluationMaxScores[evaluationSlot] ? Math.ceil(needed * 100.0) / 100.0 : Double.NaN;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Share of students (0..1) whose global average reaches the threshold
+     * when the coefficient of one subject is replaced.
+     */
+    public double passRateWithCoefficient(int subjectSlot, int coefficient, double threshold) {
+        if (students.isEmpty()) return 0.0;
+        int[] coefficients = subjectCoefficients.clone();
+        coefficients[subjectSlot] = coefficient;
+        return passRate(coefficients, threshold);
+    }
+
+    public double passRate(int[] coefficients, double threshold) {
+        if (students.isEmpty()) return 0.0;
+        int passed = 0;
+        for (int s = 0; s < students.size(); s++) {
+            if (globalAverage(s, coefficients) >= threshold) passed++;
+        }
+        return (double) passed / students.size();
+    }
+
+    /**
+     * Jury decisions of the whole classroom with the given rules, on the bulletin (rounded) averages.
+     */
+    public String[] decisions(DeliberationRules rules, double[] eliminatoryMinimums) {
+        return rules.decideAll(bulletinGlobalAverages, bulletinAverages, eliminatoryMinimums);
+    }
+
+    public boolean hasGrade(int studentSlot, int subjectSlot) {
+        return graded[studentSlot * subjects.size() + subjectSlot];
+    }
+
+    public double score(int studentSlot, int evaluationSlot) {
+        return scores[studentSlot * evaluations.size() + evaluationSlot];
+    }
+
+    public int[] subjectCoefficients() { return subjectCoefficients.clone(); }
+    public Integer evaluationSlot(Long evaluationId) { return evaluationSlots.get(evaluationId); }
+    public Integer subjectSlot(Long subjectId) { return subjectSlots.get(subjectId); }
+
+    public Long getClassroomId() { return classroomId; }
+    public List<Student> getStudents() { return students; }
+    public List<Subject> getSubjects() { return subjects; }
+    public List<Evaluation> getEvaluations() { return evaluations; }
+    public int studentCount() { return students.size(); }
+    public int subjectCount() { return subjects.size(); }
+    public int evaluationCount() { return evaluations.size(); }
+    public int subjectCoefficient(int subjectSlot) { return subjectCoefficients[subjectSlot]; }
+    public long subjectCoefficientTotal(int subjectSlot) { return subjectCoefficientTotals[subjectSlot]; }
+}
@@ -0,0 +1,88 @@
+package com.school.sgai.services.grading;
+
+import com.school.sgai.entities.DeliberationPolicy;
+
+/**
+ * Deliberation policy compiled into primitive thresholds, evaluated for a whole
+ * classroom in one pass over the averages arrays (no entity, no database access).
+ *
+ * Order of the rules:
+ * 1. a subject average under its eliminatory minimum -> FAILED;
+ * 2. global average >= pass threshold, with compensation or without any debt -> ADMITTED;
+ * 3. global average >= pass threshold without compensation, debts <= max debts -> CONDITIONAL;
+ * 4. global average >= conditional threshold, debts <= max debts -> CONDITIONAL;
+ * 5. otherwise FAILED.
+ * A debt is a subject whose average is under the subject pass mark.
+ */
+public final class DeliberationRules {
+
+    public static final String ADMITTED = "ADMITTED";
+    public static final String CONDITIONAL = "CONDITIONAL";
+    public static final String FAILED = "FAILED";
+
+    // Règle historique : admis à partir de 10 de moyenne générale, compensation totale
+    public static final DeliberationRules DEFAULT = new DeliberationRules(10.0, Double.NaN, true, 10.0, 0);
+
+    private final double passThreshold;
+    private final double conditionalThreshold; // NaN = pas d'admission conditionnelle
+    private final boolean compensation;
+    private final double subjectPassMark;
+    private final int maxDebts;
+
+    private DeliberationRules(double passThreshold, double conditionalThreshold, boolean compensation,
+                              double subjectPassMark, int maxDebts) {
+        this.passThreshold = passThreshold;
+        this.conditionalThreshold = conditionalThreshold;
+        this.compensation = compensation;
+        this.subjectPassMark = subjectPassMark;
+        this.maxDebts = maxDebts;
+    }
+
+    public static DeliberationRules compile(DeliberationPolicy policy) {
+        if (policy == null) return DEFAULT;
+        return new DeliberationRules(policy.getPassThreshold(),
+                policy.getConditionalThreshold() != null ? policy.getConditionalThreshold() : Double.NaN,
+                policy.isCompensation(), policy.getSubjectPassMark(), Math.max(0, policy.getMaxDebts()));
+    }
+
+    /**
+     * Decision of one student.
+     *
+     * @param subjectAverages averages indexed by subject slot, starting at offset
+     * @param eliminatoryMinimums per subject slot, NaN when the subject has none
+     */
+    public String decide(double globalAverage, double[] subjectAverages, int offset, double[] eliminatoryMinimums) {
+        int debts = 0;
+        for (int i = 0; i < eliminatoryMinimums.length; i++) {
+            double avg = subjectAverages[offset + i];
+            // NaN < x est toujours faux : une matière sans note éliminatoire ne bloque jamais
+            if (avg < eliminatoryMinimums[i]) return FAILED;
+            if (avg < subjectPassMark) debts++;
+        }
+        if (globalAverage >= passThreshold) {
+            if (compensation || debts == 0) return ADMITTED;
+            if (debts <= maxDebts) return CONDITIONAL;
+            return FAILED;
+        }
+        if (globalAverage >= conditionalThreshold && debts <= maxDebts) return CONDITIONAL;
+        return FAILED;
+    }
+
+    /**
+     * Decisions of a whole classroom.
+     *
+     * @param globalAverages indexed by student slot
+     * @param subjectAverages averages[studentSlot * subjectCount + subjectSlot]
+     * @param eliminatoryMinimums per subject slot (its length is the subject count)
+     */
+    public String[] decideAll(double[] globalAverages, double[] subjectAverages, double[] eliminatoryMinimums) {
+        int subjectCount = eliminatoryMinimums.length;
+        String[] decisions = new String[globalAverages.length];
+        for (int s = 0; s < globalAverages.length; s++) {
+            decisions[s] = decide(globalAverages[s], subjectAverages, s * subjectCount, eliminatoryMinimums);
+        }
+        return decisions;
+    }
+
+    public double getPassThreshold() { return passThreshold; }
+}
@@ -0,0 +1,20 @@
+package com.school.sgai.services.grading;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A grade write as seen by the rollups: previous score (null for a new grade)
+ * and new score (null when the grade is removed).
+ */
+@Getter
+@AllArgsConstructor
+public class GradeChange {
+    private Long studentId;
+    private Double oldScore;
+    private Double newScore;
+
+    public double delta() {
+        return (newScore != null ? newScore : 0.0) - (oldScore != null ? oldScore : 0.0);
+    }
+}
@@ -0,0 +1,118 @@
+package com.school.sgai.services.grading;
+
+import com.school.sgai.dto.transcript.TranscriptDTO;
+import com.school.sgai.events.DeliberationPolicyChangedEvent;
+import com.school.sgai.events.ResultsChangedEvent;
+import com.school.sgai.services.TranscriptService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of transcripts, in front of TranscriptService.
+ *
+ * Entries are dropped on ResultsChangedEvent, after the commit of the write,
+ * so a reader never re-caches data older than the change it was notified of.
+ */
+@Component
+@RequiredArgsConstructor
+public class TranscriptCache {
+
+    private final TranscriptService transcriptService;
+
+    @Value("${sgai.transcript-cache.max-size:2000}")
+    private int maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // Incrémenté à chaque invalidation : un calcul commencé avant ne doit pas être mis en cache
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final Map<Long, TranscriptDTO> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, TranscriptDTO> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    public TranscriptDTO get(Long studentId) {
+        synchronized (entries) {
+            TranscriptDTO cached = entries.get(studentId);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+
+        long startEpoch = epoch.get();
+        TranscriptDTO transcript = transcriptService.generateTranscript(studentId);
+        synchronized (entries) {
+            if (epoch.get() == startEpoch) entries.put(studentId, transcript);
+        }
+        return transcript;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onResultsChanged(ResultsChangedEvent event) {
+        synchronized (entries) {
+            epoch.incrementAndGet();
+            invalidations.incrementAndGet();
+            if (event.isWholeClassroom()) {
+                entries.values().removeIf(t -> t.getStudent().getClassroom() != null
+                        && event.getClassroomId().equals(t.getStudent().getClassroom().getId()));
+            } else {
+                entries.keySet().removeAll(event.getStudentIds());
+            }
+        }
+    }
+
+    // Nouvelles règles de délibération : seules les décisions changent, mais elles sont dans le bulletin
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPolicyChanged(DeliberationPolicyChangedEvent event) {
+        synchronized (entries) {
+            epoch.incrementAndGet();
+            invalidations.incrementAndGet();
+            entries.values().removeIf(t -> t.getStudent().getClassroom() != null
+                    && t.getStudent().getClassroom().getProgram() != null
+                    && event.getProgramId().equals(t.getStudent().getClassroom().getProgram().getId()));
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            epoch.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.get();
+        long m = misses.get();
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("max_size", maxSize);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hit_rate", (h + m) > 0 ? (double) h / (h + m) : 0.0);
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+}
@@ -0,0 +1,70 @@
+package com.school.sgai.services.imports;
+
+import com.opencsv.CSVWriterBuilder;
+import com.opencsv.ICSVWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes the rejected rows of an import as CSV while the file is processed.
+ *
+ * Only the errors of the chunk being checked are held in memory: they are sorted
+ * and written when the chunk is done, so the output follows the file order.
+ */
+public class CsvErrorSink implements ImportSink {
+
+    private record RowError(int row, String message) {}
+
+    private final ICSVWriter writer;
+    private final List<RowError> pending = new ArrayList<>();
+    private int validCount;
+    private int errorCount;
+
+    public CsvErrorSink(Writer out) {
+        this.writer = new CSVWriterBuilder(out).withSeparator(';').build();
+        writer.writeNext(new String[] { "ligne", "erreur" }, false);
+    }
+
+    @Override
+    public void success(int row) {
+        validCount++;
+    }
+
+    @Override
+    public void error(int row, String message) {
+        pending.add(new RowError(row, message));
+    }
+
+    @Override
+    public void committed(int lastRow) {
+        pending.sort(Comparator.comparingInt(RowError::row));
+        int written = 0;
+        while (written < pending.size() && pending.get(written).row() <= lastRow) {
+            RowError e = pending.get(written++);
+            writer.writeNext(new String[] { String.valueOf(e.row()), e.message() }, false);
+        }
+        errorCount += written;
+        pending.subList(0, written).clear();
+    }
+
+    /**
+     * Writes the remaining errors (file-level errors included) and a summary line.
+     */
+    public void finish() {
+        committed(Integer.MAX_VALUE);
+        writer.writeNext(new String[] { "", validCount + " ligne(s) valide(s), " + errorCount + " erreur(s)" }, false);
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int getValidCount() { return validCount; }
+    public int getErrorCount() { return errorCount; }
+}
@@ -0,0 +1,43 @@
+package com.school.sgai.services.imports;
+
+import com.school.sgai.dto.ImportReport;
+import com.school.sgai.enums.RowOutcome;
+
+/**
+ * Destination of the per-row outcome of an import: an in-memory {@link ImportReport}
+ * for a synchronous import, or the persisted progress of a background import job.
+ */
+public interface ImportSink {
+
+    // Lignes déjà traitées avant une reprise : relues pour les contrôles, sans rien rapporter
+    ImportSink IGNORE = new ImportSink() {
+        @Override public void success(int row) {}
+        @Override public void error(int row, String message) {}
+    };
+
+    void success(int row);
+
+    // Import de notes : nouvelle note, note modifiée ou identique (non réécrite)
+    default void success(int row, RowOutcome outcome) {
+        success(row);
+    }
+
+    void error(int row, String message);
+
+    default void activation(int row, String username, String token) {}
+
+    /**
+     * Called inside the transaction that commits every row up to lastRow,
+     * so the progress of a job is committed together with its data.
+     */
+    default void committed(int lastRow) {}
+
+    static ImportSink of(ImportReport report) {
+        return new ImportSink() {
+            @Override public void success(int row) { report.addSuccess(); }
+            @Override public void success(int row, RowOutcome outcome) { report.addSuccess(outcome); }
+            @Override public void error(int row, String message) { report.addError(row, message); }
+            @Override public void activation(int row, String username, String token) { report.addActivation(username, token); }
+        };
+    }
+}
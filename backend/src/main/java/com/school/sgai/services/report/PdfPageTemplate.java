@@ -0,0 +1,145 @@
+package com.school.sgai.services.report;
+
+import com.lowagie.text.Element;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfTemplate;
+import com.lowagie.text.pdf.PdfWriter;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Fixed content of a page (letterhead, titles, labels, table headers), laid out
+ * once when the template is built and replayed into a form XObject for each
+ * document. Per-document rendering then only stamps the variable fields with
+ * {@link #stamp}, without going through the iText layout engine (ColumnText).
+ *
+ * Coordinates are PDF points, origin at the bottom-left corner of the page.
+ * A built template is immutable and can be shared between threads.
+ */
+public final class PdfPageTemplate {
+
+    private final Rectangle pageSize;
+    private final List<Consumer<PdfContentByte>> operations;
+
+    private PdfPageTemplate(Rectangle pageSize, List<Consumer<PdfContentByte>> operations) {
+        this.pageSize = pageSize;
+        this.operations = List.copyOf(operations);
+    }
+
+    public static Builder builder(Rectangle pageSize) {
+        return new Builder(pageSize);
+    }
+
+    /**
+     * Replays the fixed content into a form XObject of the given writer.
+     * Add it to every page that uses it: the content is written only once in the file.
+     */
+    public PdfTemplate compile(PdfWriter writer) {
+        PdfTemplate template = writer.getDirectContent().createTemplate(pageSize.getWidth(), pageSize.getHeight());
+        for (Consumer<PdfContentByte> op : operations) op.accept(template);
+        return template;
+    }
+
+    /**
+     * Writes one variable field, shrinking the font (down to 7pt) then truncating
+     * the text so that it never exceeds maxWidth.
+     */
+    public static void stamp(PdfContentByte canvas, BaseFont font, float size, Color color, int alignment,
+                             String text, float x, float y, float maxWidth) {
+        if (text == null || text.isEmpty()) return;
+        float fitted = size;
+        while (fitted > 7f && font.getWidthPoint(text, fitted) > maxWidth) fitted -= 0.5f;
+        String shown = text;
+        if (font.getWidthPoint(shown, fitted) > maxWidth) {
+            while (shown.length() > 1 && font.getWidthPoint(shown + "...", fitted) > maxWidth) {
+                shown = shown.substring(0, shown.length() - 1);
+            }
+            shown = shown + "...";
+        }
+        canvas.beginText();
+        canvas.setFontAndSize(font, fitted);
+        canvas.setColorFill(color);
+        canvas.showTextAligned(alignment, shown, x, y, 0);
+        canvas.endText();
+    }
+
+    public static final class Builder {
+        private final Rectangle pageSize;
+        private final List<Consumer<PdfContentByte>> operations = new ArrayList<>();
+
+        private Builder(Rectangle pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public Builder text(BaseFont font, float size, Color color, int alignment, String text, float x, float y) {
+            operations.add(cb -> {
+                cb.beginText();
+                cb.setFontAndSize(font, size);
+                cb.setColorFill(color);
+                cb.showTextAligned(alignment, text, x, y, 0);
+                cb.endText();
+            });
+            return this;
+        }
+
+        /**
+         * Static text wrapped on word boundaries once, at build time.
+         *
+         * @return the baseline of the next line
+         */
+        public float paragraph(BaseFont font, float size, Color color, String text, float x, float y, float width, float leading) {
+            StringBuilder line = new StringBuilder();
+            for (String word : text.split(" ")) {
+                String candidate = line.length() == 0 ? word : line + " " + word;
+                if (line.length() > 0 && font.getWidthPoint(candidate, size) > width) {
+                    text(font, size, color, Element.ALIGN_LEFT, line.toString(), x, y);
+                    y -= leading;
+                    line.setLength(0);
+                    line.append(word);
+                } else {
+                    line.setLength(0);
+                    line.append(candidate);
+                }
+            }
+            if (line.length() > 0) {
+                text(font, size, color, Element.ALIGN_LEFT, line.toString(), x, y);
+                y -= leading;
+            }
+            return y;
+        }
+
+        public Builder line(float x1, float y1, float x2, float y2, float width, Color color) {
+            operations.add(cb -> {
+                cb.setLineWidth(width);
+                cb.setColorStroke(color);
+                cb.moveTo(x1, y1);
+                cb.lineTo(x2, y2);
+                cb.stroke();
+            });
+            return this;
+        }
+
+        public Builder box(float x, float y, float width, float height, Color fill) {
+            operations.add(cb -> {
+                cb.setColorFill(fill);
+                cb.rectangle(x, y, width, height);
+                cb.fill();
+            });
+            return this;
+        }
+
+        public Builder include(PdfPageTemplate other) {
+            operations.addAll(other.operations);
+            return this;
+        }
+
+        public PdfPageTemplate build() {
+            return new PdfPageTemplate(pageSize, operations);
+        }
+    }
+}
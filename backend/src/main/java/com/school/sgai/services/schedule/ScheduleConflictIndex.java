@@ -0,0 +1,167 @@
+package com.school.sgai.services.schedule;
+
+import com.school.sgai.dto.schedule.SessionSlot;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Occupation des enseignants, salles et classes : un index par (ressource, jour), trié par
+ * heure de début. Les séances acceptées ne se chevauchent pas, un contrôle est donc une
+ * recherche par ressource (O(log n)) ; les chevauchements déjà en base vont dans une liste à part.
+ * Non thread-safe : les appelants synchronisent.
+ */
+public class ScheduleConflictIndex {
+
+    public enum Resource {
+        TEACHER("L'enseignant"),
+        ROOM("La salle"),
+        CLASSROOM("La classe");
+
+        private final String label;
+
+        Resource(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public record Conflict(Resource resource, SessionSlot slot, SessionSlot existing) {
+
+        public String message() {
+            return resource.getLabel() + " est déjà occupé" + (resource == Resource.TEACHER ? "" : "e")
+                    + " le " + existing + " (conflit avec " + slot + ")";
+        }
+    }
+
+    private record Key(Resource resource, Object owner, DayOfWeek day) {}
+
+    private static final class Lane {
+        private final TreeMap<LocalTime, SessionSlot> byStart = new TreeMap<>();
+        private final List<SessionSlot> overflow = new ArrayList<>();
+
+        SessionSlot firstOverlap(SessionSlot slot) {
+            Map.Entry<LocalTime, SessionSlot> before = byStart.lowerEntry(slot.getEndTime());
+            if (before != null && before.getValue().getEndTime().isAfter(slot.getStartTime())) return before.getValue();
+            for (SessionSlot other : overflow) {
+                if (other.overlaps(slot)) return other;
+            }
+            return null;
+        }
+
+        void add(SessionSlot slot) {
+            if (!byStart.containsKey(slot.getStartTime()) && firstOverlap(slot) == null) byStart.put(slot.getStartTime(), slot);
+            else overflow.add(slot);
+        }
+
+        void remove(SessionSlot slot) {
+            if (byStart.get(slot.getStartTime()) == slot) {
+                byStart.remove(slot.getStartTime());
+                // Les séances en conflit peuvent maintenant rejoindre l'index ordonné
+                List<SessionSlot> pending = new ArrayList<>(overflow);
+                overflow.clear();
+                pending.forEach(this::add);
+            } else {
+                overflow.remove(slot);
+            }
+        }
+
+        boolean isEmpty() {
+            return byStart.isEmpty() && overflow.isEmpty();
+        }
+    }
+
+    private final Map<Key, Lane> lanes = new HashMap<>();
+    private final Map<Long, SessionSlot> sessions = new HashMap<>();
+
+    // Séances que le créneau chevaucherait, au plus une par ressource
+    public List<Conflict> conflicts(SessionSlot slot) {
+        List<Conflict> conflicts = new ArrayList<>();
+        for (Key key : keys(slot)) {
+            Lane lane = lanes.get(key);
+            SessionSlot existing = lane != null ? lane.firstOverlap(slot) : null;
+            if (existing != null) conflicts.add(new Conflict(key.resource(), slot, existing));
+        }
+        return conflicts;
+    }
+
+    // Ajoute le créneau seulement s'il ne chevauche rien ; renvoie les conflits qui l'en empêchent
+    public List<Conflict> add(SessionSlot slot) {
+        List<Conflict> conflicts = conflicts(slot);
+        if (conflicts.isEmpty()) put(slot);
+        return conflicts;
+    }
+
+    // Ajoute le créneau même en conflit (séances déjà enregistrées) ; renvoie ses conflits
+    public List<Conflict> put(SessionSlot slot) {
+        if (slot.getSessionId() != null && sessions.containsKey(slot.getSessionId())) remove(slot.getSessionId());
+        List<Conflict> conflicts = conflicts(slot);
+        for (Key key : keys(slot)) {
+            lanes.computeIfAbsent(key, k -> new Lane()).add(slot);
+        }
+        if (slot.getSessionId() != null) sessions.put(slot.getSessionId(), slot);
+        return conflicts;
+    }
+
+    public boolean remove(Long sessionId) {
+        SessionSlot slot = sessions.remove(sessionId);
+        if (slot == null) return false;
+        for (Key key : keys(slot)) {
+            Lane lane = lanes.get(key);
+            if (lane == null) continue;
+            lane.remove(slot);
+            if (lane.isEmpty()) lanes.remove(key);
+        }
+        return true;
+    }
+
+    public void clear() {
+        lanes.clear();
+        sessions.clear();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    // Emploi du temps complet contre l'index et contre lui-même, sans modifier l'index ;
+    // un créneau d'une séance déjà indexée la déplace (son ancienne place ne compte pas)
+    public List<Conflict> validate(Collection<SessionSlot> timetable) {
+        List<SessionSlot> moved = new ArrayList<>();
+        for (SessionSlot slot : timetable) {
+            SessionSlot current = slot.getSessionId() != null ? sessions.get(slot.getSessionId()) : null;
+            if (current != null && remove(current.getSessionId())) moved.add(current);
+        }
+        try {
+            ScheduleConflictIndex incoming = new ScheduleConflictIndex();
+            List<Conflict> conflicts = new ArrayList<>();
+            for (SessionSlot slot : timetable) {
+                conflicts.addAll(conflicts(slot));
+                conflicts.addAll(incoming.put(slot));
+            }
+            return conflicts;
+        } finally {
+            moved.forEach(this::put);
+        }
+    }
+
+    private static List<Key> keys(SessionSlot slot) {
+        List<Key> keys = new ArrayList<>(3);
+        DayOfWeek day = slot.getDayOfWeek();
+        if (slot.getTeacherId() != null) keys.add(new Key(Resource.TEACHER, slot.getTeacherId(), day));
+        String room = roomKey(slot.getRoomNumber());
+        if (room != null) keys.add(new Key(Resource.ROOM, room, day));
+        if (slot.getClassroomId() != null) keys.add(new Key(Resource.CLASSROOM, slot.getClassroomId(), day));
+        return keys;
+    }
+
+    // "b104 " et "B104" désignent la même salle
+    public static String roomKey(String room) {
+        if (room == null || room.isBlank()) return null;
+        return room.trim().toUpperCase(Locale.ROOT);
+    }
+}
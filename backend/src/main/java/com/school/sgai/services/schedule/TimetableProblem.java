@@ -0,0 +1,164 @@
+package com.school.sgai.services.schedule;
+
+import com.school.sgai.dto.schedule.SessionSlot;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Emploi du temps d'une classe à (re)construire : cours à placer sur une grille de
+ * demi-heures, salles utilisables, et séances des autres classes qui restent en place.
+ * Les créneaux occupés sont des masques de bits par jour.
+ */
+public class TimetableProblem {
+
+    public static final List<DayOfWeek> DAYS = List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY,
+            DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY, DayOfWeek.SATURDAY);
+    public static final LocalTime DAY_START = LocalTime.of(8, 0);
+    public static final int SLOT_MINUTES = 30;
+    public static final int SLOTS_PER_DAY = 20; // 08:00 - 18:00
+
+    // Vendredi : pas de cours après 16h si possible
+    static final int FRIDAY_EVENING = 16;
+
+    // Séance à placer : courseId null pour une matière sans séance, teacherId peut être null
+    public record Lecture(Long courseId, Long subjectId, String subjectName, Long teacherId, String teacherName, int slots) {}
+
+    private final List<Lecture> lectures;
+    private final List<String> rooms;
+    private final boolean avoidGaps;
+    private final boolean balanceDays;
+    private final boolean avoidFridayEvening;
+
+    final int[] subjectIndex;
+    final int subjectCount;
+    // [lecture][day] : créneaux où l'enseignant du cours est pris dans une autre classe
+    final long[][] teacherBusy;
+    // [room][day] : créneaux où la salle est prise par une autre classe
+    final long[][] roomBusy;
+    // [lecture] : valeurs possibles, codées day * SLOTS_PER_DAY + start
+    final int[][] domains;
+    final int dayTarget;
+
+    public TimetableProblem(List<Lecture> lectures, Collection<String> rooms,
+                            Collection<SessionSlot> fixed, Map<String, Boolean> constraints) {
+        this.lectures = List.copyOf(lectures);
+        // Une salle par clé normalisée (comme l'index des conflits), le premier nom rencontré est affiché
+        SortedMap<String, String> roomNames = new TreeMap<>();
+        for (String room : rooms) {
+            String key = ScheduleConflictIndex.roomKey(room);
+            if (key != null) roomNames.putIfAbsent(key, room.trim());
+        }
+        this.rooms = new ArrayList<>(roomNames.values());
+        this.avoidGaps = constraints.getOrDefault("avoid_gaps", true);
+        this.balanceDays = constraints.getOrDefault("balance_days", true);
+        this.avoidFridayEvening = constraints.getOrDefault("avoid_friday_evening", true);
+
+        int n = this.lectures.size();
+        Map<Long, Integer> subjects = new HashMap<>();
+        subjectIndex = new int[n];
+        for (int l = 0; l < n; l++) {
+            subjectIndex[l] = subjects.computeIfAbsent(this.lectures.get(l).subjectId(), k -> subjects.size());
+        }
+        subjectCount = subjects.size();
+
+        Map<Long, long[]> teachers = new HashMap<>();
+        Map<String, Integer> roomIds = new HashMap<>();
+        for (String key : roomNames.keySet()) roomIds.put(key, roomIds.size());
+        roomBusy = new long[this.rooms.size()][DAYS.size()];
+        for (SessionSlot slot : fixed) {
+            int d = DAYS.indexOf(slot.getDayOfWeek());
+            if (d < 0) continue;
+            long mask = mask(slot.getStartTime(), slot.getEndTime());
+            if (slot.getTeacherId() != null) teachers.computeIfAbsent(slot.getTeacherId(), k -> new long[DAYS.size()])[d] |= mask;
+            String roomKey = ScheduleConflictIndex.roomKey(slot.getRoomNumber());
+            Integer r = roomKey != null ? roomIds.get(roomKey) : null;
+            if (r != null) roomBusy[r][d] |= mask;
+        }
+
+        teacherBusy = new long[n][];
+        domains = new int[n][];
+        int load = 0;
+        for (int l = 0; l < n; l++) {
+            Lecture lecture = this.lectures.get(l);
+            teacherBusy[l] = lecture.teacherId() != null
+                    ? teachers.getOrDefault(lecture.teacherId(), new long[DAYS.size()]) : new long[DAYS.size()];
+            domains[l] = domain(l);
+            load += lecture.slots();
+        }
+        dayTarget = (load + DAYS.size() - 1) / DAYS.size();
+    }
+
+    // Créneaux de début où le cours tient dans la journée et où son enseignant est libre ;
+    // si l'enseignant n'est jamais libre, tous les créneaux restent (le conflit sera compté)
+    private int[] domain(int l) {
+        int slots = lectures.get(l).slots();
+        List<Integer> values = new ArrayList<>();
+        List<Integer> all = new ArrayList<>();
+        for (int d = 0; d < DAYS.size(); d++) {
+            for (int s = 0; s + slots <= SLOTS_PER_DAY; s++) {
+                all.add(d * SLOTS_PER_DAY + s);
+                if ((teacherBusy[l][d] & occupation(s, slots)) == 0) values.add(d * SLOTS_PER_DAY + s);
+            }
+        }
+        return (values.isEmpty() ? all : values).stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public List<Lecture> getLectures() {
+        return lectures;
+    }
+
+    public List<String> getRooms() {
+        return rooms;
+    }
+
+    public boolean hasRooms() {
+        return !rooms.isEmpty();
+    }
+
+    boolean avoidGaps() {
+        return avoidGaps;
+    }
+
+    boolean balanceDays() {
+        return balanceDays;
+    }
+
+    boolean avoidFridayEvening() {
+        return avoidFridayEvening;
+    }
+
+    int slots(int l) {
+        return lectures.get(l).slots();
+    }
+
+    boolean sameTeacher(int a, int b) {
+        Long teacher = lectures.get(a).teacherId();
+        return teacher != null && teacher.equals(lectures.get(b).teacherId());
+    }
+
+    // --- GRILLE ---
+
+    public static int slotsOf(LocalTime start, LocalTime end) {
+        int minutes = end.toSecondOfDay() / 60 - start.toSecondOfDay() / 60;
+        return Math.max(1, Math.min(SLOTS_PER_DAY, (minutes + SLOT_MINUTES - 1) / SLOT_MINUTES));
+    }
+
+    public static LocalTime timeOf(int slot) {
+        return DAY_START.plusMinutes((long) slot * SLOT_MINUTES);
+    }
+
+    static long occupation(int start, int slots) {
+        return ((1L << slots) - 1) << start;
+    }
+
+    // Demi-heures couvertes par [start, end), hors de la grille ignorées
+    static long mask(LocalTime start, LocalTime end) {
+        int from = Math.floorDiv(start.toSecondOfDay() / 60 - DAY_START.toSecondOfDay() / 60, SLOT_MINUTES);
+        int to = Math.floorDiv(end.toSecondOfDay() / 60 - DAY_START.toSecondOfDay() / 60 + SLOT_MINUTES - 1, SLOT_MINUTES);
+        from = Math.max(0, from);
+        to = Math.min(SLOTS_PER_DAY, to);
+        return from < to ? occupation(from, to - from) : 0L;
+    }
+}
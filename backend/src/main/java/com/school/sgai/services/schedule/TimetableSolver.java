@@ -0,0 +1,420 @@
+package com.school.sgai.services.schedule;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import static com.school.sgai.services.schedule.TimetableProblem.*;
+
+/**
+ * Moteur local d'emploi du temps : construction par propagation de contraintes (cours le
+ * plus contraint d'abord), puis recuit simulé, relancés jusqu'à la fin du budget de temps.
+ * Coût = 1000 x violations dures (chevauchements, cours sans salle) + violations souples
+ * (trous, journées chargées, matière deux fois par jour, vendredi après 16h).
+ */
+public class TimetableSolver {
+
+    static final int HARD_WEIGHT = 1000;
+
+    private static final double START_TEMPERATURE = 3.0;
+    private static final double MIN_TEMPERATURE = 0.05;
+    private static final double COOLING = 0.9995;
+    // Itérations sans amélioration avant de repartir d'une nouvelle construction
+    private static final int STAGNATION = 20_000;
+
+    public record Result(int[] day, int[] start, int[] room, int hardViolations, int softViolations,
+                         long iterations, long bestIteration, int restarts, double averageFitness, long elapsedMillis) {
+
+        public int cost() {
+            return HARD_WEIGHT * hardViolations + softViolations;
+        }
+
+        public double fitness() {
+            return TimetableSolver.fitness(cost());
+        }
+    }
+
+    static double fitness(int cost) {
+        return 1.0 / (1 + cost);
+    }
+
+    private TimetableSolver() {}
+
+    // Les recherches tournent sur l'executor de l'appelant (threads partagés entre les appels) ;
+    // RejectedExecutionException si l'executor les refuse
+    public static Result solve(TimetableProblem problem, Duration budget, ExecutorService executor, int workers, long seed) {
+        long begin = System.nanoTime();
+        int n = problem.getLectures().size();
+        if (n == 0) return new Result(new int[0], new int[0], new int[0], 0, 0, 0, 0, 0, 1.0, 0);
+
+        Shared shared = new Shared();
+
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int w = 0; w < Math.max(1, workers); w++) {
+                SplittableRandom random = new SplittableRandom(seed + 0x9E3779B97F4A7C15L * w);
+                futures.add(executor.submit(() -> {
+                    // Budget compté depuis le début de la tâche, pas de la soumission
+                    long deadline = System.nanoTime() + budget.toNanos();
+                    // Au moins une construction complète, sauf annulation
+                    do {
+                        State state = new State(problem, random);
+                        state.construct();
+                        state.anneal(deadline, shared);
+                        shared.restarted(state);
+                    } while (System.nanoTime() < deadline && !shared.optimal() && !Thread.currentThread().isInterrupted());
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Optimisation interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Échec de l'optimisation", e.getCause());
+        } finally {
+            // Sans effet sur les tâches terminées ; si l'appel échoue, les tâches en attente
+            // ne démarrent pas et celles en cours s'arrêtent (interruption testée par les boucles)
+            for (Future<?> future : futures) future.cancel(true);
+        }
+
+        State best = shared.best;
+        return new Result(best.day, best.start, best.room, best.totalHard(), best.totalSoft(),
+                shared.iterations.get(), shared.bestIteration, shared.restarts.get(),
+                shared.fitnessSum.sum() / shared.restarts.get(), (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    // Meilleure affectation trouvée par les recherches, et compteurs de l'exécution
+    private static final class Shared {
+        private State best;
+        private int bestCost = Integer.MAX_VALUE;
+        private long bestIteration;
+        private volatile boolean optimal;
+        private final AtomicLong iterations = new AtomicLong();
+        private final AtomicInteger restarts = new AtomicInteger();
+        private final DoubleAdder fitnessSum = new DoubleAdder();
+
+        synchronized void offer(State candidate, int cost, long iteration) {
+            if (cost >= bestCost) return;
+            best = candidate.copy();
+            bestCost = cost;
+            bestIteration = iteration;
+            if (cost == 0) optimal = true;
+        }
+
+        void restarted(State state) {
+            restarts.incrementAndGet();
+            fitnessSum.add(fitness(state.runBest));
+        }
+
+        boolean optimal() {
+            return optimal;
+        }
+    }
+
+    private static final class State {
+        private final TimetableProblem p;
+        private final SplittableRandom random;
+        private final int n;
+        private final int[] day;
+        private final int[] start;
+        private final int[] room;
+
+        // Marques pour repérer une matière déjà vue dans la journée
+        private final int[] seen;
+        private int seenStamp;
+
+        private int hard;
+        private int soft;
+        private int runBest = Integer.MAX_VALUE;
+
+        State(TimetableProblem p, SplittableRandom random) {
+            this.p = p;
+            this.random = random;
+            this.n = p.getLectures().size();
+            this.day = new int[n];
+            this.start = new int[n];
+            this.room = new int[n];
+            this.seen = new int[p.subjectCount];
+        }
+
+        private State(State other) {
+            this.p = other.p;
+            this.random = null;
+            this.n = other.n;
+            this.day = other.day.clone();
+            this.start = other.start.clone();
+            this.room = other.room.clone();
+            this.seen = new int[p.subjectCount];
+        }
+
+        State copy() {
+            return new State(this);
+        }
+
+        // --- CONSTRUCTION ---
+
+        void construct() {
+            Arrays.fill(day, -1);
+            long[] classroom = new long[DAYS.size()];
+            for (int placed = 0; placed < n; placed++) {
+                // Variable la plus contrainte : le moins de créneaux encore libres pour la classe
+                int next = -1;
+                int fewest = Integer.MAX_VALUE;
+                int ties = 0;
+                for (int l = 0; l < n; l++) {
+                    if (day[l] >= 0) continue;
+                    int free = 0;
+                    for (int v : p.domains[l]) {
+                        if ((classroom[v / SLOTS_PER_DAY] & occupation(v % SLOTS_PER_DAY, p.slots(l))) == 0) free++;
+                    }
+                    if (free < fewest) {
+                        next = l;
+                        fewest = free;
+                        ties = 1;
+                    } else if (free == fewest && random.nextInt(++ties) == 0) {
+                        next = l;
+                    }
+                }
+
+                // Valeur : la moins coûteuse parmi les créneaux libres (parfois une au hasard, pour varier les départs)
+                int[] domain = p.domains[next];
+                int chosen = -1;
+                int chosenCost = Integer.MAX_VALUE;
+                boolean explore = random.nextInt(4) == 0;
+                for (int i = 0, offset = random.nextInt(domain.length); i < domain.length; i++) {
+                    int v = domain[(i + offset) % domain.length];
+                    int d = v / SLOTS_PER_DAY;
+                    int s = v % SLOTS_PER_DAY;
+                    boolean free = (classroom[d] & occupation(s, p.slots(next))) == 0;
+                    if (fewest > 0 && !free) continue;
+                    if (explore && free) {
+                        chosen = v;
+                        break;
+                    }
+                    day[next] = d;
+                    start[next] = s;
+                    room[next] = -1;
+                    int cost = HARD_WEIGHT * hardOf(next, d, s, -1) + softOfDay(d);
+                    day[next] = -1;
+                    if (cost < chosenCost) {
+                        chosen = v;
+                        chosenCost = cost;
+                    }
+                }
+                day[next] = chosen / SLOTS_PER_DAY;
+                start[next] = chosen % SLOTS_PER_DAY;
+                room[next] = pickRoom(next, day[next], start[next]);
+                classroom[day[next]] |= occupation(start[next], p.slots(next));
+            }
+            hard = totalHard();
+            soft = totalSoft();
+        }
+
+        // --- RECHERCHE LOCALE ---
+
+        void anneal(long deadline, Shared shared) {
+            double temperature = START_TEMPERATURE;
+            int cost = HARD_WEIGHT * hard + soft;
+            long sinceBest = 0;
+            long iteration = 0;
+            record(cost, shared, shared.iterations.get());
+
+            while (sinceBest < STAGNATION && cost > 0) {
+                if ((iteration & 255) == 0 && (System.nanoTime() >= deadline || shared.optimal()
+                        || Thread.currentThread().isInterrupted())) break;
+                iteration++;
+                sinceBest++;
+
+                int l = pickLecture();
+                int delta;
+                int k = random.nextInt(5) == 0 ? pickSwapPartner(l) : -1;
+                if (k >= 0) {
+                    delta = swap(l, k, temperature);
+                } else {
+                    delta = move(l, temperature);
+                }
+                if (delta != Integer.MIN_VALUE) {
+                    cost += delta;
+                    if (cost < runBest) {
+                        record(cost, shared, shared.iterations.get() + iteration);
+                        sinceBest = 0;
+                    }
+                }
+                temperature = Math.max(MIN_TEMPERATURE, temperature * COOLING);
+            }
+            shared.iterations.addAndGet(iteration);
+        }
+
+        private void record(int cost, Shared shared, long iteration) {
+            runBest = cost;
+            shared.offer(this, cost, iteration);
+        }
+
+        // Un cours en conflit une fois sur deux quand il en reste, sinon au hasard
+        private int pickLecture() {
+            int l = random.nextInt(n);
+            if (hard == 0 || random.nextBoolean()) return l;
+            for (int i = 0; i < n; i++) {
+                int c = (l + i) % n;
+                if (hardOf(c, day[c], start[c], room[c]) > 0) return c;
+            }
+            return l;
+        }
+
+        private int pickSwapPartner(int l) {
+            int k = random.nextInt(n);
+            return k != l && p.slots(k) == p.slots(l) && day[k] >= 0 ? k : -1;
+        }
+
+        // Déplace un cours (créneau, ou seulement la salle) ; renvoie la variation de coût, MIN_VALUE si refusé
+        private int move(int l, double temperature) {
+            int od = day[l], os = start[l], or = room[l];
+            int d, s;
+            if (p.hasRooms() && random.nextInt(6) == 0) {
+                d = od;
+                s = os;
+            } else {
+                int v = p.domains[l][random.nextInt(p.domains[l].length)];
+                d = v / SLOTS_PER_DAY;
+                s = v % SLOTS_PER_DAY;
+            }
+            int r = pickRoom(l, d, s);
+            if (d == od && s == os && r == or) return Integer.MIN_VALUE;
+
+            int oldHard = hardOf(l, od, os, or);
+            int oldSoft = softOfDays(od, d);
+            day[l] = d;
+            start[l] = s;
+            room[l] = r;
+            int dh = hardOf(l, d, s, r) - oldHard;
+            int ds = softOfDays(od, d) - oldSoft;
+            if (accept(HARD_WEIGHT * dh + ds, temperature)) {
+                hard += dh;
+                soft += ds;
+                return HARD_WEIGHT * dh + ds;
+            }
+            day[l] = od;
+            start[l] = os;
+            room[l] = or;
+            return Integer.MIN_VALUE;
+        }
+
+        // Échange les créneaux (et salles) de deux cours de même durée
+        private int swap(int l, int k, double temperature) {
+            int dl = day[l], sl = start[l], rl = room[l];
+            int dk = day[k], sk = start[k], rk = room[k];
+            if (dl == dk && sl == sk) return Integer.MIN_VALUE;
+
+            int oldHard = hardOf(l, dl, sl, rl) + hardOf(k, dk, sk, rk) - pair(l, dl, sl, rl, k);
+            int oldSoft = softOfDays(dl, dk);
+            day[l] = dk; start[l] = sk; room[l] = rk;
+            day[k] = dl; start[k] = sl; room[k] = rl;
+            int dh = hardOf(l, dk, sk, rk) + hardOf(k, dl, sl, rl) - pair(l, dk, sk, rk, k) - oldHard;
+            int ds = softOfDays(dl, dk) - oldSoft;
+            if (accept(HARD_WEIGHT * dh + ds, temperature)) {
+                hard += dh;
+                soft += ds;
+                return HARD_WEIGHT * dh + ds;
+            }
+            day[l] = dl; start[l] = sl; room[l] = rl;
+            day[k] = dk; start[k] = sk; room[k] = rk;
+            return Integer.MIN_VALUE;
+        }
+
+        private boolean accept(int delta, double temperature) {
+            return delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature);
+        }
+
+        // Une salle libre (hors autres classes) au hasard ; -1 s'il n'y en a pas
+        private int pickRoom(int l, int d, int s) {
+            int count = p.getRooms().size();
+            if (count == 0) return -1;
+            long occ = occupation(s, p.slots(l));
+            for (int i = 0, offset = random.nextInt(count); i < count; i++) {
+                int r = (i + offset) % count;
+                if ((p.roomBusy[r][d] & occ) == 0) return r;
+            }
+            return -1;
+        }
+
+        // --- COÛT ---
+
+        // Violations dures du cours l placé en (d, s, r), avec les autres cours placés
+        private int hardOf(int l, int d, int s, int r) {
+            int h = external(l, d, s, r);
+            for (int k = 0; k < n; k++) {
+                if (k != l) h += pair(l, d, s, r, k);
+            }
+            return h;
+        }
+
+        private int external(int l, int d, int s, int r) {
+            long occ = occupation(s, p.slots(l));
+            int h = 0;
+            if ((p.teacherBusy[l][d] & occ) != 0) h++;
+            if (r >= 0 && (p.roomBusy[r][d] & occ) != 0) h++;
+            if (r < 0 && p.hasRooms()) h++;
+            return h;
+        }
+
+        // Chevauchement de l (en d, s, r) et k : classe, plus enseignant et salle s'ils sont partagés
+        private int pair(int l, int d, int s, int r, int k) {
+            if (day[k] != d || start[k] >= s + p.slots(l) || s >= start[k] + p.slots(k)) return 0;
+            return 1 + (p.sameTeacher(l, k) ? 1 : 0) + (r >= 0 && r == room[k] ? 1 : 0);
+        }
+
+        private int softOfDays(int a, int b) {
+            return a == b ? softOfDay(a) : softOfDay(a) + softOfDay(b);
+        }
+
+        private int softOfDay(int d) {
+            long union = 0;
+            int load = 0;
+            int penalty = 0;
+            seenStamp++;
+            for (int k = 0; k < n; k++) {
+                if (day[k] != d) continue;
+                union |= occupation(start[k], p.slots(k));
+                load += p.slots(k);
+                if (p.avoidFridayEvening() && DAYS.get(d) == DayOfWeek.FRIDAY
+                        && start[k] + p.slots(k) > FRIDAY_EVENING) penalty++;
+                if (p.balanceDays()) {
+                    int subject = p.subjectIndex[k];
+                    if (seen[subject] == seenStamp) penalty++;
+                    else seen[subject] = seenStamp;
+                }
+            }
+            if (p.avoidGaps() && union != 0) {
+                int first = Long.numberOfTrailingZeros(union);
+                int last = 63 - Long.numberOfLeadingZeros(union);
+                penalty += last - first + 1 - Long.bitCount(union);
+            }
+            if (p.balanceDays()) penalty += Math.max(0, load - p.dayTarget);
+            return penalty;
+        }
+
+        int totalHard() {
+            int h = 0;
+            for (int l = 0; l < n; l++) {
+                h += external(l, day[l], start[l], room[l]);
+                for (int k = l + 1; k < n; k++) h += pair(l, day[l], start[l], room[l], k);
+            }
+            return h;
+        }
+
+        int totalSoft() {
+            int s = 0;
+            for (int d = 0; d < DAYS.size(); d++) s += softOfDay(d);
+            return s;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.school.sgai.services.schedule;
+
+import com.school.sgai.dto.schedule.SessionSlot;
+import com.school.sgai.services.schedule.ScheduleConflictIndex.Resource;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Semaine de chaque enseignant, salle et classe en masques de bits : un long par jour,
+ * un bit par quart d'heure de 08:00 à 20:00. Un créneau libre est un ET des masques de
+ * l'enseignant, de la classe et d'une salle.
+ * Non thread-safe : les appelants synchronisent.
+ */
+public class WeeklyOccupancy {
+
+    public static final List<DayOfWeek> DAYS = List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY,
+            DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY, DayOfWeek.SATURDAY);
+    public static final LocalTime DAY_START = LocalTime.of(8, 0);
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 48; // 08:00 - 20:00
+
+    private static final long FULL_DAY = (1L << SLOTS_PER_DAY) - 1;
+
+    // room : salle retenue, null si aucune salle n'est connue
+    public record FreeSlot(DayOfWeek day, LocalTime start, LocalTime end, String room) {}
+
+    private record Key(Resource resource, Object owner) {}
+
+    private final Map<Key, long[]> masks = new HashMap<>();
+    private final Map<Key, List<SessionSlot>> byResource = new HashMap<>();
+    private final Map<Long, SessionSlot> sessions = new HashMap<>();
+    // Salles connues (clé normalisée -> nom affiché), dans l'ordre des noms
+    private final SortedMap<String, String> rooms = new TreeMap<>();
+
+    public void add(SessionSlot slot) {
+        if (slot.getSessionId() != null && sessions.containsKey(slot.getSessionId())) remove(slot.getSessionId());
+        int d = DAYS.indexOf(slot.getDayOfWeek());
+        long mask = mask(slot.getStartTime(), slot.getEndTime());
+        for (Key key : keys(slot)) {
+            byResource.computeIfAbsent(key, k -> new ArrayList<>()).add(slot);
+            if (d >= 0) masks.computeIfAbsent(key, k -> new long[DAYS.size()])[d] |= mask;
+        }
+        String room = ScheduleConflictIndex.roomKey(slot.getRoomNumber());
+        if (room != null) rooms.putIfAbsent(room, slot.getRoomNumber().trim());
+        if (slot.getSessionId() != null) sessions.put(slot.getSessionId(), slot);
+    }
+
+    public boolean remove(Long sessionId) {
+        SessionSlot slot = sessions.remove(sessionId);
+        if (slot == null) return false;
+        int d = DAYS.indexOf(slot.getDayOfWeek());
+        for (Key key : keys(slot)) {
+            List<SessionSlot> remaining = byResource.get(key);
+            remaining.remove(slot);
+            if (remaining.isEmpty()) {
+                byResource.remove(key);
+                masks.remove(key);
+                continue;
+            }
+            if (d < 0) continue;
+            long mask = 0;
+            for (SessionSlot other : remaining) {
+                if (other.getDayOfWeek() == slot.getDayOfWeek()) mask |= mask(other.getStartTime(), other.getEndTime());
+            }
+            masks.get(key)[d] = mask;
+        }
+        return true;
+    }
+
+    public void clear() {
+        masks.clear();
+        byResource.clear();
+        sessions.clear();
+        rooms.clear();
+    }
+
+    // Premiers créneaux (au plus limit, sans chevauchement) où l'enseignant, la classe et une salle
+    // sont libres ; enseignant ou classe null : sans contrainte, salle null : toute salle connue
+    public List<FreeSlot> findFree(Long teacherId, Long classroomId, String room, int minutes, int limit) {
+        int length = (minutes + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        if (length < 1 || length > SLOTS_PER_DAY) {
+            throw new IllegalArgumentException("Durée hors de la journée (" + SLOTS_PER_DAY * SLOT_MINUTES + " minutes au plus)");
+        }
+
+        List<String> candidates = new ArrayList<>();
+        if (room != null && !room.isBlank()) candidates.add(ScheduleConflictIndex.roomKey(room));
+        else candidates.addAll(rooms.keySet());
+        // Aucune salle connue : seuls l'enseignant et la classe comptent
+        if (candidates.isEmpty()) candidates.add(null);
+
+        List<FreeSlot> free = new ArrayList<>();
+        long[] starts = new long[candidates.size()];
+        for (int d = 0; d < DAYS.size() && free.size() < limit; d++) {
+            long base = FULL_DAY & ~busy(Resource.TEACHER, teacherId, d) & ~busy(Resource.CLASSROOM, classroomId, d);
+            if (base == 0) continue;
+
+            long any = 0;
+            for (int r = 0; r < candidates.size(); r++) {
+                starts[r] = runs(base & ~busy(Resource.ROOM, candidates.get(r), d), length);
+                any |= starts[r];
+            }
+            while (any != 0 && free.size() < limit) {
+                int s = Long.numberOfTrailingZeros(any);
+                int r = 0;
+                while ((starts[r] & (1L << s)) == 0) r++;
+                String key = candidates.get(r);
+                free.add(new FreeSlot(DAYS.get(d), timeOf(s), timeOf(s + length),
+                        key == null ? null : rooms.getOrDefault(key, room != null ? room.trim() : key)));
+                // Suggestion suivante après la fin de celle-ci
+                any &= s + length >= 64 ? 0 : -1L << (s + length);
+            }
+        }
+        return free;
+    }
+
+    // Bit s à 1 si les créneaux s .. s + length - 1 sont tous libres
+    static long runs(long free, int length) {
+        long runs = free;
+        for (int covered = 1; covered < length; ) {
+            int step = Math.min(covered, length - covered);
+            runs &= runs >>> step;
+            covered += step;
+        }
+        return runs;
+    }
+
+    private long busy(Resource resource, Object owner, int d) {
+        if (owner == null) return 0;
+        long[] week = masks.get(new Key(resource, owner));
+        return week != null ? week[d] : 0;
+    }
+
+    private static List<Key> keys(SessionSlot slot) {
+        List<Key> keys = new ArrayList<>(3);
+        if (slot.getTeacherId() != null) keys.add(new Key(Resource.TEACHER, slot.getTeacherId()));
+        String room = ScheduleConflictIndex.roomKey(slot.getRoomNumber());
+        if (room != null) keys.add(new Key(Resource.ROOM, room));
+        if (slot.getClassroomId() != null) keys.add(new Key(Resource.CLASSROOM, slot.getClassroomId()));
+        return keys;
+    }
+
+    public static LocalTime timeOf(int slot) {
+        return DAY_START.plusMinutes((long) slot * SLOT_MINUTES);
+    }
+
+    // Quarts d'heure couverts par [start, end), hors de la journée ignorés
+    static long mask(LocalTime start, LocalTime end) {
+        int from = Math.floorDiv(start.toSecondOfDay() / 60 - DAY_START.toSecondOfDay() / 60, SLOT_MINUTES);
+        int to = Math.floorDiv(end.toSecondOfDay() / 60 - DAY_START.toSecondOfDay() / 60 + SLOT_MINUTES - 1, SLOT_MINUTES);
+        from = Math.max(0, from);
+        to = Math.min(SLOTS_PER_DAY, to);
+        return from < to ? ((1L << (to - from)) - 1) << from : 0L;
+    }
+}
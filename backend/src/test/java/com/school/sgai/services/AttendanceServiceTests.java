@@ -0,0 +1,232 @@
+package com.school.sgai.services;
+
+import com.school.sgai.dto.AttendanceWrapper;
+import com.school.sgai.dto.attendance.AttendanceCounts;
+import com.school.sgai.dto.attendance.AttendanceGrid;
+import com.school.sgai.entities.*;
+import com.school.sgai.enums.AbsenceStatus;
+import com.school.sgai.enums.Role;
+import com.school.sgai.repositories.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class AttendanceServiceTests {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+
+    @Autowired private AttendanceService attendanceService;
+    @Autowired private AttendanceAnalyticsService analyticsService;
+    @Autowired private AbsenceAlertService alertService;
+    @Autowired private AbsenceAlertRepository alertRepo;
+    @Autowired private AttendanceRepository attendanceRepo;
+    @Autowired private AppUserRepository userRepo;
+    @Autowired private ClassroomRepository classroomRepo;
+    @Autowired private ProgramRepository programRepo;
+    @Autowired private AcademicYearRepository yearRepo;
+    @Autowired private SubjectRepository subjectRepo;
+    @Autowired private EntityManager em;
+    @Autowired private EntityManagerFactory emf;
+
+    @Test
+    void sheetLoadsRosterWithDayStatusesInOneQuery() {
+        Fixture f = createFixture("A1");
+        record(f.alan, f.java, MONDAY, AbsenceStatus.ABSENT);
+        record(f.ada, f.java, MONDAY.plusDays(1), AbsenceStatus.LATE);
+        record(f.ada, f.maths, MONDAY, AbsenceStatus.LATE);
+        em.flush();
+        em.clear();
+
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        AttendanceWrapper sheet = attendanceService.getAttendanceSheet(f.java.getId(), MONDAY);
+
+        assertEquals(1, stats.getPrepareStatementCount());
+        // Sorted by name, unrecorded students default to PRESENT, other days and subjects ignored
+        assertEquals(List.of("Lovelace Ada", "Turing Alan"),
+                sheet.getStudents().stream().map(AttendanceWrapper.StudentAttendanceDTO::getStudentName).toList());
+        assertEquals(List.of(AbsenceStatus.PRESENT, AbsenceStatus.ABSENT),
+                sheet.getStudents().stream().map(AttendanceWrapper.StudentAttendanceDTO::getStatus).toList());
+    }
+
+    @Test
+    void gridHasOneColumnPerRecordedDay() {
+        Fixture f = createFixture("A2");
+        record(f.ada, f.java, MONDAY, AbsenceStatus.PRESENT);
+        record(f.alan, f.java, MONDAY, AbsenceStatus.ABSENT);
+        record(f.alan, f.java, MONDAY.plusDays(2), AbsenceStatus.ABSENT);
+        record(f.ada, f.java, MONDAY.plusDays(10), AbsenceStatus.ABSENT);
+        em.flush();
+        em.clear();
+
+        AttendanceGrid grid = attendanceService.getAttendanceGrid(f.java.getId(), MONDAY, MONDAY.plusDays(6));
+
+        assertEquals(List.of(MONDAY, MONDAY.plusDays(2)), grid.getDates());
+        assertEquals(2, grid.getRows().size());
+        assertEquals(Arrays.asList(AbsenceStatus.PRESENT, null), grid.getRows().get(0).getStatuses());
+        assertEquals(List.of(AbsenceStatus.ABSENT, AbsenceStatus.ABSENT), grid.getRows().get(1).getStatuses());
+        assertEquals(2, grid.getRows().get(1).getAbsentCount());
+    }
+
+    @Test
+    void resavingASheetUpdatesRowsInsteadOfDuplicatingThem() {
+        Fixture f = createFixture("A3");
+        attendanceService.saveAttendanceBulk(f.java.getId(), MONDAY, List.of(f.alan.getId()));
+        em.clear();
+
+        // Second save of the same day (sheet form): same (student, subject, date) keys
+        AttendanceWrapper sheet = attendanceService.getAttendanceSheet(f.java.getId(), MONDAY);
+        assertEquals(List.of(AbsenceStatus.PRESENT, AbsenceStatus.ABSENT),
+                sheet.getStudents().stream().map(AttendanceWrapper.StudentAttendanceDTO::getStatus).toList());
+        sheet.getStudents().get(0).setStatus(AbsenceStatus.LATE);
+        sheet.getStudents().get(1).setStatus(AbsenceStatus.EXCUSED);
+        attendanceService.saveAttendance(sheet);
+        em.clear();
+
+        List<Attendance> saved = attendanceRepo.findBySubjectIdAndDate(f.java.getId(), MONDAY);
+        assertEquals(2, saved.size());
+        assertEquals(AbsenceStatus.LATE, attendanceRepo.findByStudentIdAndSubjectIdAndDate(
+                f.ada.getId(), f.java.getId(), MONDAY).orElseThrow().getStatus());
+
+        // A student of another classroom cannot be slipped into the form
+        Fixture other = createFixture("A4");
+        sheet.getStudents().get(0).setStudentId(other.ada.getId());
+        assertThrows(RuntimeException.class, () -> attendanceService.saveAttendance(sheet));
+    }
+
+    @Test
+    void writesKeepWeeklyAndMonthlyRollupsInSync() {
+        Fixture f = createFixture("A5");
+        attendanceService.saveAttendanceBulk(f.java.getId(), MONDAY, List.of(f.alan.getId()));
+        attendanceService.saveAttendanceBulk(f.maths.getId(), MONDAY.plusDays(2), List.of(f.alan.getId(), f.ada.getId()));
+        attendanceService.saveAttendanceBulk(f.java.getId(), MONDAY.plusDays(7), List.of());
+        // Corrections of the first sheet (alan present, saved twice, then late): only deltas reach the rollup
+        attendanceService.saveAttendanceBulk(f.java.getId(), MONDAY, List.of());
+        attendanceService.saveAttendanceBulk(f.java.getId(), MONDAY, List.of());
+        AttendanceWrapper sheet = attendanceService.getAttendanceSheet(f.java.getId(), MONDAY);
+        sheet.getStudents().get(1).setStatus(AbsenceStatus.LATE);
+        attendanceService.saveAttendance(sheet);
+
+        AttendanceCounts alan = analyticsService.getStudentTotals(f.alan.getId());
+        assertEquals(List.of(1L, 1L, 1L, 3L), List.of(alan.getPresent(), alan.getAbsent(), alan.getLate(), alan.getTotal()));
+        assertEquals(33.3, alan.getAbsenceRate());
+
+        List<AttendanceCounts> weeks = analyticsService.getWeeklySeries(2, MONDAY.plusDays(8)).stream()
+                .filter(w -> !w.getPeriodStart().isBefore(MONDAY)).toList();
+        assertEquals(List.of(MONDAY, MONDAY.plusDays(7)), weeks.stream().map(AttendanceCounts::getPeriodStart).toList());
+
+        // Rebuilding from the raw rows gives the same counters
+        analyticsService.rebuild();
+        AttendanceCounts rebuilt = analyticsService.getStudentTotals(f.alan.getId());
+        assertEquals(List.of(1L, 1L, 1L), List.of(rebuilt.getPresent(), rebuilt.getAbsent(), rebuilt.getLate()));
+        assertEquals(2L, analyticsService.getStudentTotals(f.ada.getId()).getPresent());
+    }
+
+    @Test
+    void thresholdCrossingQueuesOneAlertThenDigestsItPerTeacher() {
+        Fixture f = createFixture("A6");
+        // Default rule: 3 unexcused absences in a subject within 14 days
+        LocalDate today = LocalDate.now();
+        attendanceService.saveAttendanceBulk(f.java.getId(), today.minusDays(9), List.of(f.alan.getId()));
+        attendanceService.saveAttendanceBulk(f.java.getId(), today.minusDays(6), List.of(f.alan.getId(), f.ada.getId()));
+        attendanceService.saveAttendanceBulk(f.maths.getId(), today.minusDays(6), List.of(f.alan.getId()));
+        assertEquals(0, alertRepo.findPending().size());
+
+        // Excused absences do not count
+        AttendanceWrapper sheet = attendanceService.getAttendanceSheet(f.java.getId(), today.minusDays(3));
+        sheet.getStudents().forEach(st -> st.setStatus(AbsenceStatus.EXCUSED));
+        attendanceService.saveAttendance(sheet);
+        assertEquals(0, alertRepo.findPending().size());
+
+        attendanceService.saveAttendanceBulk(f.java.getId(), today, List.of(f.alan.getId()));
+        attendanceService.saveAttendanceBulk(f.java.getId(), today, List.of(f.alan.getId()));
+        attendanceService.saveAttendanceBulk(f.java.getId(), today.minusDays(1), List.of(f.alan.getId()));
+
+        List<AbsenceAlert> pending = alertRepo.findPending();
+        assertEquals(1, pending.size());
+        assertEquals(f.alan.getId(), pending.get(0).getStudent().getId());
+        assertEquals(today.minusDays(13), pending.get(0).getWindowStart());
+
+        assertTrue(alertService.sendDigests() >= 1);
+        em.flush();
+        em.clear();
+        assertEquals(0, alertRepo.findPending().size());
+        List<AbsenceAlert> delivered = alertService.getDeliveredAlerts(f.java.getTeacher().getId());
+        assertEquals(1, delivered.size());
+        assertEquals(3, delivered.get(0).getAbsenceCount());
+    }
+
+    @Test
+    void correctingAnAbsenceBackAndForthDoesNotAlertTwice() {
+        Fixture f = createFixture("A7");
+        LocalDate today = LocalDate.now();
+        for (int days : new int[] { 4, 2, 0 }) {
+            attendanceService.saveAttendanceBulk(f.java.getId(), today.minusDays(days), List.of(f.alan.getId()));
+        }
+        assertEquals(1, alertRepo.findPending().size());
+
+        // The teacher marks Alan present two days ago, then absent again
+        for (AbsenceStatus status : new AbsenceStatus[] { AbsenceStatus.PRESENT, AbsenceStatus.ABSENT }) {
+            AttendanceWrapper sheet = attendanceService.getAttendanceSheet(f.java.getId(), today.minusDays(2));
+            sheet.getStudents().stream().filter(st -> st.getStudentId().equals(f.alan.getId()))
+                    .forEach(st -> st.setStatus(status));
+            attendanceService.saveAttendance(sheet);
+        }
+        assertEquals(1, alertRepo.findPending().size());
+    }
+
+    @Test
+    void alertsOfSubjectsWithoutTeacherReachTheAdministration() {
+        Fixture f = createFixture("A8");
+        f.maths.setTeacher(null);
+        LocalDate today = LocalDate.now();
+        for (int days : new int[] { 4, 2, 0 }) {
+            attendanceService.saveAttendanceBulk(f.maths.getId(), today.minusDays(days), List.of(f.ada.getId()));
+        }
+
+        assertTrue(alertService.sendDigests() >= 1);
+        em.flush();
+        em.clear();
+        assertTrue(alertService.getAdministrationAlerts().stream()
+                .anyMatch(a -> a.getStudent().getId().equals(f.ada.getId()) && a.getSubject().getId().equals(f.maths.getId())));
+        assertTrue(alertService.getDeliveredAlerts(f.java.getTeacher().getId()).isEmpty());
+    }
+
+    // --- FIXTURES ---
+
+    private record Fixture(Subject java, Subject maths, Student ada, Student alan) {}
+
+    private Fixture createFixture(String code) {
+        AcademicYear year = yearRepo.save(AcademicYear.builder().code("TEST-" + code).build());
+        Program program = programRepo.save(Program.builder().code(code).name("Program " + code).build());
+        Classroom classroom = classroomRepo.save(Classroom.builder()
+                .name("CL-" + code).level("CI1").program(program).academicYear(year).build());
+        Teacher teacher = userRepo.save(Teacher.builder().username(code + "-teacher").password("x").role(Role.TEACHER).build());
+        Student alan = userRepo.save(Student.builder().username(code + "-alan").password("x").role(Role.STUDENT)
+                .firstName("Alan").lastName("Turing").classroom(classroom).build());
+        Student ada = userRepo.save(Student.builder().username(code + "-ada").password("x").role(Role.STUDENT)
+                .firstName("Ada").lastName("Lovelace").classroom(classroom).build());
+        Subject java = subjectRepo.save(Subject.builder().name("Java").coefficient(1).classroom(classroom).teacher(teacher).build());
+        Subject maths = subjectRepo.save(Subject.builder().name("Maths").coefficient(1).classroom(classroom).teacher(teacher).build());
+        return new Fixture(java, maths, ada, alan);
+    }
+
+    private void record(Student student, Subject subject, LocalDate date, AbsenceStatus status) {
+        attendanceRepo.save(Attendance.builder().student(student).subject(subject).date(date).status(status).build());
+    }
+}
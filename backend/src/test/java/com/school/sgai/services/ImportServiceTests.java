@@ -0,0 +1,341 @@
+package com.school.sgai.services;
+
+import com.school.sgai.dto.GradeInputWrapper;
+import com.school.sgai.dto.ImportReport;
+import com.school.sgai.entities.*;
+import com.school.sgai.enums.ImportType;
+import com.school.sgai.enums.JobStatus;
+import com.school.sgai.enums.Role;
+import com.school.sgai.repositories.*;
+import com.school.sgai.services.imports.CsvErrorSink;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "sgai.import.chunk-size=2")
+@Transactional
+class ImportServiceTests {
+
+    @Autowired private ImportService importService;
+    @Autowired private AppUserRepository userRepo;
+    @Autowired private ClassroomRepository classroomRepo;
+    @Autowired private ProgramRepository programRepo;
+    @Autowired private AcademicYearRepository yearRepo;
+    @Autowired private AccountActivationService activationService;
+    @Autowired private GradingService gradingService;
+    @Autowired private SubjectRepository subjectRepo;
+    @Autowired private GradeRepository gradeRepo;
+    @Autowired private SubjectAverageRepository averageRepo;
+    @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private ImportJobService importJobService;
+    @Autowired private ImportJobRepository jobRepo;
+    @Autowired private EntityManager em;
+
+    @Test
+    void studentImportWritesInChunksAndReportsRowErrors() {
+        Classroom classroom = createClassroom("IMP");
+        userRepo.save(Student.builder().username("imp-taken").password("x").role(Role.STUDENT)
+                .email("taken@imp.test").classroom(classroom).build());
+        em.flush();
+
+        String csv = String.join("\n",
+                "Prenom;Nom;Email;Username;CNE;CodeClasse",
+                "Ada;Lovelace;ada@imp.test;imp-ada;IMP1;cl-imp",
+                "Alan;Turing;;imp-alan;IMP2;CL-IMP",
+                "Grace;Hopper;grace@imp.test;imp-grace;IMP3;CL-UNKNOWN",
+                "Ada;Bis;ada2@imp.test;imp-ada;IMP4;CL-IMP",
+                "Old;Account;old@imp.test;imp-taken;IMP5;CL-IMP",
+                "Same;Mail;taken@imp.test;imp-mail;IMP6;CL-IMP",
+                "Short;Row",
+                "Edsger;Dijkstra;;imp-edsger;IMP7;CL-IMP");
+        MockMultipartFile file = new MockMultipartFile("file", "students.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8));
+
+        ImportReport report = importService.importStudents(file, ";", false);
+
+        assertEquals(3, report.getSuccessCount());
+        assertEquals(5, report.getErrorCount());
+        // Errors found while reading and while writing the chunks come back in file order
+        assertEquals(List.of(
+                "Ligne 4: Classe inconnue : CL-UNKNOWN",
+                "Ligne 5: Identifiant en double dans le fichier : imp-ada",
+                "Ligne 6: Identifiant déjà utilisé : imp-taken",
+                "Ligne 7: Email déjà utilisé : taken@imp.test",
+                "Ligne 8: Colonnes manquantes"), report.getErrorMessages());
+
+        em.clear();
+        Student ada = (Student) userRepo.findByUsername("imp-ada").orElseThrow();
+        assertEquals("IMP1", ada.getStudentIdNumber());
+        assertEquals(classroom.getId(), ada.getClassroom().getId());
+        assertEquals(Role.STUDENT, ada.getRole());
+        Student alan = (Student) userRepo.findByUsername("imp-alan").orElseThrow();
+        assertEquals(null, alan.getEmail());
+        assertTrue(passwordEncoder.matches("1234", userRepo.findByUsername("imp-edsger").orElseThrow().getPassword()));
+    }
+
+    @Test
+    void activationImportCreatesAccountsWithoutPassword() {
+        createClassroom("ACT");
+        em.flush();
+
+        String csv = String.join("\n",
+                "Prenom;Nom;Email;Username;CNE;CodeClasse",
+                "Ada;Lovelace;;act-ada;ACT1;CL-ACT",
+                "Alan;Turing;;act-alan;ACT2;CL-ACT",
+                "Grace;Hopper;;act-grace;ACT3;CL-ACT");
+        ImportReport report = importService.importStudents(new MockMultipartFile("file", "students.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8)), ";", true);
+
+        assertEquals(3, report.getSuccessCount());
+        assertEquals(List.of("act-ada", "act-alan", "act-grace"),
+                report.getActivations().stream().map(ImportReport.Activation::username).toList());
+
+        em.clear();
+        String token = report.getActivations().get(0).token();
+        AppUser ada = userRepo.findByUsername("act-ada").orElseThrow();
+        assertEquals(AccountActivationService.PENDING_PASSWORD, ada.getPassword());
+        assertNotEquals(token, ada.getActivationToken());
+
+        assertThrows(RuntimeException.class, () -> activationService.activate(token, "secret-pass", "other-pass"));
+        activationService.activate(token, "secret-pass", "secret-pass");
+        em.flush();
+        em.clear();
+
+        ada = userRepo.findByUsername("act-ada").orElseThrow();
+        assertTrue(passwordEncoder.matches("secret-pass", ada.getPassword()));
+        assertNull(ada.getActivationToken());
+        // Single use
+        assertThrows(RuntimeException.class, () -> activationService.findPendingAccount(token));
+    }
+
+    @Test
+    void gradeImportUpsertsByNaturalKeyAndUpdatesRollup() {
+        Classroom classroom = createClassroom("GRD");
+        Classroom other = classroomRepo.save(Classroom.builder().name("CL-GRD-2").level("CI1")
+                .program(classroom.getProgram()).academicYear(classroom.getAcademicYear()).build());
+        Teacher teacher = userRepo.save(Teacher.builder().username("grd-teacher").password("x").role(Role.TEACHER).build());
+        Student ada = userRepo.save(Student.builder().username("grd-ada").password("x").role(Role.STUDENT)
+                .studentIdNumber("GRD1").classroom(classroom).build());
+        Student alan = userRepo.save(Student.builder().username("grd-alan").password("x").role(Role.STUDENT)
+                .studentIdNumber("GRD2").classroom(classroom).build());
+        userRepo.save(Student.builder().username("grd-grace").password("x").role(Role.STUDENT)
+                .studentIdNumber("GRD3").classroom(other).build());
+        Subject java = subjectRepo.save(Subject.builder().name("Java").coefficient(1).classroom(classroom).teacher(teacher).build());
+        Evaluation exam = gradingService.createEvaluation(
+                Evaluation.builder().title("Exam").maxScore(20.0).coefficient(2).build(), java.getId());
+
+        GradeInputWrapper.StudentGradeDTO dto = new GradeInputWrapper.StudentGradeDTO();
+        dto.setStudentId(ada.getId());
+        dto.setScore(8.0);
+        GradeInputWrapper form = new GradeInputWrapper();
+        form.setEvaluationId(exam.getId());
+        form.setStudentGrades(List.of(dto));
+        gradingService.saveGradesBulk(form);
+        em.flush();
+
+        String csv = String.join("\n",
+                "CNE;Note",
+                "GRD1;14.5",
+                "GRD2;11",
+                "GRD3;12",
+                "NOPE;10",
+                "GRD2;abc",
+                "GRD1;9");
+        ImportReport report = importService.importGrades(new MockMultipartFile("file", "grades.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8)), exam.getId(), ";");
+
+        assertEquals(2, report.getSuccessCount());
+        assertEquals(List.of(
+                "Ligne 4: CNE hors de la classe : GRD3",
+                "Ligne 5: CNE introuvable : NOPE",
+                "Ligne 6: Format de note invalide",
+                "Ligne 7: CNE en double dans le fichier : GRD1"), report.getErrorMessages());
+
+        em.clear();
+        assertEquals(14.5, gradeRepo.findByStudentIdAndEvaluationId(ada.getId(), exam.getId()).orElseThrow().getScore());
+        assertEquals(11.0, gradeRepo.findByStudentIdAndEvaluationId(alan.getId(), exam.getId()).orElseThrow().getScore());
+        // Rollup: existing row updated by the delta, new row created for the first grade
+        Map<Long, Double> sums = averageRepo.findByClassroomId(classroom.getId()).stream()
+                .collect(Collectors.toMap(r -> r.getStudent().getId(), SubjectAverage::getWeightedSum));
+        assertEquals(29.0, sums.get(ada.getId()));
+        assertEquals(22.0, sums.get(alan.getId()));
+        assertEquals(alan.getId(), userRepo.findByStudentIdNumber("GRD2").orElseThrow().getId());
+    }
+
+    @Test
+    void gradeReimportWritesOnlyChangedRowsAndSkipsIdenticalFile() {
+        Classroom classroom = createClassroom("DLT");
+        Teacher teacher = userRepo.save(Teacher.builder().username("dlt-teacher").password("x").role(Role.TEACHER).build());
+        Student ada = userRepo.save(Student.builder().username("dlt-ada").password("x").role(Role.STUDENT)
+                .studentIdNumber("DLT1").classroom(classroom).build());
+        userRepo.save(Student.builder().username("dlt-alan").password("x").role(Role.STUDENT)
+                .studentIdNumber("DLT2").classroom(classroom).build());
+        userRepo.save(Student.builder().username("dlt-grace").password("x").role(Role.STUDENT)
+                .studentIdNumber("DLT3").classroom(classroom).build());
+        Subject java = subjectRepo.save(Subject.builder().name("Java").coefficient(1).classroom(classroom).teacher(teacher).build());
+        Evaluation exam = gradingService.createEvaluation(
+                Evaluation.builder().title("Exam").maxScore(20.0).coefficient(1).build(), java.getId());
+        em.flush();
+
+        String first = "CNE;Note\nDLT1;10\nDLT2;11\nDLT3;12\n";
+        ImportReport report = importGrades(exam, first);
+        assertEquals(3, report.getCreatedCount());
+        assertFalse(report.isUnchangedFile());
+
+        // Same bytes: skipped before any row is read
+        report = importGrades(exam, first);
+        assertTrue(report.isUnchangedFile());
+        assertEquals(0, report.getSuccessCount());
+
+        // One correction: only that row is rewritten
+        String corrected = "CNE;Note\nDLT1;10\nDLT2;15\nDLT3;12\n";
+        report = importGrades(exam, corrected);
+        assertEquals(0, report.getCreatedCount());
+        assertEquals(1, report.getUpdatedCount());
+        assertEquals(2, report.getUnchangedCount());
+        em.clear();
+        assertEquals(37.0, averageRepo.findByClassroomId(classroom.getId()).stream()
+                .mapToDouble(SubjectAverage::getWeightedSum).sum());
+
+        // A manual edit in the grid forgets the file hash: the same file is replayed
+        GradeInputWrapper.StudentGradeDTO dto = new GradeInputWrapper.StudentGradeDTO();
+        dto.setStudentId(ada.getId());
+        dto.setScore(4.0);
+        GradeInputWrapper form = new GradeInputWrapper();
+        form.setEvaluationId(exam.getId());
+        form.setStudentGrades(List.of(dto));
+        gradingService.saveGradesBulk(form);
+        em.flush();
+        em.clear();
+
+        report = importGrades(exam, corrected);
+        assertFalse(report.isUnchangedFile());
+        assertEquals(1, report.getUpdatedCount());
+        assertEquals(2, report.getUnchangedCount());
+        assertEquals(10.0, gradeRepo.findByStudentIdAndEvaluationId(ada.getId(), exam.getId()).orElseThrow().getScore());
+    }
+
+    private ImportReport importGrades(Evaluation exam, String csv) {
+        ImportReport report = importService.importGrades(new MockMultipartFile("file", "grades.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8)), exam.getId(), ";");
+        em.flush();
+        em.clear();
+        return report;
+    }
+
+    @Test
+    void interruptedJobResumesAfterLastCommittedRow() throws Exception {
+        Classroom classroom = createClassroom("RES");
+        // Rows 2-3 were committed before the interruption (row 2 created, row 3 rejected)
+        userRepo.save(Student.builder().username("res-a").password("x").role(Role.STUDENT).classroom(classroom).build());
+
+        Path spool = Files.createTempFile("import-resume", ".csv");
+        Files.writeString(spool, String.join("\n",
+                "Prenom;Nom;Email;Username;CNE;CodeClasse",
+                "A;A;;res-a;RES1;CL-RES",
+                "B;B;;res-b;RES2;CL-NOPE",
+                "C;C;;res-c;RES3;CL-RES",
+                "A;Bis;;res-a;RES4;CL-RES",
+                "D;D;;res-d;RES5;CL-RES"));
+        ImportJob job = jobRepo.save(ImportJob.builder()
+                .type(ImportType.STUDENTS).separator(";").status(JobStatus.RUNNING)
+                .spoolPath(spool.toString()).lastCommittedRow(3).successCount(1).errorCount(1)
+                .build());
+
+        importJobService.run(job.getId());
+        em.flush();
+        em.clear();
+
+        job = jobRepo.findById(job.getId()).orElseThrow();
+        assertEquals(JobStatus.DONE, job.getStatus());
+        assertEquals(6, job.getLastCommittedRow());
+        assertEquals(3, job.getSuccessCount());
+        assertEquals(2, job.getErrorCount());
+        // Rows 2-3 are not replayed, but still count for the duplicate checks of the file
+        assertEquals(List.of("5: Identifiant en double dans le fichier : res-a"),
+                importJobService.getErrors(job.getId(), 10).stream().map(e -> e.getRowNumber() + ": " + e.getMessage()).toList());
+        assertTrue(userRepo.findByUsername("res-c").isPresent());
+        assertTrue(userRepo.findByUsername("res-d").isPresent());
+        assertTrue(userRepo.findByUsername("res-b").isEmpty());
+        assertFalse(Files.exists(spool));
+    }
+
+    @Test
+    void jobTruncatesRowErrorsToTheColumnLength() throws Exception {
+        createClassroom("LNG");
+        String unknownClass = "X".repeat(2 * ImportJob.ERROR_LENGTH);
+        Path spool = Files.createTempFile("import-long", ".csv");
+        Files.writeString(spool, String.join("\n",
+                "Prenom;Nom;Email;Username;CNE;CodeClasse",
+                "A;A;;lng-a;LNG1;" + unknownClass,
+                "B;B;;lng-b;LNG2;CL-LNG"));
+        ImportJob job = jobRepo.save(ImportJob.builder()
+                .type(ImportType.STUDENTS).separator(";").status(JobStatus.RUNNING).spoolPath(spool.toString()).build());
+
+        importJobService.run(job.getId());
+        em.flush();
+        em.clear();
+
+        assertEquals(JobStatus.DONE, jobRepo.findById(job.getId()).orElseThrow().getStatus());
+        List<ImportJobError> errors = importJobService.getErrors(job.getId(), 10);
+        assertEquals(1, errors.size());
+        assertEquals(ImportJob.ERROR_LENGTH, errors.get(0).getMessage().length());
+        assertTrue(userRepo.findByUsername("lng-b").isPresent());
+    }
+
+    @Test
+    void validationStreamsErrorsInFileOrderWithoutWriting() {
+        Classroom classroom = createClassroom("VAL");
+        userRepo.save(Student.builder().username("val-taken").password("x").role(Role.STUDENT)
+                .studentIdNumber("VAL-TAKEN").classroom(classroom).build());
+        em.flush();
+
+        String csv = String.join("\n",
+                "Prenom;Nom;Email;Username;CNE;CodeClasse",
+                "A;A;;val-a;VAL1;CL-VAL",
+                "B;B;;val-taken;VAL2;CL-VAL",
+                "C;C;;val-c;VAL1;CL-VAL",
+                "D;D;;val-d;VAL-TAKEN;CL-VAL",
+                "E;E;;val-e;VAL5;CL-NOPE",
+                "F;F;;val-f;VAL6;CL-VAL");
+        StringWriter out = new StringWriter();
+        CsvErrorSink sink = new CsvErrorSink(out);
+        importService.validateStudents(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ";", sink);
+        sink.finish();
+
+        assertEquals(String.join("\n",
+                "ligne;erreur",
+                "3;Identifiant déjà utilisé : val-taken",
+                "4;CNE en double dans le fichier : VAL1",
+                "5;CNE déjà utilisé : VAL-TAKEN",
+                "6;Classe inconnue : CL-NOPE",
+                ";2 ligne(s) valide(s), 4 erreur(s)",
+                ""), out.toString());
+        assertTrue(userRepo.findByUsername("val-a").isEmpty());
+        assertTrue(userRepo.findByUsername("val-f").isEmpty());
+    }
+
+    // --- FIXTURES ---
+
+    private Classroom createClassroom(String code) {
+        AcademicYear year = yearRepo.save(AcademicYear.builder().code("TEST-" + code).build());
+        Program program = programRepo.save(Program.builder().code(code).name("Program " + code).build());
+        return classroomRepo.save(Classroom.builder()
+                .name("CL-" + code).level("CI1").program(program).academicYear(year).build());
+    }
+}
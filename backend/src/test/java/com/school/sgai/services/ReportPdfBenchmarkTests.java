@@ -0,0 +1,86 @@
+package com.school.sgai.services;
+
+import com.school.sgai.dto.transcript.SubjectStatDTO;
+import com.school.sgai.dto.transcript.TranscriptDTO;
+import com.school.sgai.entities.AcademicYear;
+import com.school.sgai.entities.Classroom;
+import com.school.sgai.entities.Program;
+import com.school.sgai.entities.Student;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Per-document CPU time and allocation of the PDF exports.
+ * Run with: mvn test -Dtest=ReportPdfBenchmarkTests -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReportPdfBenchmarkTests {
+
+    private static final int WARMUP = 300;
+    private static final int ITERATIONS = 2000;
+
+    private final ReportPdfService pdfService = new ReportPdfService();
+
+    @Test
+    void certificateRendering() {
+        Student student = student();
+        report("certificate", out -> pdfService.exportCertificate(out, student));
+    }
+
+    @Test
+    void transcriptRendering() {
+        TranscriptDTO transcript = transcript();
+        report("transcript", out -> pdfService.exportTranscript(out, transcript));
+    }
+
+    private void report(String name, Consumer<ByteArrayOutputStream> render) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+
+        for (int i = 0; i < WARMUP; i++) {
+            out.reset();
+            render.accept(out);
+        }
+
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long allocStart = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ITERATIONS; i++) {
+            out.reset();
+            render.accept(out);
+        }
+        long cpu = threads.getCurrentThreadCpuTime() - cpuStart;
+        long alloc = threads.getThreadAllocatedBytes(thread) - allocStart;
+
+        System.out.printf("[benchmark] %-12s %8.1f us CPU/doc %10d bytes allocated/doc %7d bytes/pdf%n",
+                name, cpu / 1000.0 / ITERATIONS, alloc / ITERATIONS, out.size());
+        assertTrue(out.size() > 0);
+    }
+
+    private Student student() {
+        Program program = Program.builder().name("Computer Science").code("CS").build();
+        AcademicYear year = AcademicYear.builder().code("2024-2025").build();
+        Classroom classroom = Classroom.builder().name("L3-INFO").program(program).academicYear(year).build();
+        return Student.builder().firstName("Ada").lastName("Lovelace").studentIdNumber("CNE-0001")
+                .birthDate(LocalDate.of(2003, 12, 10)).classroom(classroom).build();
+    }
+
+    private TranscriptDTO transcript() {
+        List<SubjectStatDTO> subjects = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            subjects.add(SubjectStatDTO.builder().subjectName("Subject " + i).teacherName("Teacher " + i)
+                    .coefficient(1 + i % 4).average(8 + i * 0.75).appreciation("Good").build());
+        }
+        return TranscriptDTO.builder().student(student()).className("L3-INFO").academicYear("2024-2025")
+                .subjects(subjects).globalAverage(12.34).rank("3rd").finalDecision("ADMITTED").build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.school.sgai.services;
+
+import com.school.sgai.dto.ai.ScheduleOptimizationResponse;
+import com.school.sgai.dto.schedule.SessionSlot;
+import com.school.sgai.entities.*;
+import com.school.sgai.enums.Role;
+import com.school.sgai.repositories.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class ScheduleServiceTests {
+
+    @Autowired private ScheduleService scheduleService;
+    @Autowired private TimetableEngineService timetableEngine;
+    @Autowired private CourseSessionRepository sessionRepo;
+    @Autowired private AppUserRepository userRepo;
+    @Autowired private ClassroomRepository classroomRepo;
+    @Autowired private ProgramRepository programRepo;
+    @Autowired private AcademicYearRepository yearRepo;
+    @Autowired private SubjectRepository subjectRepo;
+
+    @Test
+    void addSessionRejectsOverlapsAndDeleteFreesTheSlot() {
+        Subject java = createSubject("S1", "Java");
+        Subject maths = createSubject("S2", "Maths");
+        LocalTime eight = LocalTime.of(8, 0);
+
+        CourseSession first = scheduleService.addSession(java.getId(), DayOfWeek.MONDAY, eight, LocalTime.of(10, 0), "S1-ROOM");
+        // Other classroom and teacher, same room
+        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+                scheduleService.addSession(maths.getId(), DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(11, 0), "s1-room"));
+        assertTrue(ex.getMessage().startsWith("La salle est déjà occupée"), ex.getMessage());
+        assertThrows(RuntimeException.class, () ->
+                scheduleService.addSession(java.getId(), DayOfWeek.MONDAY, LocalTime.of(10, 0), eight, "S1-OTHER"));
+        assertEquals(1, sessionRepo.findByClassroomId(java.getClassroom().getId()).size());
+
+        SessionSlot candidate = new SessionSlot(null, null, null, "S1-ROOM", DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(11, 0));
+        assertEquals(1, scheduleService.checkSession(candidate).size());
+        // Free-slot search sees the new session: Java's teacher and class are busy until 10:00 on Monday
+        assertEquals(LocalTime.of(10, 0), scheduleService.findFreeSlots(java.getId(), "S1-ROOM", 60, 1).get(0).start());
+        // Deletion frees the slot only once committed: still reserved inside the transaction
+        scheduleService.deleteSession(first.getId());
+        assertEquals(1, scheduleService.checkSession(candidate).size());
+    }
+
+    @Test
+    void localEngineReplacesTheClassroomSessionsWithoutConflicts() {
+        Subject java = createSubject("S3", "Java");
+        Subject maths = subjectRepo.save(Subject.builder().name("Maths").coefficient(1)
+                .classroom(java.getClassroom()).teacher(java.getTeacher()).build());
+        // Both sessions at the same time: the current timetable is not even valid
+        scheduleService.addSession(java.getId(), DayOfWeek.FRIDAY, LocalTime.of(16, 0), LocalTime.of(18, 0), "S3-A");
+        sessionRepo.save(CourseSession.builder().subject(maths).dayOfWeek(DayOfWeek.FRIDAY)
+                .startTime(LocalTime.of(16, 0)).endTime(LocalTime.of(17, 30)).roomNumber("S3-B").build());
+
+        ScheduleOptimizationResponse response = timetableEngine.optimize(java.getClassroom().getId(), Map.of());
+
+        assertEquals(2, response.getSchedule().size());
+        assertTrue(response.getQuality().getIsValid());
+        assertEquals(TimetableEngineService.ALGORITHM, response.getMetadata().getAlgorithm());
+        List<SessionSlot> proposal = response.getSchedule().stream()
+                .map(a -> new SessionSlot(null, a.getTeacher().getId(), java.getClassroom().getId(), a.getRoom().getName(),
+                        DayOfWeek.valueOf(a.getTimeslot().getDay()),
+                        LocalTime.parse(a.getTimeslot().getStartTime()), LocalTime.parse(a.getTimeslot().getEndTime())))
+                .toList();
+        // The 1h30 session keeps its duration
+        assertTrue(response.getSchedule().stream().anyMatch(a -> a.getCourse().getDuration() == 90));
+        assertTrue(proposal.stream().noneMatch(a -> proposal.stream().anyMatch(b -> a != b && a.overlaps(b))));
+    }
+
+    private Subject createSubject(String code, String name) {
+        AcademicYear year = yearRepo.save(AcademicYear.builder().code("TEST-" + code).build());
+        Program program = programRepo.save(Program.builder().code(code).name("Program " + code).build());
+        Classroom classroom = classroomRepo.save(Classroom.builder()
+                .name("CL-" + code).level("CI1").program(program).academicYear(year).build());
+        Teacher teacher = userRepo.save(Teacher.builder().username(code + "-teacher").password("x").role(Role.TEACHER).build());
+        return subjectRepo.save(Subject.builder().name(name).coefficient(1).classroom(classroom).teacher(teacher).build());
+    }
+}
@@ -0,0 +1,295 @@
+package com.school.sgai.services;
+
+import com.school.sgai.dto.GradeInputWrapper;
+import com.school.sgai.dto.transcript.TranscriptDTO;
+import com.school.sgai.entities.*;
+import com.school.sgai.enums.Role;
+import com.school.sgai.enums.ValidationStatus;
+import com.school.sgai.repositories.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class TranscriptServiceTests {
+
+    @Autowired private TranscriptService transcriptService;
+    @Autowired private GradingService gradingService;
+    @Autowired private SubjectAverageService averageService;
+    @Autowired private AcademicService academicService;
+    @Autowired private SubjectAverageRepository averageRepo;
+    @Autowired private DeliberationService deliberationService;
+    @Autowired private TranscriptExportService exportService;
+    @Autowired private AppUserRepository userRepo;
+    @Autowired private ClassroomRepository classroomRepo;
+    @Autowired private ProgramRepository programRepo;
+    @Autowired private AcademicYearRepository yearRepo;
+    @Autowired private SubjectRepository subjectRepo;
+    @Autowired private EvaluationRepository evalRepo;
+    @Autowired private EntityManager em;
+    @Autowired private EntityManagerFactory emf;
+
+    @Test
+    void transcriptMatchesPerEvaluationComputation() {
+        Fixture f = createFixture("T1");
+        // Java (coeff 4) : 12/20 coeff 1, 16/20 coeff 3 -> (12 + 48) / 4 = 15.0
+        Evaluation e1 = addEvaluation(f.java, 1);
+        Evaluation e2 = addEvaluation(f.java, 3);
+        addGrade(f.student, e1, 12.0);
+        addGrade(f.student, e2, 16.0);
+        // Maths (coeff 2) : 9/20 coeff 1, missing grade coeff 1 -> (9 + 0) / 2 = 4.5
+        Evaluation e3 = addEvaluation(f.maths, 1);
+        addEvaluation(f.maths, 1);
+        addGrade(f.student, e3, 9.0);
+        em.flush();
+        em.clear();
+
+        TranscriptDTO t = transcriptService.generateTranscript(f.student.getId());
+
+        assertEquals(3, t.getSubjects().size());
+        assertEquals(15.0, t.getSubjects().get(0).getAverage());
+        assertEquals(4.5, t.getSubjects().get(1).getAverage());
+        // Subject without any evaluation counts for 0 with its coefficient
+        assertEquals(0.0, t.getSubjects().get(2).getAverage());
+        // (15 * 4 + 4.5 * 2 + 0 * 1) / 7 = 9.857 -> 9.86
+        assertEquals(9.86, t.getGlobalAverage());
+        assertEquals("FAILED", t.getFinalDecision());
+        assertEquals("Turing", t.getSubjects().get(0).getTeacherName());
+    }
+
+    @Test
+    void queryCountDoesNotDependOnEvaluationCount() {
+        Fixture small = createFixture("T2");
+        for (int i = 0; i < 2; i++) addGrade(small.student, addEvaluation(small.java, 1), 10.0 + i);
+
+        Fixture large = createFixture("T3");
+        for (int i = 0; i < 25; i++) {
+            addGrade(large.student, addEvaluation(large.java, 1), 10.0);
+            addGrade(large.student, addEvaluation(large.maths, 2), 12.0);
+        }
+        em.flush();
+
+        long smallQueries = countStatements(small.student.getId());
+        long largeQueries = countStatements(large.student.getId());
+
+        assertTrue(smallQueries > 0);
+        assertEquals(smallQueries, largeQueries);
+    }
+
+    @Test
+    void classTranscriptsMatchIndividualTranscripts() {
+        Fixture f = createFixture("T4");
+        Student other = userRepo.save(Student.builder()
+                .username("other-T4").password("x").role(Role.STUDENT)
+                .studentIdNumber("CNE-OTHER-T4").classroom(f.student.getClassroom()).build());
+        Evaluation e1 = addEvaluation(f.java, 2);
+        Evaluation e2 = addEvaluation(f.maths, 1);
+        addGrade(f.student, e1, 13.5);
+        addGrade(f.student, e2, 7.25);
+        addGrade(other, e1, 18.0);
+        em.flush();
+        em.clear();
+
+        Long classroomId = f.student.getClassroom().getId();
+        List<TranscriptDTO> board = transcriptService.generateClassTranscripts(classroomId);
+        List<TranscriptDTO> fromRawGrades = transcriptService.generateClassTranscripts(transcriptService.loadGradeMatrix(classroomId));
+
+        assertEquals(2, board.size());
+        assertEquals(fromRawGrades, board);
+        for (TranscriptDTO t : board) {
+            TranscriptDTO single = transcriptService.generateTranscript(t.getStudent().getId());
+            assertEquals(single.getGlobalAverage(), t.getGlobalAverage());
+            assertEquals(single.getFinalDecision(), t.getFinalDecision());
+            for (int i = 0; i < single.getSubjects().size(); i++) {
+                assertEquals(single.getSubjects().get(i), t.getSubjects().get(i));
+            }
+        }
+    }
+
+    @Test
+    void rollupFollowsGradeUpdatesAndEvaluationDeletion() {
+        Fixture f = createFixture("T5");
+        Evaluation e1 = addEvaluation(f.java, 1);
+        Evaluation e2 = addEvaluation(f.java, 1);
+        addGrade(f.student, e1, 8.0);
+        addGrade(f.student, e1, 14.0); // correction : 14 remplace 8
+        addGrade(f.student, e2, 10.0);
+        em.flush();
+        em.clear();
+        assertEquals(12.0, transcriptService.generateTranscript(f.student.getId()).getSubjects().get(0).getAverage());
+
+        gradingService.deleteEvaluation(e2.getId());
+        em.flush();
+        em.clear();
+        assertEquals(14.0, transcriptService.generateTranscript(f.student.getId()).getSubjects().get(0).getAverage());
+
+        // Un rebuild complet donne le même résultat que la maintenance incrémentale
+        averageService.rebuild();
+        em.flush();
+        em.clear();
+        assertEquals(14.0, transcriptService.generateTranscript(f.student.getId()).getSubjects().get(0).getAverage());
+    }
+
+    @Test
+    void studentsWithoutGradesKeepNoRollupRowAndCanBeDeleted() {
+        Fixture f = createFixture("T8");
+        Student other = userRepo.save(Student.builder().username("other-T8").password("x").role(Role.STUDENT)
+                .classroom(f.java.getClassroom()).build());
+        Evaluation e1 = addEvaluation(f.java, 1);
+        addGrade(f.student, e1, 12.0);
+
+        // Rebuild : pas de ligne pour l'étudiant sans note, ni pour les matières sans note
+        averageService.rebuild();
+        em.flush();
+        assertEquals(1, averageRepo.findByClassroomId(f.java.getClassroom().getId()).size());
+        academicService.deleteUser(other.getId());
+        em.flush();
+
+        // Suppression de sa seule évaluation notée : sa ligne disparaît aussi
+        gradingService.deleteEvaluation(e1.getId());
+        em.flush();
+        assertEquals(0, averageRepo.findByClassroomId(f.java.getClassroom().getId()).size());
+
+        // Ligne restante (rollup d'avant le correctif) : supprimée avec l'étudiant
+        averageRepo.save(SubjectAverage.builder().student(f.student).subject(f.maths).weightedSum(0.0).coefficientTotal(0L).build());
+        em.flush();
+        em.clear();
+        academicService.deleteUser(f.student.getId());
+        em.flush();
+        em.clear();
+        assertTrue(userRepo.findById(f.student.getId()).isEmpty());
+    }
+
+    @Test
+    void validateClassroomAppliesDecisionsAndFreezesSnapshot() {
+        Fixture f = createFixture("T6");
+        Student good = userRepo.save(Student.builder()
+                .username("good-T6").password("x").role(Role.STUDENT).lastName("Good")
+                .studentIdNumber("CNE-GOOD-T6").classroom(f.student.getClassroom()).build());
+        Student overridden = userRepo.save(Student.builder()
+                .username("retake-T6").password("x").role(Role.STUDENT).lastName("Retake")
+                .studentIdNumber("CNE-RETAKE-T6").classroom(f.student.getClassroom()).build());
+        Evaluation e1 = addEvaluation(f.java, 1);
+        Evaluation e2 = addEvaluation(f.maths, 1);
+        Evaluation e3 = addEvaluation(f.sport, 1);
+        for (Evaluation e : List.of(e1, e2, e3)) addGrade(good, e, 15.0);
+        addGrade(f.student, e1, 5.0);
+        em.flush();
+        em.clear();
+        // Décision posée à la main avant la validation globale : elle doit être conservée
+        deliberationService.validateStudent(overridden.getId(), "RETAKE");
+        em.flush();
+        em.clear();
+
+        DeliberationSnapshot snapshot = deliberationService.validateClassroom(f.student.getClassroom().getId(), "admin");
+        em.flush();
+        em.clear();
+
+        Student reloadedGood = (Student) userRepo.findById(good.getId()).orElseThrow();
+        Student reloadedWeak = (Student) userRepo.findById(f.student.getId()).orElseThrow();
+        Student reloadedOverridden = (Student) userRepo.findById(overridden.getId()).orElseThrow();
+        assertEquals(ValidationStatus.VALIDATED, reloadedGood.getAcademicStatus());
+        assertEquals("ADMITTED", reloadedGood.getJuryDecision());
+        assertEquals("FAILED", reloadedWeak.getJuryDecision());
+        assertEquals("RETAKE", reloadedOverridden.getJuryDecision());
+
+        // Le PV est relu depuis le snapshot, même si les notes changent ensuite
+        addGrade(f.student, e2, 20.0);
+        em.flush();
+        em.clear();
+        DeliberationSnapshot pv = deliberationService.getSnapshot(snapshot.getId());
+        assertEquals(3, pv.getLines().size());
+        DeliberationSnapshotLine weakLine = pv.getLines().stream()
+                .filter(l -> l.getStudentId().equals(f.student.getId())).findFirst().orElseThrow();
+        // (5 * 4) / 7 = 2.857 -> 2.86
+        assertEquals(2.86, weakLine.getGlobalAverage());
+        assertEquals("FAILED", weakLine.getDecision());
+        assertEquals("RETAKE", pv.getLines().stream()
+                .filter(l -> l.getStudentId().equals(overridden.getId())).findFirst().orElseThrow().getDecision());
+    }
+
+    @Test
+    void classroomExportStreamsOnePdfPerStudent() throws Exception {
+        Fixture f = createFixture("T7");
+        userRepo.save(Student.builder()
+                .username("second-T7").password("x").role(Role.STUDENT).lastName("Lovelace")
+                .studentIdNumber("CNE-2-T7").classroom(f.student.getClassroom()).build());
+        addGrade(f.student, addEvaluation(f.java, 1), 11.0);
+        em.flush();
+        em.clear();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportClassroom(f.student.getClassroom().getId(), out);
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                names.add(entry.getName());
+                byte[] header = zip.readNBytes(4);
+                assertEquals("%PDF", new String(header));
+            }
+        }
+        assertEquals(2, names.size());
+        assertTrue(names.contains("CNE-2-T7_Lovelace.pdf"));
+    }
+
+    private long countStatements(Long studentId) {
+        em.clear();
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        transcriptService.generateTranscript(studentId);
+        return stats.getPrepareStatementCount();
+    }
+
+    // --- FIXTURES ---
+
+    private record Fixture(Student student, Subject java, Subject maths, Subject sport) {}
+
+    private Fixture createFixture(String code) {
+        AcademicYear year = yearRepo.save(AcademicYear.builder().code("TEST-" + code).build());
+        Program program = programRepo.save(Program.builder().code(code).name("Program " + code).build());
+        Classroom classroom = classroomRepo.save(Classroom.builder()
+                .name("CL-" + code).level("CI1").program(program).academicYear(year).build());
+
+        Teacher teacher = userRepo.save(Teacher.builder()
+                .username("teacher-" + code).password("x").role(Role.TEACHER).lastName("Turing").build());
+        Student student = userRepo.save(Student.builder()
+                .username("student-" + code).password("x").role(Role.STUDENT)
+                .studentIdNumber("CNE-" + code).classroom(classroom).build());
+
+        Subject java = subjectRepo.save(Subject.builder().name("Java").coefficient(4).classroom(classroom).teacher(teacher).build());
+        Subject maths = subjectRepo.save(Subject.builder().name("Maths").coefficient(2).classroom(classroom).teacher(teacher).build());
+        Subject sport = subjectRepo.save(Subject.builder().name("Sport").coefficient(1).classroom(classroom).teacher(teacher).build());
+        return new Fixture(student, java, maths, sport);
+    }
+
+    private Evaluation addEvaluation(Subject subject, int coefficient) {
+        return gradingService.createEvaluation(Evaluation.builder().title("Exam").maxScore(20.0).coefficient(coefficient).build(), subject.getId());
+    }
+
+    private void addGrade(Student student, Evaluation eval, double score) {
+        GradeInputWrapper.StudentGradeDTO dto = new GradeInputWrapper.StudentGradeDTO();
+        dto.setStudentId(student.getId());
+        dto.setScore(score);
+        GradeInputWrapper form = new GradeInputWrapper();
+        form.setEvaluationId(eval.getId());
+        form.setStudentGrades(List.of(dto));
+        gradingService.saveGradesBulk(form);
+    }
+}
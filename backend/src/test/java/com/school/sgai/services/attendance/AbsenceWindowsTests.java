@@ -0,0 +1,53 @@
+package com.school.sgai.services.attendance;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AbsenceWindowsTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 31);
+
+    // 3 absences in 14 days
+    private final AbsenceWindows windows = new AbsenceWindows(3, 14);
+
+    @Test
+    void alertsOnceWhenAWindowReachesTheThreshold() {
+        assertNull(windows.addAbsence(1L, 10L, TODAY.minusDays(12), TODAY));
+        assertNull(windows.addAbsence(1L, 10L, TODAY.minusDays(5), TODAY));
+        // Same absence saved again: nothing new
+        assertNull(windows.addAbsence(1L, 10L, TODAY.minusDays(5), TODAY));
+
+        AbsenceWindows.Crossing crossing = windows.addAbsence(1L, 10L, TODAY, TODAY);
+        assertNotNull(crossing);
+        assertEquals(TODAY.minusDays(13), crossing.windowStart());
+        assertEquals(3, crossing.absences());
+
+        // 4th absence in the same window: already alerted
+        assertNull(windows.addAbsence(1L, 10L, TODAY.minusDays(1), TODAY));
+        // Other subject, other student: separate windows
+        assertNull(windows.addAbsence(1L, 11L, TODAY, TODAY));
+        assertNull(windows.addAbsence(2L, 10L, TODAY, TODAY));
+    }
+
+    @Test
+    void backfilledAndCorrectedAbsencesMoveTheWindows() {
+        windows.addAbsence(1L, 10L, TODAY.minusDays(2), TODAY);
+        windows.addAbsence(1L, 10L, TODAY, TODAY);
+        // A correction removes an absence: the window falls back under the threshold
+        windows.removeAbsence(1L, 10L, TODAY.minusDays(2));
+        assertEquals(1, windows.countInWindowEnding(1L, 10L, TODAY));
+
+        windows.addAbsence(1L, 10L, TODAY.minusDays(9), TODAY);
+        // Backfill of an earlier day completes the window ending on the latest absence
+        AbsenceWindows.Crossing crossing = windows.addAbsence(1L, 10L, TODAY.minusDays(10), TODAY);
+        assertNotNull(crossing);
+        assertEquals(TODAY, crossing.windowEnd());
+
+        // Older than the window: closed, ignored
+        assertNull(windows.addAbsence(3L, 10L, TODAY.minusDays(20), TODAY));
+        assertEquals(0, windows.countInWindowEnding(3L, 10L, TODAY.minusDays(20)));
+    }
+}
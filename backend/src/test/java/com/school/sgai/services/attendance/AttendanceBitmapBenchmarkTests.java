@@ -0,0 +1,133 @@
+package com.school.sgai.services.attendance;
+
+import com.school.sgai.dto.attendance.AttendanceMark;
+import com.school.sgai.enums.AbsenceStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Size of one school year of attendance: one row per record (current model) against
+ * the per-session bitmaps, in memory and on disk (H2 file databases).
+ * Run with: mvn test -Dtest=AttendanceBitmapBenchmarkTests -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AttendanceBitmapBenchmarkTests {
+
+    // Une classe de 40 étudiants, 10 matières, 150 jours de cours
+    private static final int STUDENTS = 40;
+    private static final int SUBJECTS = 10;
+    private static final int DAYS = 150;
+    private static final LocalDate START = LocalDate.of(2024, 9, 16);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void yearOfOneClassroom() throws Exception {
+        List<Long> roster = LongStream.rangeClosed(1, STUDENTS).boxed().toList();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        // Mémoire du modèle actuel : les projections d'une ligne par saisie
+        long allocStart = threads.getThreadAllocatedBytes(thread);
+        List<AttendanceMark> marks = marks();
+        long rowsAlloc = threads.getThreadAllocatedBytes(thread) - allocStart;
+
+        allocStart = threads.getThreadAllocatedBytes(thread);
+        AttendanceBitmap bitmap = AttendanceBitmap.build(roster, marks);
+        long buildAlloc = threads.getThreadAllocatedBytes(thread) - allocStart;
+
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        int flagged = 0;
+        for (int i = 0; i < 100; i++) {
+            flagged = bitmap.studentsAbsentMoreThan(60).size();
+            for (Long id : roster) bitmap.longestAbsenceStreak(id);
+        }
+        long queryCpu = (threads.getCurrentThreadCpuTime() - cpuStart) / 100;
+
+        // Sur disque : la table actuelle (une ligne par saisie) contre un blob par classe
+        long rowsOnDisk = h2Size("rows", conn -> {
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE TABLE attendance (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,"
+                        + " date DATE NOT NULL, session_hour INT NOT NULL, status VARCHAR(16),"
+                        + " student_id BIGINT, subject_id BIGINT, UNIQUE (student_id, subject_id, date))");
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO attendance (date, session_hour, status, student_id, subject_id) VALUES (?, 0, ?, ?, ?)")) {
+                int n = 0;
+                for (AttendanceMark m : marks) {
+                    ps.setDate(1, Date.valueOf(m.getDate()));
+                    ps.setString(2, m.getStatus().name());
+                    ps.setLong(3, m.getStudentId());
+                    ps.setLong(4, m.getSubjectId());
+                    ps.addBatch();
+                    if (++n % 1000 == 0) ps.executeBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+        byte[] encoded = bitmap.encode();
+        long bitmapOnDisk = h2Size("bitmap", conn -> {
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE TABLE attendance_bitmap (classroom_id BIGINT PRIMARY KEY, data VARBINARY)");
+            }
+            try (PreparedStatement ps = conn.prepareStatement("INSERT INTO attendance_bitmap VALUES (1, ?)")) {
+                ps.setBytes(1, encoded);
+                ps.executeUpdate();
+            }
+        });
+
+        System.out.printf("[benchmark] %d records, %d sessions%n", marks.size(), bitmap.getSessionCount());
+        System.out.printf("[benchmark] memory: rows %,d bytes allocated | bitmap %,d bytes retained (%,d allocated to build)%n",
+                rowsAlloc, bitmap.bitmapBytes(), buildAlloc);
+        System.out.printf("[benchmark] disk:   rows %,d bytes | bitmap %,d bytes (encoded %,d)%n",
+                rowsOnDisk, bitmapOnDisk, encoded.length);
+        System.out.printf("[benchmark] query:  threshold + streaks for the class %.1f us%n", queryCpu / 1000.0);
+        assertEquals(STUDENTS * SUBJECTS * DAYS, marks.size());
+        assertEquals(flagged, bitmap.studentsAbsentMoreThan(60).size());
+    }
+
+    // ~8 % d'absences, ~3 % de retards
+    private List<AttendanceMark> marks() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<AttendanceMark> marks = new ArrayList<>(STUDENTS * SUBJECTS * DAYS);
+        for (int day = 0; day < DAYS; day++) {
+            for (long subject = 1; subject <= SUBJECTS; subject++) {
+                for (long student = 1; student <= STUDENTS; student++) {
+                    double p = random.nextDouble();
+                    AbsenceStatus status = p < 0.08 ? AbsenceStatus.ABSENT : (p < 0.11 ? AbsenceStatus.LATE : AbsenceStatus.PRESENT);
+                    marks.add(new AttendanceMark(student, subject, START.plusDays(day), status));
+                }
+            }
+        }
+        return marks;
+    }
+
+    private interface Loader {
+        void load(Connection conn) throws SQLException;
+    }
+
+    private long h2Size(String name, Loader loader) throws Exception {
+        Path base = dir.resolve(name);
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:file:" + base, "sa", "")) {
+            loader.load(conn);
+            try (Statement st = conn.createStatement()) {
+                st.execute("SHUTDOWN COMPACT");
+            }
+        }
+        return Files.size(dir.resolve(name + ".mv.db"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.school.sgai.services.attendance;
+
+import com.school.sgai.dto.attendance.AttendanceMark;
+import com.school.sgai.enums.AbsenceStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.school.sgai.enums.AbsenceStatus.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AttendanceBitmapTests {
+
+    private static final LocalDate D1 = LocalDate.of(2025, 3, 3);
+    private static final Long JAVA = 1L;
+    private static final Long MATHS = 2L;
+
+    // Timeline : (D1, Java) (D1, Maths) (D2, Java) (D3, Java) (D4, Java)
+    private final AttendanceBitmap bitmap = AttendanceBitmap.build(List.of(101L, 100L, 102L), List.of(
+            // alice : absent, absent, (not recorded), absent, present -> streak of 3 across the gap
+            mark(100L, JAVA, 0, ABSENT), mark(100L, MATHS, 0, ABSENT), mark(100L, JAVA, 2, ABSENT),
+            mark(100L, JAVA, 3, PRESENT),
+            // bob : late, absent, present, absent, absent
+            mark(101L, JAVA, 0, LATE), mark(101L, MATHS, 0, ABSENT), mark(101L, JAVA, 1, PRESENT),
+            mark(101L, JAVA, 2, ABSENT), mark(101L, JAVA, 3, ABSENT),
+            // 102 : never recorded ; 999 : outside the roster
+            mark(999L, JAVA, 0, ABSENT)));
+
+    @Test
+    void perStudentQueriesUseTheSessionTimeline() {
+        assertEquals(5, bitmap.getSessionCount());
+        assertEquals(3, bitmap.getStudentCount());
+
+        assertEquals(0.75, bitmap.absenceRate(100L));
+        assertEquals(3, bitmap.longestAbsenceStreak(100L));
+        assertEquals(0.6, bitmap.absenceRate(101L));
+        assertEquals(2, bitmap.longestAbsenceStreak(101L));
+        assertEquals(0.0, bitmap.absenceRate(102L));
+        assertEquals(0, bitmap.longestAbsenceStreak(102L));
+
+        assertEquals(List.of(100L, 101L), bitmap.studentsAbsentMoreThan(2));
+        assertEquals(List.of(), bitmap.studentsAbsentMoreThan(3));
+    }
+
+    @Test
+    void perSessionCountsAndEncodingRoundTrip() {
+        AttendanceBitmap.Session d1Java = new AttendanceBitmap.Session(JAVA, D1);
+        AttendanceBitmap.Session d1Maths = new AttendanceBitmap.Session(MATHS, D1);
+        assertEquals(1, bitmap.absentCount(d1Java));
+        assertEquals(1, bitmap.lateCount(d1Java));
+        assertEquals(List.of(100L, 101L), bitmap.absentAtAll(List.of(d1Maths)));
+        assertEquals(List.of(100L), bitmap.absentAtAll(List.of(d1Java, d1Maths)));
+
+        AttendanceBitmap decoded = AttendanceBitmap.decode(bitmap.encode());
+        assertEquals(bitmap.getSessions(), decoded.getSessions());
+        for (Long id : List.of(100L, 101L, 102L)) {
+            assertEquals(bitmap.absenceRate(id), decoded.absenceRate(id));
+            assertEquals(bitmap.longestAbsenceStreak(id), decoded.longestAbsenceStreak(id));
+        }
+        assertEquals(1, decoded.lateCount(d1Java));
+    }
+
+    private static AttendanceMark mark(Long studentId, Long subjectId, int day, AbsenceStatus status) {
+        return new AttendanceMark(studentId, subjectId, D1.plusDays(day), status);
+    }
+}
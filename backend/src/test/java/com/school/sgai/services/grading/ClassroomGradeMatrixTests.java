@@ -0,0 +1,47 @@
+package com.school.sgai.services.grading;
+
+import com.school.sgai.dto.transcript.GradeCell;
+import com.school.sgai.entities.Evaluation;
+import com.school.sgai.entities.Student;
+import com.school.sgai.entities.Subject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassroomGradeMatrixTests {
+
+    // Java (coeff 3) : exam 1 (coeff 1) + exam 2 (coeff 1) ; Maths (coeff 1) : exam 3 (coeff 1)
+    private final Subject java = Subject.builder().id(1L).name("Java").coefficient(3).build();
+    private final Subject maths = Subject.builder().id(2L).name("Maths").coefficient(1).build();
+    private final Evaluation e1 = Evaluation.builder().id(10L).coefficient(1).maxScore(20.0).subject(java).build();
+    private final Evaluation e2 = Evaluation.builder().id(11L).coefficient(1).maxScore(20.0).subject(java).build();
+    private final Evaluation e3 = Evaluation.builder().id(12L).coefficient(1).maxScore(20.0).subject(maths).build();
+    private final Student alice = Student.builder().id(100L).build();
+    private final Student bob = Student.builder().id(101L).build();
+
+    private final ClassroomGradeMatrix matrix = new ClassroomGradeMatrix(1L, List.of(alice, bob), List.of(java, maths),
+            List.of(e1, e2, e3), List.of(
+                    new GradeCell(100L, 10L, 12.0), new GradeCell(100L, 12L, 8.0),   // alice : exam 2 not graded yet
+                    new GradeCell(101L, 10L, 2.0), new GradeCell(101L, 11L, 2.0), new GradeCell(101L, 12L, 4.0)));
+
+    @Test
+    void minimumScoreReachesTargetExactly() {
+        double[] needed = matrix.minimumScoresFor(matrix.evaluationSlot(11L), 10.0);
+
+        // alice : (3 * (12 + x) / 2 + 8) / 4 >= 10  ->  x >= 9.33
+        assertEquals(9.34, needed[0]);
+        // bob : (3 * (2 + x) / 2 + 4) / 4 >= 10  ->  x >= 22 > 20
+        assertTrue(Double.isNaN(needed[1]));
+    }
+
+    @Test
+    void passRateFollowsCoefficientChange() {
+        // alice : (3 * 6 + 8) / 4 = 6.5 ; bob : 2.5
+        assertEquals(0.0, matrix.passRate(matrix.subjectCoefficients(), 7.0));
+        // Java coeff 0 : only Maths counts, alice has 8
+        assertEquals(0.5, matrix.passRateWithCoefficient(matrix.subjectSlot(1L), 0, 7.0));
+    }
+}
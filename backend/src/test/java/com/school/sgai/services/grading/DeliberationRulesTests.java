@@ -0,0 +1,49 @@
+package com.school.sgai.services.grading;
+
+import com.school.sgai.entities.DeliberationPolicy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DeliberationRulesTests {
+
+    private static final double NONE = Double.NaN;
+
+    @Test
+    void defaultRulesKeepTheHistoricThreshold() {
+        DeliberationRules rules = DeliberationRules.compile(null);
+        double[] minimums = { NONE, NONE };
+
+        assertEquals("ADMITTED", rules.decide(10.0, new double[] { 4.0, 16.0 }, 0, minimums));
+        assertEquals("FAILED", rules.decide(9.99, new double[] { 9.99, 9.99 }, 0, minimums));
+    }
+
+    @Test
+    void eliminatoryMinimumFailsWhateverTheAverage() {
+        DeliberationRules rules = DeliberationRules.compile(null);
+
+        assertEquals("FAILED", rules.decide(15.0, new double[] { 4.5, 18.0 }, 0, new double[] { 5.0, NONE }));
+        assertEquals("ADMITTED", rules.decide(15.0, new double[] { 5.0, 18.0 }, 0, new double[] { 5.0, NONE }));
+    }
+
+    @Test
+    void withoutCompensationDebtsGiveConditionalAdmission() {
+        DeliberationRules rules = DeliberationRules.compile(DeliberationPolicy.builder()
+                .passThreshold(10.0).conditionalThreshold(9.0).compensation(false)
+                .subjectPassMark(10.0).maxDebts(1).build());
+        double[] minimums = { NONE, NONE, NONE };
+
+        // Class of 4 students x 3 subjects, evaluated in one pass
+        double[] globals = { 12.0, 12.0, 9.5, 9.5 };
+        double[] averages = {
+                12.0, 12.0, 12.0,  // aucune dette
+                8.0, 14.0, 14.0,   // une dette, moyenne suffisante
+                8.0, 10.0, 10.5,   // une dette, rachat
+                8.0, 8.0, 12.5     // deux dettes
+        };
+
+        assertArrayEquals(new String[] { "ADMITTED", "CONDITIONAL", "CONDITIONAL", "FAILED" },
+                rules.decideAll(globals, averages, minimums));
+    }
+}
@@ -0,0 +1,89 @@
+package com.school.sgai.services.schedule;
+
+import com.school.sgai.dto.schedule.SessionSlot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Conflict checks on a large timetable: the interval index against the linear scan
+ * of every session of the day (what a repository query per resource amounts to).
+ * Run with: mvn test -Dtest=ScheduleConflictBenchmarkTests -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ScheduleConflictBenchmarkTests {
+
+    // 2 000 enseignants, 1 500 salles, 1 000 classes, 6 jours de 08:00 à 18:00
+    private static final int TEACHERS = 2_000;
+    private static final int ROOMS = 1_500;
+    private static final int CLASSROOMS = 1_000;
+    private static final int CANDIDATES = 60_000;
+    private static final int CHECKS = 200_000;
+
+    @Test
+    void tensOfThousandsOfSessions() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<SessionSlot> candidates = new ArrayList<>(CANDIDATES);
+        for (long id = 1; id <= CANDIDATES; id++) candidates.add(randomSlot(random, id));
+
+        ScheduleConflictIndex index = new ScheduleConflictIndex();
+        List<SessionSlot> accepted = new ArrayList<>();
+        long start = System.nanoTime();
+        for (SessionSlot slot : candidates) {
+            if (index.add(slot).isEmpty()) accepted.add(slot);
+        }
+        long buildNanos = System.nanoTime() - start;
+
+        List<SessionSlot> probes = new ArrayList<>(CHECKS);
+        for (int i = 0; i < CHECKS; i++) probes.add(randomSlot(random, null));
+
+        start = System.nanoTime();
+        int indexed = 0;
+        for (SessionSlot probe : probes) {
+            if (!index.conflicts(probe).isEmpty()) indexed++;
+        }
+        long indexNanos = System.nanoTime() - start;
+
+        // Balayage linéaire : uniquement sur une partie des sondes, extrapolé
+        int sampled = CHECKS / 100;
+        start = System.nanoTime();
+        int scanned = 0;
+        for (SessionSlot probe : probes.subList(0, sampled)) {
+            if (scan(accepted, probe)) scanned++;
+        }
+        long scanNanos = (System.nanoTime() - start) * (CHECKS / sampled);
+        int indexedSample = 0;
+        for (SessionSlot probe : probes.subList(0, sampled)) {
+            if (!index.conflicts(probe).isEmpty()) indexedSample++;
+        }
+        assertEquals(scanned, indexedSample);
+
+        System.out.printf("%d candidate sessions, %d accepted, index built in %d ms%n",
+                CANDIDATES, accepted.size(), buildNanos / 1_000_000);
+        System.out.printf("%d checks (%d in conflict): index %d ms (%.2f µs/check), linear scan ~%d ms%n",
+                CHECKS, indexed, indexNanos / 1_000_000, indexNanos / 1000.0 / CHECKS, scanNanos / 1_000_000);
+    }
+
+    private static boolean scan(List<SessionSlot> sessions, SessionSlot probe) {
+        for (SessionSlot s : sessions) {
+            if (!s.overlaps(probe)) continue;
+            if (s.getTeacherId().equals(probe.getTeacherId()) || s.getClassroomId().equals(probe.getClassroomId())
+                    || s.getRoomNumber().equals(probe.getRoomNumber())) return true;
+        }
+        return false;
+    }
+
+    private static SessionSlot randomSlot(SplittableRandom random, Long id) {
+        LocalTime start = LocalTime.of(8, 0).plusMinutes(15L * random.nextInt(36));
+        LocalTime end = start.plusMinutes(30L * (2 + random.nextInt(3)));
+        return new SessionSlot(id, (long) random.nextInt(TEACHERS), (long) random.nextInt(CLASSROOMS),
+                "R" + random.nextInt(ROOMS), DayOfWeek.of(1 + random.nextInt(6)), start, end);
+    }
+}
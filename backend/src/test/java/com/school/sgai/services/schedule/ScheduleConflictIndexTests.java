@@ -0,0 +1,80 @@
+package com.school.sgai.services.schedule;
+
+import com.school.sgai.dto.schedule.SessionSlot;
+import com.school.sgai.services.schedule.ScheduleConflictIndex.Conflict;
+import com.school.sgai.services.schedule.ScheduleConflictIndex.Resource;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleConflictIndexTests {
+
+    private final ScheduleConflictIndex index = new ScheduleConflictIndex();
+
+    @Test
+    void rejectsOverlapsPerTeacherRoomAndClassroom() {
+        assertTrue(index.add(slot(1L, 10L, 100L, "B104", DayOfWeek.MONDAY, "08:30", "10:30")).isEmpty());
+
+        // Back to back, other day: no conflict
+        assertTrue(index.add(slot(2L, 10L, 100L, "B104", DayOfWeek.MONDAY, "10:30", "12:00")).isEmpty());
+        assertTrue(index.add(slot(3L, 10L, 100L, "B104", DayOfWeek.TUESDAY, "09:00", "10:00")).isEmpty());
+
+        // Same teacher, other room and classroom
+        List<Conflict> conflicts = index.add(slot(4L, 10L, 101L, "C1", DayOfWeek.MONDAY, "09:00", "09:30"));
+        assertEquals(List.of(Resource.TEACHER), conflicts.stream().map(Conflict::resource).toList());
+        assertEquals(1L, conflicts.get(0).existing().getSessionId());
+        // Same room (case and spaces ignored), other teacher and classroom
+        assertEquals(List.of(Resource.ROOM), index.add(slot(5L, 11L, 101L, " b104", DayOfWeek.MONDAY, "11:00", "13:00"))
+                .stream().map(Conflict::resource).toList());
+        // Same classroom, enclosing interval
+        assertEquals(List.of(Resource.CLASSROOM), index.add(slot(6L, 11L, 100L, "C1", DayOfWeek.MONDAY, "08:00", "13:00"))
+                .stream().map(Conflict::resource).toList());
+        assertEquals(3, index.size());
+
+        // A deleted session frees its slot
+        assertTrue(index.remove(2L));
+        assertTrue(index.add(slot(5L, 11L, 101L, "B104", DayOfWeek.MONDAY, "11:00", "13:00")).isEmpty());
+    }
+
+    @Test
+    void forcedOverlapsAreStillCheckedAndTimetablesValidatedAsAWhole() {
+        // Sessions saved before the validation existed: both indexed
+        assertTrue(index.put(slot(1L, 10L, 100L, "A1", DayOfWeek.FRIDAY, "08:00", "12:00")).isEmpty());
+        assertEquals(3, index.put(slot(2L, 10L, 100L, "A1", DayOfWeek.FRIDAY, "09:00", "10:00")).size());
+
+        // The floor entry (09:00-10:00) does not overlap 11:00, the long overlapping session does
+        List<Conflict> conflicts = index.conflicts(slot(null, 10L, 200L, "Z9", DayOfWeek.FRIDAY, "11:00", "11:30"));
+        assertEquals(1, conflicts.size());
+        assertEquals(1L, conflicts.get(0).existing().getSessionId());
+
+        // Removing the indexed one promotes the overflow
+        index.remove(1L);
+        assertTrue(index.conflicts(slot(null, 10L, 200L, "Z9", DayOfWeek.FRIDAY, "11:00", "11:30")).isEmpty());
+        assertFalse(index.conflicts(slot(null, 10L, 200L, "Z9", DayOfWeek.FRIDAY, "09:30", "11:30")).isEmpty());
+
+        // Imported timetable: checked against the index and against itself, index unchanged
+        List<Conflict> report = index.validate(List.of(
+                slot(null, 20L, 300L, "D1", DayOfWeek.FRIDAY, "08:00", "09:00"),
+                slot(null, 20L, 300L, "D2", DayOfWeek.FRIDAY, "08:30", "09:30"),
+                slot(null, 21L, 301L, "A1", DayOfWeek.FRIDAY, "09:30", "10:30")));
+        assertEquals(List.of(Resource.TEACHER, Resource.CLASSROOM, Resource.ROOM),
+                report.stream().map(Conflict::resource).toList());
+        assertEquals(1, index.size());
+
+        // A proposal that moves the indexed session (same id) is not checked against its old place
+        index.put(slot(3L, 30L, 400L, "E1", DayOfWeek.MONDAY, "08:00", "10:00"));
+        assertTrue(index.validate(List.of(slot(3L, 30L, 400L, "E1", DayOfWeek.MONDAY, "09:00", "11:00"))).isEmpty());
+        assertEquals(List.of(Resource.TEACHER), index.validate(List.of(slot(null, 30L, 401L, "E2", DayOfWeek.MONDAY, "09:00", "11:00")))
+                .stream().map(Conflict::resource).toList());
+        assertEquals(2, index.size());
+    }
+
+    private static SessionSlot slot(Long id, Long teacherId, Long classroomId, String room,
+                                    DayOfWeek day, String start, String end) {
+        return new SessionSlot(id, teacherId, classroomId, room, day, LocalTime.parse(start), LocalTime.parse(end));
+    }
+}
@@ -0,0 +1,71 @@
+package com.school.sgai.services.schedule;
+
+import com.school.sgai.dto.schedule.SessionSlot;
+import com.school.sgai.services.schedule.TimetableProblem.Lecture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Solution quality against time budget and number of threads, on a loaded school:
+ * one classroom of 34 lectures (about 85% of its week) to place while 80 other classrooms keep their sessions
+ * (and their teachers and rooms busy).
+ * Run with: mvn test -Dtest=TimetableSolverBenchmarkTests -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TimetableSolverBenchmarkTests {
+
+    private static final int LECTURES = 34;
+    private static final int TEACHERS = 8;
+    private static final int ROOMS = 30;
+    private static final int OTHER_CLASSROOMS = 80;
+
+    @Test
+    void qualityPerSecond() {
+        TimetableProblem problem = problem(new SplittableRandom(42));
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%d lectures, %d fixed classrooms, %d cores%n", LECTURES, OTHER_CLASSROOMS, cores);
+        System.out.println("budget_ms threads hard soft fitness iterations restarts fitness_per_s");
+        ExecutorService executor = Executors.newFixedThreadPool(cores);
+        try {
+            for (long budget : new long[] { 100, 250, 500, 1000, 2000 }) {
+                for (int threads : cores > 1 ? new int[] { 1, cores } : new int[] { 1 }) {
+                    TimetableSolver.Result r = TimetableSolver.solve(problem, Duration.ofMillis(budget), executor, threads, 7);
+                    System.out.printf("%9d %7d %4d %4d %.5f %10d %8d %.5f%n", budget, threads, r.hardViolations(),
+                            r.softViolations(), r.fitness(), r.iterations(), r.restarts(),
+                            r.fitness() / Math.max(1, r.elapsedMillis()) * 1000);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static TimetableProblem problem(SplittableRandom random) {
+        List<Lecture> lectures = new ArrayList<>();
+        for (int i = 0; i < LECTURES; i++) {
+            long teacher = random.nextInt(TEACHERS);
+            lectures.add(new Lecture((long) i, (long) (i % 12), "Subject " + i % 12, teacher, "T" + teacher, 2 + random.nextInt(3)));
+        }
+        List<String> rooms = new ArrayList<>();
+        for (int r = 0; r < ROOMS; r++) rooms.add("R" + r);
+
+        // Les autres classes : 25 séances chacune, enseignants partagés avec la classe à placer
+        List<SessionSlot> fixed = new ArrayList<>();
+        for (long c = 0; c < OTHER_CLASSROOMS; c++) {
+            for (int s = 0; s < 25; s++) {
+                LocalTime start = LocalTime.of(8, 0).plusMinutes(30L * random.nextInt(16));
+                fixed.add(new SessionSlot(null, (long) random.nextInt(TEACHERS * 12), 100 + c, rooms.get(random.nextInt(ROOMS)),
+                        DayOfWeek.of(1 + random.nextInt(6)), start, start.plusMinutes(60L + 30L * random.nextInt(3))));
+            }
+        }
+        return new TimetableProblem(lectures, rooms, fixed, Map.of());
+    }
+}
@@ -0,0 +1,109 @@
+package com.school.sgai.services.schedule;
+
+import com.school.sgai.dto.schedule.SessionSlot;
+import com.school.sgai.services.schedule.TimetableProblem.Lecture;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimetableSolverTests {
+
+    private static final long CLASSROOM = 1L;
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterAll
+    static void stop() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void placesEveryLectureAroundTheOtherClassrooms() {
+        List<Lecture> lectures = new ArrayList<>();
+        for (long i = 0; i < 10; i++) {
+            lectures.add(new Lecture(i, 100 + i, "Subject " + i, 10 + i % 3, "Teacher " + i % 3, 4));
+        }
+        // Teacher 10 teaches elsewhere all Monday, room A is taken all Tuesday
+        List<SessionSlot> fixed = List.of(
+                new SessionSlot(1000L, 10L, 2L, "B", DayOfWeek.MONDAY, LocalTime.of(8, 0), LocalTime.of(18, 0)),
+                new SessionSlot(1001L, 99L, 3L, "A", DayOfWeek.TUESDAY, LocalTime.of(8, 0), LocalTime.of(18, 0)));
+        TimetableProblem problem = new TimetableProblem(lectures, Set.of("A", "B"), fixed, Map.of());
+
+        TimetableSolver.Result result = TimetableSolver.solve(problem, Duration.ofMillis(300), executor, 2, 42);
+
+        assertEquals(0, result.hardViolations());
+        // Cross-check with the conflict index: no overlap with the fixed sessions nor between lectures
+        ScheduleConflictIndex index = new ScheduleConflictIndex();
+        fixed.forEach(index::put);
+        assertEquals(List.of(), index.validate(slots(problem, result)));
+        for (int l = 0; l < lectures.size(); l++) {
+            // Nothing after 16:00 on Friday when the week has room for it
+            if (TimetableProblem.DAYS.get(result.day()[l]) == DayOfWeek.FRIDAY) {
+                assertTrue(result.start()[l] + 4 <= 16);
+            }
+        }
+        assertTrue(result.restarts() >= 2);
+        assertTrue(result.fitness() > 0 && result.fitness() <= 1);
+    }
+
+    @Test
+    void reportsViolationsWhenNoTimetableIsFeasible() {
+        // Two lectures of a teacher who is never free, no rooms known
+        List<Lecture> lectures = List.of(
+                new Lecture(1L, 100L, "Java", 10L, "T", 4),
+                new Lecture(2L, 101L, "Maths", 10L, "T", 4));
+        List<SessionSlot> fixed = new ArrayList<>();
+        for (DayOfWeek day : TimetableProblem.DAYS) {
+            fixed.add(new SessionSlot(null, 10L, 2L, null, day, LocalTime.of(7, 0), LocalTime.of(19, 0)));
+        }
+        TimetableProblem problem = new TimetableProblem(lectures, Set.of(), fixed, Map.of("balance_days", false));
+
+        TimetableSolver.Result result = TimetableSolver.solve(problem, Duration.ofMillis(50), executor, 1, 7);
+
+        // Each lecture still gets a slot, the teacher clash is reported, not the missing rooms
+        assertEquals(2, result.hardViolations());
+        assertArrayEquals(new int[] { -1, -1 }, result.room());
+
+        TimetableSolver.Result empty = TimetableSolver.solve(
+                new TimetableProblem(List.of(), Set.of(), List.of(), Map.of()), Duration.ofMillis(50), executor, 1, 7);
+        assertEquals(0, empty.cost());
+    }
+
+    @Test
+    void roomsAreMatchedOnTheirNormalizedName() {
+        // "b104 " is the same room as "B104": only one room, busy all week
+        List<SessionSlot> fixed = new ArrayList<>();
+        for (DayOfWeek day : TimetableProblem.DAYS) {
+            fixed.add(new SessionSlot(null, 99L, 2L, "B104", day, LocalTime.of(8, 0), LocalTime.of(18, 0)));
+        }
+        TimetableProblem problem = new TimetableProblem(List.of(new Lecture(1L, 100L, "Java", 10L, "T", 4)),
+                List.of("b104 ", "B104", " "), fixed, Map.of());
+
+        assertEquals(List.of("b104"), problem.getRooms());
+        TimetableSolver.Result result = TimetableSolver.solve(problem, Duration.ofMillis(50), executor, 1, 7);
+        assertEquals(1, result.hardViolations());
+    }
+
+    private static List<SessionSlot> slots(TimetableProblem problem, TimetableSolver.Result result) {
+        List<SessionSlot> slots = new ArrayList<>();
+        for (int l = 0; l < problem.getLectures().size(); l++) {
+            Lecture lecture = problem.getLectures().get(l);
+            int start = result.start()[l];
+            slots.add(new SessionSlot(null, lecture.teacherId(), CLASSROOM, problem.getRooms().get(result.room()[l]),
+                    TimetableProblem.DAYS.get(result.day()[l]),
+                    TimetableProblem.timeOf(start), TimetableProblem.timeOf(start + lecture.slots())));
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,63 @@
+package com.school.sgai.services.schedule;
+
+import com.school.sgai.dto.schedule.SessionSlot;
+import com.school.sgai.services.schedule.WeeklyOccupancy.FreeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeeklyOccupancyTests {
+
+    private final WeeklyOccupancy occupancy = new WeeklyOccupancy();
+
+    @Test
+    void earliestCommonSlotAndsTeacherClassroomAndRoom() {
+        // Teacher 10 busy Monday 08:00-10:00, classroom 100 busy Monday 10:00-11:15
+        occupancy.add(slot(1L, 10L, 200L, "A", DayOfWeek.MONDAY, "08:00", "10:00"));
+        occupancy.add(slot(2L, 11L, 100L, "B", DayOfWeek.MONDAY, "10:00", "11:15"));
+        // Room A busy Monday 11:00-13:00, room B free after 11:15
+        occupancy.add(slot(3L, 12L, 300L, "A", DayOfWeek.MONDAY, "11:00", "13:00"));
+
+        List<FreeSlot> free = occupancy.findFree(10L, 100L, null, 120, 3);
+        assertEquals(new FreeSlot(DayOfWeek.MONDAY, LocalTime.of(11, 15), LocalTime.of(13, 15), "B"), free.get(0));
+        // Next suggestions do not overlap the previous one
+        assertEquals(LocalTime.of(13, 15), free.get(1).start());
+        assertEquals(3, free.size());
+
+        // In room A only: after its 13:00 session
+        assertEquals(LocalTime.of(13, 0), occupancy.findFree(10L, 100L, " a", 120, 1).get(0).start());
+        // A whole day: Monday is taken, Tuesday is the earliest
+        assertEquals(new FreeSlot(DayOfWeek.TUESDAY, LocalTime.of(8, 0), LocalTime.of(20, 0), "A"),
+                occupancy.findFree(10L, 100L, null, 12 * 60, 1).get(0));
+        assertThrows(IllegalArgumentException.class, () -> occupancy.findFree(10L, 100L, null, 13 * 60, 1));
+    }
+
+    @Test
+    void removingASessionKeepsQuartersStillUsedByAnotherOne() {
+        occupancy.add(slot(1L, 10L, 100L, "A", DayOfWeek.SATURDAY, "08:00", "12:00"));
+        // Overlapping session saved before conflicts were checked
+        occupancy.add(slot(2L, 10L, 101L, "B", DayOfWeek.SATURDAY, "09:00", "10:00"));
+        for (DayOfWeek day : List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY)) {
+            occupancy.add(slot(null, 10L, 999L, "C", day, "08:00", "20:00"));
+        }
+
+        assertEquals(LocalTime.of(12, 0), occupancy.findFree(10L, null, null, 60, 1).get(0).start());
+        assertTrue(occupancy.remove(2L));
+        assertEquals(LocalTime.of(12, 0), occupancy.findFree(10L, null, null, 60, 1).get(0).start());
+        assertTrue(occupancy.remove(1L));
+        assertEquals(LocalTime.of(8, 0), occupancy.findFree(10L, null, null, 60, 1).get(0).start());
+        assertFalse(occupancy.remove(1L));
+
+        assertEquals(0b0111, WeeklyOccupancy.runs(0b011111, 3));
+        assertEquals(0, WeeklyOccupancy.runs(0b1101101, 3));
+    }
+
+    private static SessionSlot slot(Long id, Long teacherId, Long classroomId, String room,
+                                    DayOfWeek day, String start, String end) {
+        return new SessionSlot(id, teacherId, classroomId, room, day, LocalTime.parse(start), LocalTime.parse(end));
+    }
+}